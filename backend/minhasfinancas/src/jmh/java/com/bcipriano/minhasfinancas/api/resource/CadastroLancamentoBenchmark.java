@@ -0,0 +1,83 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de POST /api/lancamentos por HTTP, com vários clientes simultâneos, comparando a configuração
+ * padrão com o perfil prod. O PostgreSQL é substituído pelo H2 em modo PostgreSQL: vale a comparação entre
+ * os perfis (pool, lotes, open-in-view), não o número absoluto. As opções do pgjdbc ficam na URL do perfil
+ * e só são medidas contra um PostgreSQL real, com -Dbenchmark.url=jdbc:postgresql://...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class CadastroLancamentoBenchmark {
+
+    private static final int USUARIOS = 100;
+
+    @Param({"padrao", "prod"})
+    public String perfil;
+
+    private ConfigurableApplicationContext contexto;
+
+    private HttpClient cliente;
+
+    private URI endereco;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ServidorBenchmark.iniciar("prod".equals(perfil) ? new String[]{"prod"} : new String[0]);
+        ServidorBenchmark.cadastrarUsuarios(contexto, USUARIOS);
+        endereco = ServidorBenchmark.endereco(contexto, "/api/lancamentos");
+        cliente = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int cadastrar() throws IOException, InterruptedException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String corpo = "{\"descricao\":\"Conta de luz\",\"mes\":" + aleatorio.nextInt(1, 13)
+                + ",\"ano\":2023,\"valor\":" + aleatorio.nextInt(1, 5000)
+                + ",\"usuario\":" + aleatorio.nextInt(1, USUARIOS + 1) + ",\"tipo\":\"DESPESA\"}";
+        HttpRequest requisicao = HttpRequest.newBuilder(endereco)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+        HttpResponse<Void> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+        if(resposta.statusCode() != 201) {
+            throw new IllegalStateException("POST /api/lancamentos respondeu " + resposta.statusCode());
+        }
+        return resposta.statusCode();
+    }
+
+}
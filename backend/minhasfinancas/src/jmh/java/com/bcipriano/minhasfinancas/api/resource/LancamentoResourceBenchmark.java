@@ -0,0 +1,98 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
+import com.bcipriano.minhasfinancas.benchmark.ContextoBenchmark;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camada de API sem HTTP: conversão do DTO para a entidade e serialização de uma página de lançamentos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LancamentoResourceBenchmark {
+
+    @Param("100")
+    public int tamanhoLista;
+
+    private LancamentoResource resource;
+
+    private ObjectMapper objectMapper;
+
+    private LancamentoDTO dto;
+
+    private List<Lancamento> lancamentos;
+
+    private List<LancamentoListagem> listagens;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBenchmark contexto) {
+        resource = contexto.bean(LancamentoResource.class);
+        objectMapper = contexto.bean(ObjectMapper.class);
+        dto = LancamentoDTO.builder()
+                .descricao("Conta de luz")
+                .mes(1)
+                .ano(2023)
+                .valor(BigDecimal.valueOf(150))
+                .usuario(1l)
+                .tipo("DESPESA")
+                .status("PENDENTE")
+                .build();
+
+        //A mesma página como entidades (com o usuario embutido) e como a projeção devolvida pela busca
+        EntityManager entityManager = contexto.bean(EntityManagerFactory.class).createEntityManager();
+        try {
+            lancamentos = entityManager
+                    .createQuery("select l from Lancamento l join fetch l.usuario order by l.id", Lancamento.class)
+                    .setMaxResults(tamanhoLista)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(Usuario.builder().id(1l).build());
+        listagens = contexto.bean(LancamentoService.class).buscar(filtro, null, tamanhoLista).getContent();
+    }
+
+    @Benchmark
+    public Lancamento converter() {
+        return resource.converter(dto);
+    }
+
+    @Benchmark
+    public byte[] serializarEntidades() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(lancamentos);
+    }
+
+    @Benchmark
+    public byte[] serializarListagens() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listagens);
+    }
+
+}
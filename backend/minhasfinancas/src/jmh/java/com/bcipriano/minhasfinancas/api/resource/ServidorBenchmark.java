@@ -0,0 +1,65 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.MinhasfinancasApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aplicação completa em uma porta livre para os benchmarks por HTTP. Usa o H2 em modo PostgreSQL,
+ * ou o banco de -Dbenchmark.url=jdbc:postgresql://...
+ */
+final class ServidorBenchmark {
+
+    private ServidorBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String[] perfis, String... propriedades) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+                .profiles(perfis)
+                .properties("server.port=0", "logging.level.root=WARN");
+
+        //Argumentos de linha de comando: prevalecem sobre o application.properties e o do perfil
+        List<String> argumentos = new ArrayList<>();
+        String url = System.getProperty("benchmark.url");
+        if(url == null) {
+            argumentos.add("--spring.datasource.url=jdbc:h2:mem:carga;MODE=PostgreSQL;"
+                    + "DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas");
+            argumentos.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            argumentos.add("--spring.datasource.username=sa");
+            argumentos.add("--spring.datasource.password=sa");
+        } else {
+            argumentos.add("--spring.datasource.url=" + url);
+            argumentos.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        }
+        //Esquema criado pelo Hibernate nos dois casos, como nos testes
+        argumentos.add("--spring.flyway.enabled=false");
+        argumentos.add("--minhasfinancas.particoes.habilitado=false");
+        Arrays.stream(propriedades).map(propriedade -> "--" + propriedade).forEach(argumentos::add);
+        return builder.run(argumentos.toArray(String[]::new));
+    }
+
+    static void cadastrarUsuarios(ConfigurableApplicationContext contexto, int quantidade) {
+        List<Object[]> usuarios = new ArrayList<>();
+        for(long id = 1; id <= quantidade; id++) {
+            usuarios.add(new Object[]{id, "Usuario " + id, "usuario" + id + "@email.com", "senha"});
+        }
+        //Em transação: o perfil prod desliga o autocommit das conexões do pool
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        contexto.getBean(TransactionTemplate.class).executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "insert into financas.usuario (id, nome, email, senha, versao) values (?, ?, ?, ?, 0)", usuarios));
+    }
+
+    static URI endereco(ConfigurableApplicationContext contexto, String caminho) {
+        int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        return URI.create("http://localhost:" + porta + caminho);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.bcipriano.minhasfinancas.benchmark;
+
+import com.bcipriano.minhasfinancas.MinhasfinancasApplication;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedgerService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Aplicação completa sobre o H2 em memória (perfil test), populada uma vez por fork.
+ * O tamanho da base é ajustável com -p usuarios=1000 -p lancamentosPorUsuario=10000.
+ */
+@State(Scope.Benchmark)
+public class ContextoBenchmark {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    private static final String[] DESCRICOES = {"Aluguel", "Conta de luz", "Conta de água", "Mercado", "Salário",
+            "Internet", "Farmácia", "Combustível", "Restaurante", "Academia"};
+
+    @Param("100")
+    public int usuarios;
+
+    @Param("100")
+    public int lancamentosPorUsuario;
+
+    private ConfigurableApplicationContext contexto;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN", "spring.jpa.show-sql=false")
+                .run();
+        popular(contexto.getBean(JdbcTemplate.class), usuarios, lancamentosPorUsuario);
+
+        //As visões derivadas são montadas a partir das linhas, como na primeira escrita de cada usuário
+        ProjecaoLedgerService projecaoLedgerService = contexto.getBean(ProjecaoLedgerService.class);
+        for(long idUsuario = 1; idUsuario <= usuarios; idUsuario++) {
+            projecaoLedgerService.reconstruir(idUsuario);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public long usuarioAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, usuarios + 1);
+    }
+
+    //Também usado pelos benchmarks por HTTP, que sobem a própria aplicação
+    public static void popular(JdbcTemplate jdbcTemplate, int usuarios, int lancamentosPorUsuario) {
+        List<Object[]> usuariosLote = new ArrayList<>();
+        for(long id = 1; id <= usuarios; id++) {
+            usuariosLote.add(new Object[]{id, "Usuario " + id, "usuario" + id + "@email.com", "senha"});
+        }
+        jdbcTemplate.batchUpdate("insert into financas.usuario (id, nome, email, senha, versao) values (?, ?, ?, ?, 0)", usuariosLote);
+
+        //Semente fixa: a mesma base em todas as execuções
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        long id = 1;
+        for(long idUsuario = 1; idUsuario <= usuarios; idUsuario++) {
+            for(int i = 0; i < lancamentosPorUsuario; i++) {
+                int ano = 2018 + aleatorio.nextInt(6);
+                int mes = 1 + aleatorio.nextInt(12);
+                lote.add(new Object[]{id++, DESCRICOES[aleatorio.nextInt(DESCRICOES.length)] + " " + i, mes, ano,
+                        idUsuario, BigDecimal.valueOf(aleatorio.nextInt(1, 500_000), 2),
+                        Date.valueOf(LocalDate.of(ano, mes, 1)),
+                        aleatorio.nextInt(3) == 0 ? "RECEITA" : "DESPESA",
+                        aleatorio.nextBoolean() ? "EFETIVADO" : "PENDENTE"});
+                if(lote.size() == TAMANHO_LOTE) {
+                    inserirLancamentos(jdbcTemplate, lote);
+                }
+            }
+        }
+        if(!lote.isEmpty()) {
+            inserirLancamentos(jdbcTemplate, lote);
+        }
+    }
+
+    private static void inserirLancamentos(JdbcTemplate jdbcTemplate, List<Object[]> lote) {
+        jdbcTemplate.batchUpdate("insert into financas.lancamento"
+                + " (id, descricao, mes, ano, id_usuario, valor, moeda, data_cadastro, tipo, status, versao)"
+                + " values (?, ?, ?, ?, ?, ?, 'BRL', ?, ?, ?, 0)", lote);
+        lote.clear();
+    }
+
+}
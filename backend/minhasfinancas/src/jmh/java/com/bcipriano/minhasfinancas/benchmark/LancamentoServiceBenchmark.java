@@ -0,0 +1,76 @@
+package com.bcipriano.minhasfinancas.benchmark;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LancamentoServiceBenchmark {
+
+    private LancamentoService service;
+
+    private Lancamento lancamentoValido;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBenchmark contexto) {
+        service = contexto.bean(LancamentoService.class);
+        lancamentoValido = Lancamento.builder()
+                .descricao("Conta de luz")
+                .mes(1)
+                .ano(2023)
+                .usuario(Usuario.builder().id(1l).build())
+                .valor(BigDecimal.valueOf(150))
+                .tipo(TipoLancamento.DESPESA)
+                .build();
+    }
+
+    @Benchmark
+    public void validar() {
+        service.validar(lancamentoValido);
+    }
+
+    @Benchmark
+    public Slice<LancamentoListagem> buscarPorAno(ContextoBenchmark contexto) {
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(Usuario.builder().id(contexto.usuarioAleatorio()).build());
+        filtro.setAno(2020);
+        return service.buscar(filtro, null, 100);
+    }
+
+    @Benchmark
+    public void buscarPorDescricao(ContextoBenchmark contexto, Blackhole blackhole) {
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(Usuario.builder().id(contexto.usuarioAleatorio()).build());
+        filtro.setDescricao("conta");
+        blackhole.consume(service.buscar(filtro, null, 100));
+    }
+
+    @Benchmark
+    public BigDecimal obterSaldoPorUsuario(ContextoBenchmark contexto) {
+        return service.obterSaldoPorUsuario(contexto.usuarioAleatorio());
+    }
+
+}
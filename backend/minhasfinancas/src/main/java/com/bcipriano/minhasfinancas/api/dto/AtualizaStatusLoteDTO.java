@@ -0,0 +1,23 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AtualizaStatusLoteDTO {
+
+    private List<Long> ids;
+
+    private Long usuario;
+
+    private Integer ano;
+
+    private Integer mes;
+
+    private String tipo;
+
+    private String status;
+}
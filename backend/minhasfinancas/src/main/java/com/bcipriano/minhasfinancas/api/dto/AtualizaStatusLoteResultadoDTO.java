@@ -0,0 +1,10 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AtualizaStatusLoteResultadoDTO {
+    private int atualizados;
+}
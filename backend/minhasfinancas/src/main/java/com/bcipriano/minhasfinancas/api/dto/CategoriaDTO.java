@@ -0,0 +1,20 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoriaDTO {
+
+    private Long usuario;
+
+    private String nome;
+
+}
@@ -1,7 +1,9 @@
 package com.bcipriano.minhasfinancas.api.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
@@ -9,6 +11,8 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class LancamentoDTO {
 
     private Long id;
@@ -21,10 +25,18 @@ public class LancamentoDTO {
 
     private BigDecimal valor;
 
+    //Código ISO 4217; sem ele, o lançamento fica na moeda padrão (BRL)
+    private String moeda;
+
     private Long usuario;
 
+    private Long categoria;
+
     private String tipo;
 
     private String status;
 
+    //Versão lida pelo cliente; na atualização, uma versão diferente da atual resulta em 409
+    private Long versao;
+
 }
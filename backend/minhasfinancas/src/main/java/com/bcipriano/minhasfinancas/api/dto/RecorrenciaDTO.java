@@ -0,0 +1,40 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecorrenciaDTO {
+
+    private Long id;
+
+    private Long usuario;
+
+    private String descricao;
+
+    private BigDecimal valor;
+
+    private String moeda;
+
+    private String tipo;
+
+    private Long categoria;
+
+    //MENSAL ou ANUAL, contados a partir da data de início
+    private String periodicidade;
+
+    private LocalDate dataInicio;
+
+    private LocalDate dataFim;
+
+}
@@ -0,0 +1,31 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoAnualDTO {
+
+    private Long usuario;
+
+    private Integer ano;
+
+    private BigDecimal receitas;
+
+    private BigDecimal despesas;
+
+    private BigDecimal saldo;
+
+    private List<ResumoMesDTO> meses;
+
+}
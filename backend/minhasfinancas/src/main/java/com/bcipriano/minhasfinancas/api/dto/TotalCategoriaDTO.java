@@ -0,0 +1,28 @@
+package com.bcipriano.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotalCategoriaDTO {
+
+    private Long categoria;
+
+    private String nome;
+
+    private BigDecimal receitas;
+
+    private BigDecimal despesas;
+
+    private Long quantidade;
+
+}
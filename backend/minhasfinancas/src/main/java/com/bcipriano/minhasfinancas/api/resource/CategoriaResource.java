@@ -0,0 +1,111 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.api.dto.CategoriaDTO;
+import com.bcipriano.minhasfinancas.api.dto.TotalCategoriaDTO;
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.service.CategoriaService;
+import com.bcipriano.minhasfinancas.service.TotalCategoriaService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/categorias")
+@RequiredArgsConstructor
+public class CategoriaResource {
+
+    private final CategoriaService service;
+
+    private final TotalCategoriaService totalCategoriaService;
+
+    private final UsuarioService usuarioService;
+
+    @PostMapping
+    public ResponseEntity salvar(@RequestBody CategoriaDTO categoriaDTO) {
+        try {
+            if(categoriaDTO.getUsuario() == null || !usuarioService.obterPorId(categoriaDTO.getUsuario()).isPresent()) {
+                throw new RegraNegocioException("Usuario não encontrado para o Id informado.");
+            }
+            Categoria categoria = service.salvar(Categoria.builder()
+                    .idUsuario(categoriaDTO.getUsuario())
+                    .nome(categoriaDTO.getNome())
+                    .build());
+            return new ResponseEntity(categoria, HttpStatus.CREATED);
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+        return ResponseEntity.ok(service.obterPorUsuario(idUsuario));
+    }
+
+    //Servido pelo agregado total_categoria: o custo depende do número de categorias, e não de lançamentos.
+    //Todas as categorias do usuário aparecem, em ordem de nome, mesmo as sem lançamentos no período
+    @GetMapping("/totais")
+    public ResponseEntity obterTotais(@RequestParam("usuario") Long idUsuario,
+                                      @RequestParam("ano") Integer ano,
+                                      @RequestParam(value = "mes", required = false) Integer mes,
+                                      @RequestParam(value = "status", required = false) String status) {
+        if(!usuarioService.obterPorId(idUsuario).isPresent()) {
+            return new ResponseEntity(HttpStatus.NOT_FOUND);
+        }
+        if(mes != null && (mes < 1 || mes > 12)) {
+            return ResponseEntity.badRequest().body("Informe um mês válido!");
+        }
+
+        StatusLancamento filtroStatus = null;
+        if(status != null) {
+            try {
+                filtroStatus = StatusLancamento.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Status de lançamento inválido.");
+            }
+        }
+
+        List<TotalCategoria> totais = totalCategoriaService.obterTotais(idUsuario, ano, mes);
+        return ResponseEntity.ok(converter(service.obterPorUsuario(idUsuario), totais, filtroStatus));
+    }
+
+    private List<TotalCategoriaDTO> converter(List<Categoria> categorias, List<TotalCategoria> totais,
+                                              StatusLancamento status) {
+        Map<Long, TotalCategoriaDTO> porCategoria = new LinkedHashMap<>();
+        for(Categoria categoria : categorias) {
+            porCategoria.put(categoria.getId(), TotalCategoriaDTO.builder()
+                    .categoria(categoria.getId())
+                    .nome(categoria.getNome())
+                    .receitas(BigDecimal.ZERO)
+                    .despesas(BigDecimal.ZERO)
+                    .quantidade(0l)
+                    .build());
+        }
+
+        for(TotalCategoria total : totais) {
+            TotalCategoriaDTO dto = porCategoria.get(total.getIdCategoria());
+            if(dto == null || (status != null && total.getStatus() != status)) {
+                continue;
+            }
+            if(total.getTipo() == TipoLancamento.RECEITA) {
+                dto.setReceitas(dto.getReceitas().add(total.getTotal()));
+            } else {
+                dto.setDespesas(dto.getDespesas().add(total.getTotal()));
+            }
+            dto.setQuantidade(dto.getQuantidade() + total.getQuantidade());
+        }
+        return new ArrayList<>(porCategoria.values());
+    }
+
+}
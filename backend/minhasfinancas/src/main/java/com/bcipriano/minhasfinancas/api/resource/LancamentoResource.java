@@ -1,77 +1,231 @@
 package com.bcipriano.minhasfinancas.api.resource;
 
 import com.bcipriano.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.bcipriano.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
+import com.bcipriano.minhasfinancas.api.dto.AtualizaStatusLoteResultadoDTO;
 import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
 import com.bcipriano.minhasfinancas.model.entity.Lancamento;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
 import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.ExportacaoService;
+import com.bcipriano.minhasfinancas.service.FormatoExportacao;
+import com.bcipriano.minhasfinancas.service.FormatoImportacao;
+import com.bcipriano.minhasfinancas.service.ImportacaoService;
 import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.ResultadoImportacao;
 import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.bcipriano.minhasfinancas.service.VersaoLedgerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/lancamentos")
 @RequiredArgsConstructor
 public class LancamentoResource {
 
+    public static final String HEADER_PROXIMO_CURSOR = "X-Proximo-Cursor";
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    public static final String TEXT_CSV = "text/csv";
+
+    public static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final LancamentoService service;
 
     private final UsuarioService usuarioService;
 
+    private final ImportacaoService importacaoService;
+
+    private final ExportacaoService exportacaoService;
+
+    private final VersaoLedgerService versaoLedgerService;
+
+    private final ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity salvar(@RequestBody LancamentoDTO lancamentoDTO) {
         try {
             Lancamento entidade = converter(lancamentoDTO);
             Lancamento entidadeSalva = service.salvar(entidade);
-            return new ResponseEntity(entidadeSalva, HttpStatus.CREATED);
+            return new ResponseEntity(LancamentoListagem.de(entidadeSalva), HttpStatus.CREATED);
         } catch (RegraNegocioException regraNegocioException) {
             return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
         }
     }
 
+    @PostMapping(value = "importacao", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON, TEXT_CSV})
+    public ResponseEntity importar(@RequestParam("usuario") Long idUsuario,
+                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                   InputStream entrada) {
+        FormatoImportacao formato = FormatoImportacao.JSON;
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON))) {
+            formato = FormatoImportacao.NDJSON;
+        } else if (contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))) {
+            formato = FormatoImportacao.CSV;
+        }
+
+        try {
+            ResultadoImportacao resultado = importacaoService.importar(idUsuario, entrada, formato);
+            return ResponseEntity.ok(resultado);
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
+    }
+
+    @GetMapping("{id}")
+    public ResponseEntity obterPorId(@PathVariable("id") Long id) {
+        return service.obterPorIdComUsuario(id)
+                .map(entity -> ResponseEntity.ok().eTag(VersaoLancamentoEtag.de(entity.getVersao())).body(entity))
+                .orElseGet(() -> new ResponseEntity("Lancamento não encontrado na base de dados!", HttpStatus.NOT_FOUND));
+    }
+
     @PutMapping("{id}")
-    public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO lancamentoDTO) {
+    public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO lancamentoDTO,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return service.obterPorId(id).map(entity -> {
+            if (!VersaoLancamentoEtag.atende(ifMatch, entity.getVersao())) {
+                return VersaoLancamentoEtag.precondicaoFalhou();
+            }
             try {
                 Lancamento lancamento = converter(lancamentoDTO);
                 lancamento.setId(entity.getId());
-                service.atualizar(lancamento);
-                return ResponseEntity.ok(lancamento);
+                lancamento.setVersao(lancamentoDTO.getVersao() != null ? lancamentoDTO.getVersao() : entity.getVersao());
+                lancamento.setVersao(service.atualizar(lancamento).getVersao());
+                return ResponseEntity.ok().eTag(VersaoLancamentoEtag.de(lancamento.getVersao())).body(LancamentoListagem.de(lancamento));
             } catch (RegraNegocioException regraNegocioException) {
                 return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+            } catch (OptimisticLockingFailureException e) {
+                return VersaoLancamentoEtag.conflito();
             }
         }).orElseGet(() -> new ResponseEntity("Lancamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST));
     }
 
+    @PatchMapping(value = "{id}", consumes = {APPLICATION_MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity atualizarParcial(@PathVariable("id") Long id, @RequestBody JsonNode alteracao,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!alteracao.isObject()) {
+            return ResponseEntity.badRequest().body("Informe um objeto JSON com os campos a alterar.");
+        }
+        LancamentoDTO alteracoes;
+        try {
+            alteracoes = objectMapper.treeToValue(alteracao, LancamentoDTO.class);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body("Alteração inválida: " + e.getOriginalMessage());
+        }
+        Set<String> campos = new LinkedHashSet<>();
+        alteracao.fieldNames().forEachRemaining(campos::add);
+
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            Optional<Long> versao = VersaoLancamentoEtag.versao(ifMatch);
+            if (!versao.isPresent() || (campos.contains("versao") && !versao.get().equals(alteracoes.getVersao()))) {
+                return VersaoLancamentoEtag.precondicaoFalhou();
+            }
+            alteracoes.setVersao(versao.get());
+            campos.add("versao");
+        }
+
+        try {
+            return service.atualizarParcial(id, alteracoes, campos)
+                    .<ResponseEntity>map(lancamento -> ResponseEntity.ok()
+                            .eTag(VersaoLancamentoEtag.de(lancamento.getVersao()))
+                            .body(LancamentoListagem.de(lancamento)))
+                    .orElseGet(() -> new ResponseEntity("Lancamento não encontrado na base de dados!", HttpStatus.NOT_FOUND));
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ifMatch != null ? VersaoLancamentoEtag.precondicaoFalhou() : VersaoLancamentoEtag.conflito();
+        }
+    }
+
     @PutMapping("{id}/atualiza")
     public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO atualizaStatusDTO){
-        return service.obterPorId(id).map(entity->{
+        if(atualizaStatusDTO.getStatus() == null) {
+            return ResponseEntity.badRequest().body("Não foi possivel atualizar o status do lançamento");
+        }
+        try{
             StatusLancamento statusAtualizado = StatusLancamento.valueOf(atualizaStatusDTO.getStatus());
-            if(statusAtualizado == null) {
-                return ResponseEntity.badRequest().body("Não foi possivel atualizar o status do lançamento");
+            return service.atualizarStatus(id, statusAtualizado)
+                    .<ResponseEntity>map(entity -> ResponseEntity.ok().eTag(VersaoLancamentoEtag.de(entity.getVersao())).body(entity))
+                    .orElseGet(() -> new ResponseEntity("Lancamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST));
+        }catch (IllegalArgumentException e){
+            return ResponseEntity.badRequest().body("Não foi possivel atualizar o status do lançamento");
+        }catch (RegraNegocioException regraNegocioException){
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }catch (ConcurrencyFailureException e){
+            return VersaoLancamentoEtag.conflito();
+        }
+    }
+
+    @PutMapping("atualiza")
+    public ResponseEntity atualizarStatusEmLote(@RequestBody AtualizaStatusLoteDTO atualizaStatusLoteDTO) {
+        boolean porIds = atualizaStatusLoteDTO.getIds() != null && !atualizaStatusLoteDTO.getIds().isEmpty();
+        if(porIds == (atualizaStatusLoteDTO.getUsuario() != null)) {
+            return ResponseEntity.badRequest().body("Informe a lista de ids ou o usuario do filtro.");
+        }
+        if(atualizaStatusLoteDTO.getStatus() == null) {
+            return ResponseEntity.badRequest().body("Não foi possivel atualizar o status dos lançamentos");
+        }
+        try {
+            StatusLancamento statusAtualizado = StatusLancamento.valueOf(atualizaStatusLoteDTO.getStatus());
+            int atualizados;
+            if(porIds) {
+                atualizados = service.atualizarStatus(atualizaStatusLoteDTO.getIds(), statusAtualizado);
+            } else {
+                Lancamento lancamentoFiltro = new Lancamento();
+                lancamentoFiltro.setUsuario(Usuario.builder().id(atualizaStatusLoteDTO.getUsuario()).build());
+                lancamentoFiltro.setAno(atualizaStatusLoteDTO.getAno());
+                lancamentoFiltro.setMes(atualizaStatusLoteDTO.getMes());
+                if(atualizaStatusLoteDTO.getTipo() != null) {
+                    lancamentoFiltro.setTipo(TipoLancamento.valueOf(atualizaStatusLoteDTO.getTipo()));
+                }
+                atualizados = service.atualizarStatusPorFiltro(lancamentoFiltro, statusAtualizado);
             }
-           try{
-               service.atualizarStatus(entity, statusAtualizado);
-               return ResponseEntity.ok(entity);
-           }catch (RegraNegocioException regraNegocioException){
-               return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
-           }
-        }).orElseGet(() -> new ResponseEntity("Lancamento não encontrado na base de dados!", HttpStatus.BAD_REQUEST));
+            return ResponseEntity.ok(new AtualizaStatusLoteResultadoDTO(atualizados));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Não foi possivel atualizar o status dos lançamentos");
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
     }
 
     @DeleteMapping("{id}")
-    public ResponseEntity deletar(@PathVariable("id") Long id) {
+    public ResponseEntity deletar(@PathVariable("id") Long id,
+                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return service.obterPorId(id).map(entity -> {
-            service.deletar(entity);
-            return new ResponseEntity(HttpStatus.NO_CONTENT);
+            if (!VersaoLancamentoEtag.atende(ifMatch, entity.getVersao())) {
+                return VersaoLancamentoEtag.precondicaoFalhou();
+            }
+            try {
+                service.deletar(entity);
+                return new ResponseEntity(HttpStatus.NO_CONTENT);
+            } catch (OptimisticLockingFailureException e) {
+                return VersaoLancamentoEtag.conflito();
+            }
         }).orElseGet(() -> new ResponseEntity("Lancamento não encontrado!", HttpStatus.BAD_REQUEST));
     }
 
@@ -80,37 +234,111 @@ public class LancamentoResource {
             @RequestParam(value = "descricao", required = false) String descricao,
             @RequestParam(value = "mes", required = false) Integer mes,
             @RequestParam(value = "ano", required = false) Integer ano,
-            @RequestParam("usuario") Long idUsuario
+            @RequestParam("usuario") Long idUsuario,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "tamanho", defaultValue = "100") Integer tamanho,
+            WebRequest request
     ) {
         Lancamento lancamentoFiltro = new Lancamento();
         lancamentoFiltro.setDescricao(descricao);
         lancamentoFiltro.setMes(mes);
         lancamentoFiltro.setAno(ano);
 
-        Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
-        if (!usuario.isPresent()) {
+        if (!usuarioService.obterPorId(idUsuario).isPresent()) {
             return ResponseEntity.badRequest().body("Não foi possivel encontrar o usuario para o id informado");
-        } else {
-            lancamentoFiltro.setUsuario(usuario.get());
+        }
+        lancamentoFiltro.setUsuario(Usuario.builder().id(idUsuario).build());
+
+        String etag = VersaoLedgerEtag.de(idUsuario, versaoLedgerService.obterVersao(idUsuario));
+        Optional<ResponseEntity> naoModificado = VersaoLedgerEtag.naoModificado(request, etag);
+        if (naoModificado.isPresent()) {
+            return naoModificado.get();
+        }
+
+        try {
+            CursorLancamento posicao = cursor != null ? CursorLancamento.deToken(cursor) : null;
+            Slice<LancamentoListagem> pagina = service.buscar(lancamentoFiltro, posicao, tamanho);
+
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().cacheControl(VersaoLedgerEtag.CACHE_CONTROL);
+            if (pagina.hasNext()) {
+                List<LancamentoListagem> lancamentos = pagina.getContent();
+                String proximoCursor = CursorLancamento.de(lancamentos.get(lancamentos.size() - 1)).toToken();
+                String proximaPagina = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("cursor", proximoCursor)
+                        .toUriString();
+                resposta.header(HEADER_PROXIMO_CURSOR, proximoCursor);
+                resposta.header(HttpHeaders.LINK, "<" + proximaPagina + ">; rel=\"next\"");
+            }
+            return resposta.body(pagina.getContent());
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
+    }
+
+    @GetMapping("busca")
+    public ResponseEntity buscarPorDescricao(
+            @RequestParam("usuario") Long idUsuario,
+            @RequestParam("termo") String termo,
+            @RequestParam(value = "limite", defaultValue = "20") Integer limite
+    ) {
+        try {
+            List<LancamentoListagem> lancamentos = service.buscarPorDescricao(idUsuario, termo, limite);
+            return ResponseEntity.ok(lancamentos);
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam("usuario") Long idUsuario,
+            @RequestParam(value = "format", defaultValue = "csv") String format
+    ) {
+        FormatoExportacao formato;
+        try {
+            formato = FormatoExportacao.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return erroExportacao("Formato de exportação inválido. Use csv ou ndjson.");
         }
 
-        List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-        return ResponseEntity.ok(lancamentos);
+        if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+            return erroExportacao("Não foi possivel encontrar o usuario para o id informado");
+        }
+
+        StreamingResponseBody corpo = saida -> exportacaoService.exportar(idUsuario, formato, saida);
+        String extensao = formato == FormatoExportacao.CSV ? "csv" : "ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato == FormatoExportacao.CSV ? TEXT_CSV : APPLICATION_NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"lancamentos-" + idUsuario + "." + extensao + "\"")
+                .body(corpo);
     }
 
+    private ResponseEntity<StreamingResponseBody> erroExportacao(String mensagem) {
+        return ResponseEntity.badRequest()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(saida -> saida.write(mensagem.getBytes(StandardCharsets.UTF_8)));
+    }
 
-    private Lancamento converter(LancamentoDTO lancamentoDTO) {
+    //Visível no pacote para o benchmark da camada de API
+    Lancamento converter(LancamentoDTO lancamentoDTO) {
         Lancamento lancamento = new Lancamento();
         lancamento.setId(lancamentoDTO.getId());
         lancamento.setDescricao(lancamentoDTO.getDescricao());
         lancamento.setAno(lancamentoDTO.getAno());
         lancamento.setMes(lancamentoDTO.getMes());
         lancamento.setValor(lancamentoDTO.getValor());
+        if(lancamentoDTO.getMoeda() != null){
+            lancamento.setMoeda(lancamentoDTO.getMoeda());
+        }
+        lancamento.setIdCategoria(lancamentoDTO.getCategoria());
 
-        //Obtenha o usuario, caso ele esteja vazio lance uma RegraNegocioException
-        Usuario usuario = usuarioService.obterPorId(lancamentoDTO.getUsuario()).orElseThrow(() -> new RegraNegocioException("Usuario não encontrado para o Id informado."));
+        //Caso o usuario não exista lance uma RegraNegocioException
+        if(lancamentoDTO.getUsuario() == null || !usuarioService.obterPorId(lancamentoDTO.getUsuario()).isPresent()){
+            throw new RegraNegocioException("Usuario não encontrado para o Id informado.");
+        }
 
-        lancamento.setUsuario(usuario);
+        lancamento.setUsuario(usuarioService.obterReferencia(lancamentoDTO.getUsuario()));
 
         if(lancamentoDTO.getTipo() != null){
             lancamento.setTipo(TipoLancamento.valueOf(lancamentoDTO.getTipo()));
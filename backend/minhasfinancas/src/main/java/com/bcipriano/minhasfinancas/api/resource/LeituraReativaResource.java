@@ -0,0 +1,50 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LeituraReativaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Leituras de painel servidas pelo R2DBC. A thread da requisição é liberada enquanto a consulta roda.
+ * Com Accept application/x-ndjson cada lançamento é escrito assim que chega, e o próximo só é pedido
+ * ao banco depois que o anterior foi gravado na resposta; em JSON a lista é montada antes do envio.
+ */
+@RestController
+@RequestMapping("/api/leitura")
+@RequiredArgsConstructor
+public class LeituraReativaResource {
+
+    private final LeituraReativaService service;
+
+    @GetMapping(value = "lancamentos", produces = {MediaType.APPLICATION_JSON_VALUE, LancamentoResource.APPLICATION_NDJSON})
+    public Flux<LancamentoListagem> listarLancamentos(
+            @RequestParam("usuario") Long idUsuario,
+            @RequestParam(value = "ano", required = false) Integer ano,
+            @RequestParam(value = "mes", required = false) Integer mes,
+            @RequestParam(value = "limite", defaultValue = "1000") Integer limite
+    ) {
+        return service.listarLancamentos(idUsuario, ano, mes, limite);
+    }
+
+    @GetMapping("usuarios/{id}/saldo")
+    public Mono<ResponseEntity<BigDecimal>> obterSaldo(@PathVariable("id") Long id) {
+        return service.obterSaldo(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @ExceptionHandler(RegraNegocioException.class)
+    public ResponseEntity<String> regraNegocio(RegraNegocioException regraNegocioException) {
+        return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.api.dto.RecorrenciaDTO;
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+import com.bcipriano.minhasfinancas.model.entity.enums.Periodicidade;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.service.RecorrenciaService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+//Os lançamentos de cada ocorrência são gerados pelo agendamento (minhasfinancas.recorrencia.cron)
+@RestController
+@RequestMapping("/api/recorrencias")
+@RequiredArgsConstructor
+public class RecorrenciaResource {
+
+    private final RecorrenciaService service;
+
+    private final UsuarioService usuarioService;
+
+    @PostMapping
+    public ResponseEntity salvar(@RequestBody RecorrenciaDTO recorrenciaDTO) {
+        try {
+            Recorrencia recorrencia = service.salvar(converter(recorrenciaDTO));
+            return new ResponseEntity(recorrencia, HttpStatus.CREATED);
+        } catch (RegraNegocioException regraNegocioException) {
+            return ResponseEntity.badRequest().body(regraNegocioException.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+        return ResponseEntity.ok(service.obterPorUsuario(idUsuario));
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity deletar(@PathVariable("id") Long id) {
+        return service.obterPorId(id).map(entity -> {
+            service.deletar(entity);
+            return new ResponseEntity(HttpStatus.NO_CONTENT);
+        }).orElseGet(() -> new ResponseEntity("Recorrência não encontrada!", HttpStatus.BAD_REQUEST));
+    }
+
+    private Recorrencia converter(RecorrenciaDTO recorrenciaDTO) {
+        if(recorrenciaDTO.getUsuario() == null || !usuarioService.obterPorId(recorrenciaDTO.getUsuario()).isPresent()) {
+            throw new RegraNegocioException("Usuario não encontrado para o Id informado.");
+        }
+
+        Recorrencia recorrencia = new Recorrencia();
+        recorrencia.setIdUsuario(recorrenciaDTO.getUsuario());
+        recorrencia.setDescricao(recorrenciaDTO.getDescricao());
+        recorrencia.setValor(recorrenciaDTO.getValor());
+        if(recorrenciaDTO.getMoeda() != null) {
+            recorrencia.setMoeda(recorrenciaDTO.getMoeda());
+        }
+        recorrencia.setIdCategoria(recorrenciaDTO.getCategoria());
+        recorrencia.setDataInicio(recorrenciaDTO.getDataInicio());
+        recorrencia.setDataFim(recorrenciaDTO.getDataFim());
+
+        try {
+            if(recorrenciaDTO.getTipo() != null) {
+                recorrencia.setTipo(TipoLancamento.valueOf(recorrenciaDTO.getTipo()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Tipo de lançamento inválido.");
+        }
+
+        try {
+            if(recorrenciaDTO.getPeriodicidade() != null) {
+                recorrencia.setPeriodicidade(Periodicidade.valueOf(recorrenciaDTO.getPeriodicidade()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Periodicidade inválida. Use MENSAL ou ANUAL.");
+        }
+
+        return recorrencia;
+    }
+
+}
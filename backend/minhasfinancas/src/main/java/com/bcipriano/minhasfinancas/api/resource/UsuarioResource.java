@@ -1,18 +1,32 @@
 package com.bcipriano.minhasfinancas.api.resource;
 
+import com.bcipriano.minhasfinancas.api.dto.ResumoAnualDTO;
+import com.bcipriano.minhasfinancas.api.dto.ResumoMesDTO;
 import com.bcipriano.minhasfinancas.api.dto.UsuarioDTO;
 import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
 import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedgerService;
+import com.bcipriano.minhasfinancas.service.ResumoService;
 import com.bcipriano.minhasfinancas.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController //Relaciona controller com responseBy
 @RequestMapping("/api/usuarios")
@@ -23,6 +37,10 @@ public class UsuarioResource {
 
     private final LancamentoService lancamentoService;
 
+    private final ResumoService resumoService;
+
+    private final ProjecaoLedgerService projecaoLedgerService;
+
     @PostMapping //Default = @PostMapping("/")
     public ResponseEntity salvar(@RequestBody UsuarioDTO dto){ //transforma JSON em um objeto
         Usuario usuario = Usuario.builder().nome(dto.getNome()).email(dto.getEmail()).senha(dto.getSenha()).build();
@@ -35,25 +53,116 @@ public class UsuarioResource {
     }
 
 
+    //A verificação da senha roda fora da thread da requisição, que é liberada enquanto o hash é calculado
     @PostMapping("/autenticar")
-    public ResponseEntity autenticar(@RequestBody UsuarioDTO dto){
+    public CompletableFuture<ResponseEntity> autenticar(@RequestBody UsuarioDTO dto){
+        return service.autenticarAsync(dto.getEmail(), dto.getSenha())
+                .<ResponseEntity>thenApply(ResponseEntity::ok)
+                .exceptionally(erro -> {
+                    Throwable causa = erro instanceof CompletionException ? erro.getCause() : erro;
+                    if(causa instanceof ErroAutenticacao){
+                        return ResponseEntity.badRequest().body(causa.getMessage());
+                    }
+                    if(causa instanceof RejectedExecutionException){
+                        return new ResponseEntity("Muitas autenticações em andamento, tente novamente.", HttpStatus.SERVICE_UNAVAILABLE);
+                    }
+                    throw erro instanceof CompletionException ? (CompletionException) erro : new CompletionException(erro);
+                });
+    }
+
+    //Consultas repetidas com If-None-Match recebem 304 sem tocar nos lançamentos nem no saldo.
+    //O saldo materializado acompanha o consumidor do ledger, então o ETag usa a versão já aplicada,
+    //mais as cotações do dia das moedas do usuário
+    @GetMapping("{id}/saldo")
+    public ResponseEntity obterSaldo(@PathVariable("id") Long id, WebRequest request){
+        Optional<UsuarioListagem> usuario = service.obterPorId(id);
+        if(!usuario.isPresent()){
+            return new ResponseEntity(HttpStatus.NOT_FOUND);
+        }
+
+        String etag = VersaoLedgerEtag.de(id, projecaoLedgerService.obterVersaoAplicada(id),
+                lancamentoService.obterCotacoesDoSaldo(id));
+        Optional<ResponseEntity> naoModificado = VersaoLedgerEtag.naoModificado(request, etag);
+        if(naoModificado.isPresent()){
+            return naoModificado.get();
+        }
+
         try{
-            Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
-            return ResponseEntity.ok(usuarioAutenticado);
-        }catch (ErroAutenticacao e){
+            BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
+            return ResponseEntity.ok().cacheControl(VersaoLedgerEtag.CACHE_CONTROL).body(saldo);
+        }catch (RegraNegocioException e){
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @GetMapping("{id}/saldo")
-    public ResponseEntity obterSaldo(@PathVariable("id") Long id){
-        Optional<Usuario> usuario = service.obterPorId(id);
+    @GetMapping("{id}/resumo")
+    public ResponseEntity obterResumo(@PathVariable("id") Long id,
+                                      @RequestParam("ano") Integer ano,
+                                      @RequestParam(value = "status", required = false) String status){
+        Optional<UsuarioListagem> usuario = service.obterPorId(id);
         if(!usuario.isPresent()){
             return new ResponseEntity(HttpStatus.NOT_FOUND);
         }
 
-        BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
-        return ResponseEntity.ok().body(saldo);
+        StatusLancamento filtroStatus = null;
+        if(status != null){
+            try{
+                filtroStatus = StatusLancamento.valueOf(status);
+            }catch (IllegalArgumentException e){
+                return ResponseEntity.badRequest().body("Status de lançamento inválido.");
+            }
+        }
+
+        try{
+            List<ResumoMensal> resumos = resumoService.obterResumosDoAno(id, ano);
+            return ResponseEntity.ok(converter(id, ano, resumos, filtroStatus));
+        }catch (RegraNegocioException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResumoAnualDTO converter(Long idUsuario, Integer ano, List<ResumoMensal> resumos, StatusLancamento status){
+        BigDecimal[] receitas = new BigDecimal[12];
+        BigDecimal[] despesas = new BigDecimal[12];
+        for(int i = 0; i < 12; i++){
+            receitas[i] = BigDecimal.ZERO;
+            despesas[i] = BigDecimal.ZERO;
+        }
+
+        for(ResumoMensal resumo : resumos){
+            if(status != null && resumo.getStatus() != status){
+                continue;
+            }
+            int indice = resumo.getMes() - 1;
+            if(resumo.getTipo() == TipoLancamento.RECEITA){
+                receitas[indice] = receitas[indice].add(resumo.getTotal());
+            }else{
+                despesas[indice] = despesas[indice].add(resumo.getTotal());
+            }
+        }
+
+        List<ResumoMesDTO> meses = new ArrayList<>(12);
+        BigDecimal totalReceitas = BigDecimal.ZERO;
+        BigDecimal totalDespesas = BigDecimal.ZERO;
+        for(int i = 0; i < 12; i++){
+            meses.add(ResumoMesDTO.builder()
+                    .mes(i + 1)
+                    .receitas(receitas[i])
+                    .despesas(despesas[i])
+                    .saldo(receitas[i].subtract(despesas[i]))
+                    .build());
+            totalReceitas = totalReceitas.add(receitas[i]);
+            totalDespesas = totalDespesas.add(despesas[i]);
+        }
+
+        return ResumoAnualDTO.builder()
+                .usuario(idUsuario)
+                .ano(ano)
+                .receitas(totalReceitas)
+                .despesas(totalDespesas)
+                .saldo(totalReceitas.subtract(totalDespesas))
+                .meses(meses)
+                .build();
     }
 
 }
@@ -0,0 +1,58 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+/**
+ * ETags de um lançamento a partir da sua versão (@Version), para escritas condicionais com If-Match.
+ * O If-Match é conferido com a versão lida na requisição; uma escrita concorrente que passe no meio
+ * ainda é barrada pelo UPDATE ... where versao = ? e sai como 409.
+ */
+final class VersaoLancamentoEtag {
+
+    private VersaoLancamentoEtag() {
+    }
+
+    static String de(Long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    //Sem If-Match a escrita não é condicional; ETags fracos nunca atendem (comparação forte)
+    static boolean atende(String ifMatch, Long versao) {
+        if(ifMatch == null) {
+            return true;
+        }
+        String etag = de(versao);
+        for(String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if(valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Versão de um If-Match com um único ETag forte; listas e ETags fracos ficam vazios
+    static Optional<Long> versao(String ifMatch) {
+        String valor = ifMatch.trim();
+        if(valor.length() < 3 || !valor.startsWith("\"") || !valor.endsWith("\"")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.valueOf(valor.substring(1, valor.length() - 1)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    static ResponseEntity precondicaoFalhou() {
+        return new ResponseEntity("O lançamento foi alterado desde a última leitura.", HttpStatus.PRECONDITION_FAILED);
+    }
+
+    static ResponseEntity conflito() {
+        return new ResponseEntity("O lançamento foi alterado por outra operação. Recarregue e tente novamente.", HttpStatus.CONFLICT);
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ETags das consultas derivadas dos lançamentos de um usuário, a partir da versão do ledger.
+ * A versão deve ser lida antes da consulta: se uma escrita terminar no meio, a resposta sai com
+ * a versão anterior e o próximo GET condicional apenas busca os dados de novo.
+ */
+final class VersaoLedgerEtag {
+
+    //O navegador pode guardar a resposta, mas revalida a cada uso; proxies compartilhados não guardam
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private VersaoLedgerEtag() {
+    }
+
+    static String de(Long idUsuario, long versao) {
+        return "\"" + idUsuario + "-" + versao + "\"";
+    }
+
+    //Valores convertidos mudam com a cotação mesmo sem escrita no ledger
+    static String de(Long idUsuario, long versao, Map<String, BigDecimal> cotacoes) {
+        StringBuilder etag = new StringBuilder("\"").append(idUsuario).append("-").append(versao);
+        cotacoes.forEach((moeda, cotacao) -> etag.append("-").append(moeda).append(cotacao.toPlainString()));
+        return etag.append("\"").toString();
+    }
+
+    static Optional<ResponseEntity> naoModificado(WebRequest request, String etag) {
+        if(request.checkNotModified(etag)) {
+            return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_CONTROL).build());
+        }
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL por endpoint desde a subida (ou o último DELETE), em /actuator/sql.
+ */
+@Endpoint(id = "sql")
+public class DiagnosticoSqlEndpoint {
+
+    private final Map<String, Acumulado> porEndpoint = new ConcurrentHashMap<>();
+
+    void registrar(String endpoint, PerfilSql perfil, boolean excedeu) {
+        porEndpoint.computeIfAbsent(endpoint, chave -> new Acumulado()).somar(perfil, excedeu);
+    }
+
+    @ReadOperation
+    public Map<String, ResumoSql> diagnostico() {
+        Map<String, ResumoSql> resumo = new LinkedHashMap<>();
+        porEndpoint.entrySet().stream()
+                .map(entrada -> Map.entry(entrada.getKey(), entrada.getValue().resumo()))
+                .sorted(Comparator.comparingLong((Map.Entry<String, ResumoSql> entrada) -> entrada.getValue().tempoJdbcMs())
+                        .reversed())
+                .forEach(entrada -> resumo.put(entrada.getKey(), entrada.getValue()));
+        return resumo;
+    }
+
+    @DeleteOperation
+    public void zerar() {
+        porEndpoint.clear();
+    }
+
+    public record ResumoSql(long requisicoes, long comandos, double mediaComandos, long maximoComandos,
+                            long tempoJdbcMs, long maximoTempoJdbcMs, long linhas, long maximoLinhas,
+                            long acimaDosLimites) {
+    }
+
+    private static class Acumulado {
+
+        private final LongAdder requisicoes = new LongAdder();
+        private final LongAdder comandos = new LongAdder();
+        private final LongAdder nanosJdbc = new LongAdder();
+        private final LongAdder linhas = new LongAdder();
+        private final LongAdder acimaDosLimites = new LongAdder();
+        private final AtomicLong maximoComandos = new AtomicLong();
+        private final AtomicLong maximoNanosJdbc = new AtomicLong();
+        private final AtomicLong maximoLinhas = new AtomicLong();
+
+        void somar(PerfilSql perfil, boolean excedeu) {
+            requisicoes.increment();
+            comandos.add(perfil.getComandos());
+            nanosJdbc.add(perfil.getNanosJdbc());
+            linhas.add(perfil.getLinhas());
+            if(excedeu) {
+                acimaDosLimites.increment();
+            }
+            maximoComandos.accumulateAndGet(perfil.getComandos(), Math::max);
+            maximoNanosJdbc.accumulateAndGet(perfil.getNanosJdbc(), Math::max);
+            maximoLinhas.accumulateAndGet(perfil.getLinhas(), Math::max);
+        }
+
+        ResumoSql resumo() {
+            long total = requisicoes.sum();
+            long totalComandos = comandos.sum();
+            return new ResumoSql(total, totalComandos, total == 0 ? 0 : (double) totalComandos / total,
+                    maximoComandos.get(), TimeUnit.NANOSECONDS.toMillis(nanosJdbc.sum()),
+                    TimeUnit.NANOSECONDS.toMillis(maximoNanosJdbc.get()), linhas.sum(), maximoLinhas.get(),
+                    acimaDosLimites.sum());
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.bcipriano.minhasfinancas.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * O ConnectionFactory não é exposto como bean: com um no contexto o Boot deixa de configurar o DataSource do JPA.
+ */
+@Configuration
+public class LeituraReativaConfig implements DisposableBean {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient databaseClientLeitura(
+            @Value("${minhasfinancas.leitura-reativa.url}") String url,
+            @Value("${minhasfinancas.leitura-reativa.username}") String username,
+            @Value("${minhasfinancas.leitura-reativa.password}") String password,
+            @Value("${minhasfinancas.leitura-reativa.pool-maximo:10}") int poolMaximo) {
+        ConnectionFactoryOptions opcoes = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opcoes))
+                .initialSize(0)
+                .maxSize(poolMaximo)
+                .name("leitura-reativa")
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        if(pool != null) {
+            pool.dispose();
+        }
+    }
+
+}
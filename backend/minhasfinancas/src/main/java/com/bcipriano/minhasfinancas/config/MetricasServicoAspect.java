@@ -0,0 +1,118 @@
+package com.bcipriano.minhasfinancas.config;
+
+import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Tempo de cada método dos serviços (minhasfinancas.servico) e recusas de negócio e de autenticação (minhasfinancas.erros).
+ */
+@Aspect
+@Component
+public class MetricasServicoAspect {
+
+    public static final String TEMPO_SERVICO = "minhasfinancas.servico";
+
+    public static final String ERROS = "minhasfinancas.erros";
+
+    private static final ThreadLocal<int[]> PROFUNDIDADE = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static final Pattern NUMEROS = Pattern.compile("\\d+");
+
+    private MeterRegistry meterRegistry;
+
+    public MetricasServicoAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.bcipriano.minhasfinancas.service.impl..*) && @within(org.springframework.stereotype.Service)")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        String classe = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String metodo = joinPoint.getSignature().getName();
+        int[] profundidade = PROFUNDIDADE.get();
+        profundidade[0]++;
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        try {
+            Object resultado = joinPoint.proceed();
+            if(resultado instanceof Mono<?> mono) {
+                AtomicReference<Throwable> erro = new AtomicReference<>();
+                return mono.doOnError(e -> contar(erro, e))
+                        .doFinally(sinal -> parar(amostra, classe, metodo, erro.get()));
+            }
+            if(resultado instanceof Flux<?> flux) {
+                AtomicReference<Throwable> erro = new AtomicReference<>();
+                return flux.doOnError(e -> contar(erro, e))
+                        .doFinally(sinal -> parar(amostra, classe, metodo, erro.get()));
+            }
+            if(resultado instanceof CompletionStage<?> estagio) {
+                estagio.whenComplete((valor, e) -> {
+                    Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if(causa != null) {
+                        contar(causa);
+                    }
+                    parar(amostra, classe, metodo, causa);
+                });
+                return resultado;
+            }
+            parar(amostra, classe, metodo, null);
+            return resultado;
+        } catch (Throwable e) {
+            parar(amostra, classe, metodo, e);
+            if(profundidade[0] == 1) {
+                contar(e);
+            }
+            throw e;
+        } finally {
+            profundidade[0]--;
+        }
+    }
+
+    private void parar(Timer.Sample amostra, String classe, String metodo, Throwable erro) {
+        amostra.stop(Timer.builder(TEMPO_SERVICO)
+                .description("Tempo dos métodos dos serviços")
+                .tag("class", classe)
+                .tag("method", metodo)
+                .tag("exception", erro == null ? "none" : erro.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private void contar(AtomicReference<Throwable> erro, Throwable e) {
+        erro.set(e);
+        contar(e);
+    }
+
+    private void contar(Throwable e) {
+        if(!(e instanceof RegraNegocioException) && !(e instanceof ErroAutenticacao)) {
+            return;
+        }
+        Counter.builder(ERROS)
+                .description("Recusas de regra de negócio e de autenticação")
+                .tag("tipo", e.getClass().getSimpleName())
+                .tag("motivo", motivo(e.getMessage()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    static String motivo(String mensagem) {
+        if(mensagem == null || mensagem.isBlank()) {
+            return "desconhecido";
+        }
+        int separador = mensagem.indexOf(':');
+        String fixa = separador < 0 ? mensagem : mensagem.substring(0, separador);
+        return NUMEROS.matcher(fixa.trim()).replaceAll("#");
+    }
+
+}
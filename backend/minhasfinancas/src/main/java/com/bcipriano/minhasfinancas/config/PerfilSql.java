@@ -0,0 +1,87 @@
+package com.bcipriano.minhasfinancas.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Comandos SQL executados pela thread entre iniciar() e encerrar().
+ */
+public class PerfilSql {
+
+    public static final String ATRIBUTO = PerfilSql.class.getName();
+
+    static final int MAXIMO_COMANDOS_DISTINTOS = 100;
+
+    private static final ThreadLocal<PerfilSql> ATUAL = new ThreadLocal<>();
+
+    private final PerfilSql anterior;
+
+    private final Map<String, ComandoSql> porComando = new LinkedHashMap<>();
+
+    private int comandos;
+
+    private long nanosJdbc;
+
+    private long linhas;
+
+    private PerfilSql(PerfilSql anterior) {
+        this.anterior = anterior;
+    }
+
+    public static PerfilSql iniciar() {
+        PerfilSql perfil = new PerfilSql(ATUAL.get());
+        ATUAL.set(perfil);
+        return perfil;
+    }
+
+    public static void encerrar(PerfilSql perfil) {
+        if(perfil.anterior != null) {
+            ATUAL.set(perfil.anterior);
+        } else {
+            ATUAL.remove();
+        }
+    }
+
+    static PerfilSql atual() {
+        return ATUAL.get();
+    }
+
+    void registrarComando(String sql, long nanos) {
+        comandos++;
+        nanosJdbc += nanos;
+        ComandoSql comando = porComando.get(sql);
+        if(comando != null) {
+            porComando.put(sql, new ComandoSql(sql, comando.execucoes() + 1, comando.nanos() + nanos));
+        } else if(porComando.size() < MAXIMO_COMANDOS_DISTINTOS) {
+            porComando.put(sql, new ComandoSql(sql, 1, nanos));
+        }
+    }
+
+    void registrarLeitura(long nanos, boolean leuLinha) {
+        nanosJdbc += nanos;
+        if(leuLinha) {
+            linhas++;
+        }
+    }
+
+    public int getComandos() {
+        return comandos;
+    }
+
+    public long getNanosJdbc() {
+        return nanosJdbc;
+    }
+
+    public long getLinhas() {
+        return linhas;
+    }
+
+    public Map<String, ComandoSql> getComandosExecutados() {
+        return Collections.unmodifiableMap(porComando);
+    }
+
+    public record ComandoSql(String sql, int execucoes, long nanos) {
+    }
+
+}
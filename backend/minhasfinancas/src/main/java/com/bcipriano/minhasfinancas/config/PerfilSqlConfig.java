@@ -0,0 +1,52 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Perfil de SQL por requisição, com minhasfinancas.sql.perfil.habilitado=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minhasfinancas.sql.perfil.habilitado", havingValue = "true")
+public class PerfilSqlConfig {
+
+    @Bean
+    public static BeanPostProcessor perfilarDataSource(
+            @Value("${minhasfinancas.sql.consulta-lenta-ms:100}") long consultaLentaMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if(bean instanceof DataSource dataSource && !(bean instanceof PerfilSqlDataSource)) {
+                    return new PerfilSqlDataSource(dataSource, consultaLentaMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public DiagnosticoSqlEndpoint diagnosticoSqlEndpoint() {
+        return new DiagnosticoSqlEndpoint();
+    }
+
+    @Bean
+    public FilterRegistrationBean<PerfilSqlFilter> perfilSqlFilter(
+            DiagnosticoSqlEndpoint diagnosticoSqlEndpoint,
+            @Value("${minhasfinancas.sql.limite-comandos:20}") int limiteComandos,
+            @Value("${minhasfinancas.sql.limite-tempo-ms:200}") long limiteTempoMs,
+            @Value("${minhasfinancas.sql.limite-linhas:5000}") long limiteLinhas) {
+        FilterRegistrationBean<PerfilSqlFilter> registro = new FilterRegistrationBean<>(
+                new PerfilSqlFilter(diagnosticoSqlEndpoint, limiteComandos, limiteTempoMs, limiteLinhas));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registro;
+    }
+
+}
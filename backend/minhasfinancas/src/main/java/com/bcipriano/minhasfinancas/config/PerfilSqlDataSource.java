@@ -0,0 +1,119 @@
+package com.bcipriano.minhasfinancas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede cada comando executado pelas conexões no PerfilSql da thread. Os valores dos parâmetros não são registrados.
+ */
+@Slf4j
+public class PerfilSqlDataSource extends DelegatingDataSource {
+
+    private final long consultaLentaNanos;
+
+    public PerfilSqlDataSource(DataSource dataSource, long consultaLentaMs) {
+        super(dataSource);
+        this.consultaLentaNanos = TimeUnit.MILLISECONDS.toNanos(consultaLentaMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return perfilar(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return perfilar(super.getConnection(username, password));
+    }
+
+    private Connection perfilar(Connection conexao) {
+        return proxy(Connection.class, conexao, (proxy, metodo, argumentos) -> {
+            Object resultado = invocar(conexao, metodo, argumentos);
+            return switch (metodo.getName()) {
+                case "prepareStatement" -> perfilar(PreparedStatement.class, (Statement) resultado, (String) argumentos[0]);
+                case "prepareCall" -> perfilar(CallableStatement.class, (Statement) resultado, (String) argumentos[0]);
+                case "createStatement" -> perfilar(Statement.class, (Statement) resultado, null);
+                default -> resultado;
+            };
+        });
+    }
+
+    private <T extends Statement> T perfilar(Class<T> tipo, Statement comando, String sqlPreparado) {
+        return proxy(tipo, comando, (proxy, metodo, argumentos) -> {
+            String nome = metodo.getName();
+            if(nome.startsWith("execute")) {
+                String sql = sqlPreparado != null ? sqlPreparado
+                        : argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String texto ? texto
+                        : "(lote)";
+                long inicio = System.nanoTime();
+                Object resultado;
+                try {
+                    resultado = invocar(comando, metodo, argumentos);
+                } finally {
+                    registrar(sql, System.nanoTime() - inicio);
+                }
+                return resultado instanceof ResultSet linhas ? perfilar(linhas) : resultado;
+            }
+            Object resultado = invocar(comando, metodo, argumentos);
+            return nome.equals("getResultSet") && resultado instanceof ResultSet linhas ? perfilar(linhas) : resultado;
+        });
+    }
+
+    private ResultSet perfilar(ResultSet linhas) {
+        return proxy(ResultSet.class, linhas, (proxy, metodo, argumentos) -> {
+            if(!metodo.getName().equals("next")) {
+                return invocar(linhas, metodo, argumentos);
+            }
+            long inicio = System.nanoTime();
+            boolean leuLinha = (Boolean) invocar(linhas, metodo, argumentos);
+            PerfilSql perfil = PerfilSql.atual();
+            if(perfil != null) {
+                perfil.registrarLeitura(System.nanoTime() - inicio, leuLinha);
+            }
+            return leuLinha;
+        });
+    }
+
+    private void registrar(String sql, long nanos) {
+        PerfilSql perfil = PerfilSql.atual();
+        if(perfil != null) {
+            perfil.registrarComando(sql, nanos);
+        }
+        if(nanos >= consultaLentaNanos) {
+            log.warn("Comando SQL lento ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        }
+    }
+
+    //Igualdade pela identidade do proxy: o Hibernate guarda os comandos abertos em mapas para fechá-los depois
+    private static <T> T proxy(Class<T> tipo, Object alvo, InvocationHandler handler) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                    case "equals" -> proxy == argumentos[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> alvo.toString();
+                    default -> handler.invoke(proxy, metodo, argumentos);
+                }));
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.bcipriano.minhasfinancas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abre um PerfilSql por requisição e soma o resultado no DiagnosticoSqlEndpoint.
+ */
+@Slf4j
+public class PerfilSqlFilter extends OncePerRequestFilter {
+
+    private final DiagnosticoSqlEndpoint diagnostico;
+
+    private final int limiteComandos;
+
+    private final long limiteTempoNanos;
+
+    private final long limiteLinhas;
+
+    public PerfilSqlFilter(DiagnosticoSqlEndpoint diagnostico, int limiteComandos, long limiteTempoMs, long limiteLinhas) {
+        this.diagnostico = diagnostico;
+        this.limiteComandos = limiteComandos;
+        this.limiteTempoNanos = TimeUnit.MILLISECONDS.toNanos(limiteTempoMs);
+        this.limiteLinhas = limiteLinhas;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PerfilSql perfil = PerfilSql.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PerfilSql.encerrar(perfil);
+            request.setAttribute(PerfilSql.ATRIBUTO, perfil);
+            boolean excedeu = perfil.getComandos() > limiteComandos
+                    || perfil.getNanosJdbc() > limiteTempoNanos
+                    || perfil.getLinhas() > limiteLinhas;
+            diagnostico.registrar(request.getMethod() + " " + rota(request), perfil, excedeu);
+            if(excedeu) {
+                log.warn("{} {}: {} comandos SQL, {} ms no JDBC, {} linhas{}", request.getMethod(),
+                        request.getRequestURI(), perfil.getComandos(),
+                        TimeUnit.NANOSECONDS.toMillis(perfil.getNanosJdbc()), perfil.getLinhas(), comandos(perfil));
+            }
+        }
+    }
+
+    private static String rota(HttpServletRequest request) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return padrao != null ? padrao.toString() : "(sem rota)";
+    }
+
+    private static String comandos(PerfilSql perfil) {
+        StringBuilder texto = new StringBuilder();
+        perfil.getComandosExecutados().values().forEach(comando -> texto.append("\n  ")
+                .append(comando.execucoes()).append("x ")
+                .append(TimeUnit.NANOSECONDS.toMillis(comando.nanos())).append(" ms: ")
+                .append(comando.sql()));
+        return texto.toString();
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Respostas em streaming (exportação) rodam no executor da aplicação, quando ele existe.
+ */
+@Configuration
+public class RespostaAssincronaConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<AsyncTaskExecutor> applicationTaskExecutor;
+
+    private final Duration timeout;
+
+    public RespostaAssincronaConfig(@Qualifier("applicationTaskExecutor") ObjectProvider<AsyncTaskExecutor> applicationTaskExecutor,
+                                    @Value("${minhasfinancas.async.timeout:10m}") Duration timeout) {
+        this.applicationTaskExecutor = applicationTaskExecutor;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        applicationTaskExecutor.ifAvailable(configurer::setTaskExecutor);
+        configurer.setDefaultTimeout(timeout.toMillis());
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Ano cuja partição de lançamentos foi desanexada para o esquema financas_arquivo.
+ * Os resumos mensais do ano continuam materializados e passam a ser a fonte dos totais dele.
+ */
+@Entity
+@Table(name = "ano_arquivado", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnoArquivado {
+
+    @Id
+    @Column(name = "ano")
+    private Integer ano;
+
+    @Column(name = "data_arquivamento")
+    private Instant dataArquivamento;
+
+}
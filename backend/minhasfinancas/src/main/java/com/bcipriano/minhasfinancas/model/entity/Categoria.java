@@ -0,0 +1,33 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Categoria definida pelo usuário (alimentação, moradia...). Cada lançamento pertence a no máximo uma,
+ * e os totais por categoria vêm do agregado TotalCategoria.
+ * O nome é único por usuário sem diferenciar maiúsculas (índice uk_categoria_usuario_nome, em db/migration).
+ */
+@Entity
+@Table(name = "categoria", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Categoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "nome", length = 50)
+    private String nome;
+
+}
@@ -0,0 +1,28 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última versão do ledger de cada usuário já refletida nas projeções (saldo, resumos...).
+ * Atualizada na mesma transação que aplica os eventos, o que torna a reaplicação idempotente.
+ */
+@Entity
+@Table(name = "checkpoint_ledger", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckpointLedger {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "versao")
+    private Long versao;
+
+}
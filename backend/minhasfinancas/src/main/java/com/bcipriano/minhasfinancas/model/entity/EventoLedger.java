@@ -0,0 +1,41 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Alteração de lançamentos de um usuário, gravada na mesma transação da escrita (outbox).
+ * O id é o offset global do ledger; a versão é a posição no ledger do usuário, sem lacunas.
+ */
+@Entity
+@Table(name = "evento_ledger", schema = "financas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_evento_ledger", columnNames = {"id_usuario", "versao"}))
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "versao")
+    private Long versao;
+
+    @Column(name = "dados", columnDefinition = "text")
+    private String dados;
+
+    @Column(name = "data_criacao")
+    private Instant dataCriacao;
+
+}
@@ -0,0 +1,35 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Usuário cujos eventos falharam ao serem aplicados: o consumidor só volta a ele depois de retomarEm.
+ */
+@Entity
+@Table(name = "falha_ledger", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FalhaLedger {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "falhas")
+    private Integer falhas;
+
+    @Column(name = "retomar_em")
+    private Instant retomarEm;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+}
@@ -6,22 +6,35 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+//No PostgreSQL a tabela é particionada por ano (db/migration), com chave primária (id, ano); o id segue único
 @Entity
-@Table(name = "lancamento", schema= "financas")
+@Table(name = "lancamento", schema= "financas", indexes = {
+        @Index(name = "idx_lancamento_usuario_ano_mes", columnList = "id_usuario, ano, mes, id"),
+        @Index(name = "idx_lancamento_usuario_categoria", columnList = "id_usuario, id_categoria, ano, mes")
+})
+//UPDATE só com as colunas alteradas: trocas de status e edições parciais não regravam a linha inteira
+@DynamicUpdate
 @Builder
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Lancamento {
 
+    //Moeda dos lançamentos gravados sem uma (e de todos os anteriores à coluna); saldo e resumos saem nela
+    public static final String MOEDA_PADRAO = "BRL";
+
+    //Sequência com alocação em blocos de 50 para o Hibernate poder agrupar os inserts em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+    @SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", schema = "financas", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -34,15 +47,26 @@ public class Lancamento {
     @Column(name = "ano")
     private Integer ano;
 
-    @ManyToOne
+    //Carregado só quando pedido (LancamentoRepository.obterComUsuario); a maioria dos caminhos usa apenas o id.
+    //Fora do toString/equals/hashCode para que eles não inicializem o proxy
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Usuario usuario;
 
     @Column(name = "valor")
     private BigDecimal valor;
 
+    @Column(name = "moeda", length = 3, nullable = false)
+    @Builder.Default
+    private String moeda = MOEDA_PADRAO;
+
+    //Só o id: as leituras e o agregado por categoria não precisam da entidade Categoria
+    @Column(name = "id_categoria")
+    private Long idCategoria;
+
     @Column(name = "data_cadastro")
-    @Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
     private LocalDate dataCadastro;
 
     @Column(name= "tipo")
@@ -53,4 +77,9 @@ public class Lancamento {
     @Enumerated(value = EnumType.STRING)
     private StatusLancamento status;
 
+    //Controle otimista: o UPDATE confere a versão lida, e uma edição concorrente falha em vez de ser sobrescrita
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
 }
@@ -0,0 +1,73 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.Periodicidade;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Modelo de lançamento que se repete (aluguel, salário, assinaturas). As ocorrências vencidas viram lançamentos
+ * pendentes pelo RecorrenciaService; proximaOcorrencia fica nula quando a data de fim é ultrapassada.
+ */
+@Entity
+@Table(name = "recorrencia", schema = "financas", indexes = {
+        @Index(name = "idx_recorrencia_usuario", columnList = "id_usuario"),
+        @Index(name = "idx_recorrencia_proxima_ocorrencia", columnList = "proxima_ocorrencia, id")
+})
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recorrencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "descricao")
+    private String descricao;
+
+    @Column(name = "valor")
+    private BigDecimal valor;
+
+    @Column(name = "moeda", length = 3, nullable = false)
+    @Builder.Default
+    private String moeda = Lancamento.MOEDA_PADRAO;
+
+    @Column(name = "tipo")
+    @Enumerated(value = EnumType.STRING)
+    private TipoLancamento tipo;
+
+    @Column(name = "id_categoria")
+    private Long idCategoria;
+
+    @Column(name = "periodicidade")
+    @Enumerated(value = EnumType.STRING)
+    private Periodicidade periodicidade;
+
+    @Column(name = "data_inicio")
+    private LocalDate dataInicio;
+
+    //Última data possível de uma ocorrência; sem ela, a recorrência não termina
+    @Column(name = "data_fim")
+    private LocalDate dataFim;
+
+    //Ocorrências já geradas: a próxima é a de número ocorrencias a partir do início
+    @Column(name = "ocorrencias", nullable = false)
+    @Builder.Default
+    private Integer ocorrencias = 0;
+
+    @Column(name = "proxima_ocorrencia")
+    private LocalDate proximaOcorrencia;
+
+}
@@ -0,0 +1,33 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Partição da fila de recorrências (id_usuario módulo o número de partições) e a instância que a reservou.
+ * A reserva vale até bloqueadoAte; cada lote gerado a renova, e uma reserva vencida pode ser tomada por outra.
+ */
+@Entity
+@Table(name = "reserva_recorrencia", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaRecorrencia {
+
+    @Id
+    @Column(name = "particao")
+    private Integer particao;
+
+    @Column(name = "responsavel", length = 100)
+    private String responsavel;
+
+    @Column(name = "bloqueado_ate")
+    private Instant bloqueadoAte;
+
+}
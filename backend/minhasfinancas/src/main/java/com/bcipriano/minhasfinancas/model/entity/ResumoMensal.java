@@ -0,0 +1,58 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totais de lançamentos agregados por (usuario, ano, mes, tipo, status, moeda).
+ * Mantido incrementalmente pelas escritas de lançamentos.
+ */
+@Entity
+@Table(name = "resumo_mensal", schema = "financas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumo_mensal",
+                columnNames = {"id_usuario", "ano", "mes", "tipo", "status", "moeda"}))
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "ano")
+    private Integer ano;
+
+    @Column(name = "mes")
+    private Integer mes;
+
+    @Column(name = "tipo")
+    @Enumerated(value = EnumType.STRING)
+    private TipoLancamento tipo;
+
+    @Column(name = "status")
+    @Enumerated(value = EnumType.STRING)
+    private StatusLancamento status;
+
+    @Column(name = "moeda", length = 3)
+    private String moeda;
+
+    @Column(name = "total")
+    private BigDecimal total;
+
+    @Column(name = "quantidade")
+    private Long quantidade;
+
+}
@@ -0,0 +1,54 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Saldo materializado por usuário e moeda. Mantido incrementalmente pelas escritas de lançamentos;
+ * a conversão para a moeda padrão acontece na leitura, sobre uma linha por moeda.
+ */
+@Entity
+@Table(name = "saldo_usuario", schema = "financas")
+@IdClass(SaldoUsuario.Chave.class)
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoUsuario {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Id
+    @Column(name = "moeda", length = 3)
+    private String moeda;
+
+    @Column(name = "total_receitas")
+    private BigDecimal totalReceitas;
+
+    @Column(name = "total_despesas")
+    private BigDecimal totalDespesas;
+
+    public BigDecimal getSaldo() {
+        return totalReceitas.subtract(totalDespesas);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+
+        private Long idUsuario;
+
+        private String moeda;
+
+    }
+
+}
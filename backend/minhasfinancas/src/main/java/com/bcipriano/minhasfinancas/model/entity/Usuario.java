@@ -29,4 +29,8 @@ public class Usuario {
     @JsonIgnore
     private String senha;
 
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
 }
@@ -0,0 +1,28 @@
+package com.bcipriano.minhasfinancas.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Versão dos lançamentos de cada usuário. Incrementada a cada escrita, na mesma transação,
+ * e usada como ETag das consultas de saldo e de lançamentos.
+ */
+@Entity
+@Table(name = "versao_ledger", schema = "financas")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersaoLedger {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "versao")
+    private Long versao;
+
+}
@@ -0,0 +1,13 @@
+package com.bcipriano.minhasfinancas.model.entity.enums;
+
+import java.time.LocalDate;
+
+public enum Periodicidade {
+    MENSAL,
+    ANUAL;
+
+    //Sempre a partir do início: uma recorrência no dia 31 cai no último dia dos meses curtos e volta ao 31 depois
+    public LocalDate ocorrencia(LocalDate inicio, long numero) {
+        return this == MENSAL ? inicio.plusMonths(numero) : inicio.plusYears(numero);
+    }
+}
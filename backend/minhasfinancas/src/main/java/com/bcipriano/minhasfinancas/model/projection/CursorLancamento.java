@@ -0,0 +1,37 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posição de um lançamento na ordenação (ano, mes, id) usada pela paginação por chave.
+ * Trafega na API como um token opaco.
+ */
+public record CursorLancamento(Integer ano, Integer mes, Long id) {
+
+    public static CursorLancamento de(Lancamento lancamento) {
+        return new CursorLancamento(lancamento.getAno(), lancamento.getMes(), lancamento.getId());
+    }
+
+    public static CursorLancamento de(LancamentoListagem lancamento) {
+        return new CursorLancamento(lancamento.ano(), lancamento.mes(), lancamento.id());
+    }
+
+    public String toToken() {
+        String valor = ano + ":" + mes + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorLancamento deToken(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":");
+            return new CursorLancamento(Integer.valueOf(partes[0]), Integer.valueOf(partes[1]), Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new RegraNegocioException("Cursor de paginação inválido.");
+        }
+    }
+}
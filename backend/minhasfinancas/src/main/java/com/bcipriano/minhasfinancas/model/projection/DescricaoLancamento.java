@@ -0,0 +1,4 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+public record DescricaoLancamento(Long id, String descricao) {
+}
@@ -0,0 +1,44 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Linha de lançamento sem o grafo de entidades: o usuário é referenciado apenas pelo id.
+ * Por não ser uma entidade, não é gerenciada pelo contexto de persistência.
+ */
+@JsonPropertyOrder({"id", "usuario", "descricao", "mes", "ano", "valor", "moeda", "tipo", "status", "dataCadastro", "categoria"})
+public record LancamentoListagem(
+        Long id,
+        Long usuario,
+        String descricao,
+        Integer mes,
+        Integer ano,
+        BigDecimal valor,
+        String moeda,
+        TipoLancamento tipo,
+        StatusLancamento status,
+        LocalDate dataCadastro,
+        Long categoria) {
+
+    public static LancamentoListagem de(Lancamento lancamento) {
+        Long idUsuario = lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null;
+        return new LancamentoListagem(
+                lancamento.getId(),
+                idUsuario,
+                lancamento.getDescricao(),
+                lancamento.getMes(),
+                lancamento.getAno(),
+                lancamento.getValor(),
+                lancamento.getMoeda(),
+                lancamento.getTipo(),
+                lancamento.getStatus(),
+                lancamento.getDataCadastro(),
+                lancamento.getIdCategoria());
+    }
+}
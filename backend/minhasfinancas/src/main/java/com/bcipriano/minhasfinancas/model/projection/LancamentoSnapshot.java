@@ -0,0 +1,48 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+
+import java.math.BigDecimal;
+
+/**
+ * Cópia imutável dos campos de um lançamento que alimentam as visões derivadas
+ * (saldo, resumos...). Usada para comparar o estado anterior com o novo.
+ */
+public record LancamentoSnapshot(
+        Long id,
+        Long idUsuario,
+        String descricao,
+        Integer mes,
+        Integer ano,
+        BigDecimal valor,
+        String moeda,
+        TipoLancamento tipo,
+        StatusLancamento status,
+        Long idCategoria) {
+
+    public static LancamentoSnapshot de(Lancamento lancamento) {
+        Long idUsuario = lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null;
+        return new LancamentoSnapshot(
+                lancamento.getId(),
+                idUsuario,
+                lancamento.getDescricao(),
+                lancamento.getMes(),
+                lancamento.getAno(),
+                lancamento.getValor(),
+                lancamento.getMoeda(),
+                lancamento.getTipo(),
+                lancamento.getStatus(),
+                lancamento.getIdCategoria());
+    }
+
+    //Eventos gravados antes das colunas moeda e id_categoria chegam sem elas
+    public String moedaOuPadrao() {
+        return moeda != null ? moeda : Lancamento.MOEDA_PADRAO;
+    }
+
+    public LancamentoSnapshot comStatus(StatusLancamento novoStatus) {
+        return new LancamentoSnapshot(id, idUsuario, descricao, mes, ano, valor, moeda, tipo, novoStatus, idCategoria);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+
+import java.math.BigDecimal;
+
+public record TotalMensal(
+        Integer ano,
+        Integer mes,
+        TipoLancamento tipo,
+        StatusLancamento status,
+        String moeda,
+        BigDecimal total,
+        Long quantidade) {
+}
@@ -0,0 +1,17 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+
+import java.math.BigDecimal;
+
+public record TotalMensalCategoria(
+        Integer ano,
+        Integer mes,
+        Long idCategoria,
+        TipoLancamento tipo,
+        StatusLancamento status,
+        String moeda,
+        BigDecimal total,
+        Long quantidade) {
+}
@@ -0,0 +1,8 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+
+import java.math.BigDecimal;
+
+public record TotalPorTipo(TipoLancamento tipo, String moeda, BigDecimal total) {
+}
@@ -0,0 +1,17 @@
+package com.bcipriano.minhasfinancas.model.projection;
+
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+
+/**
+ * Cópia imutável do usuário, sem a senha. É o que fica no cache de usuarios.
+ */
+public record UsuarioListagem(
+        Long id,
+        String nome,
+        String email,
+        Long versao) {
+
+    public static UsuarioListagem de(Usuario usuario) {
+        return new UsuarioListagem(usuario.getId(), usuario.getNome(), usuario.getEmail(), usuario.getVersao());
+    }
+}
@@ -0,0 +1,29 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.AnoArquivado;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Set;
+
+public interface AnoArquivadoRepository extends JpaRepository<AnoArquivado, Integer> {
+
+    String CACHE_ANOS = "anosArquivados";
+
+    //Conferido em cada escrita de lançamento; o arquivamento nesta instância invalida o cache
+    @Cacheable(cacheNames = CACHE_ANOS)
+    @Query("select a.ano from AnoArquivado a")
+    Set<Integer> obterAnos();
+
+    //Funções criadas pelas migrações (db/migration), somente no PostgreSQL; devolvem false quando nada muda
+    @Query(value = "select financas.criar_particao_lancamento(:ano)", nativeQuery = true)
+    boolean criarParticao(@Param("ano") Integer ano);
+
+    @CacheEvict(cacheNames = CACHE_ANOS, allEntries = true)
+    @Query(value = "select financas.arquivar_ano_lancamento(:ano)", nativeQuery = true)
+    boolean arquivar(@Param("ano") Integer ano);
+
+}
@@ -0,0 +1,16 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+
+    List<Categoria> findByIdUsuarioOrderByNome(Long idUsuario);
+
+    boolean existsByIdAndIdUsuario(Long id, Long idUsuario);
+
+    boolean existsByIdUsuarioAndNomeIgnoreCase(Long idUsuario, String nome);
+
+}
@@ -0,0 +1,21 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.CheckpointLedger;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CheckpointLedgerRepository extends JpaRepository<CheckpointLedger, Long> {
+
+    @Query("select c.versao from CheckpointLedger c where c.idUsuario = :idUsuario")
+    Optional<Long> obterVersao(@Param("idUsuario") Long idUsuario);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from CheckpointLedger c where c.idUsuario = :idUsuario")
+    Optional<CheckpointLedger> obterComBloqueio(@Param("idUsuario") Long idUsuario);
+
+}
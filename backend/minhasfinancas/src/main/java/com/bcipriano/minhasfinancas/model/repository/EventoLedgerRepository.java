@@ -0,0 +1,61 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.EventoLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EventoLedgerRepository extends JpaRepository<EventoLedger, Long> {
+
+    @Modifying
+    @Query(value = "insert into financas.evento_ledger (id_usuario, versao, dados, data_criacao)"
+            + " select v.id_usuario, v.versao, :dados, :dataCriacao from financas.versao_ledger v"
+            + " where v.id_usuario = :idUsuario", nativeQuery = true)
+    int registrar(@Param("idUsuario") Long idUsuario,
+                  @Param("dados") String dados,
+                  @Param("dataCriacao") Instant dataCriacao);
+
+    //Até porUsuario eventos de cada usuário, para que um usuário atrasado não ocupe o lote dos demais
+    @Query(value = "select p.id, p.id_usuario, p.versao, p.dados, p.data_criacao from ("
+            + " select e.*, row_number() over (partition by e.id_usuario order by e.versao) as ordem"
+            + " from financas.evento_ledger e"
+            + " left join financas.checkpoint_ledger c on c.id_usuario = e.id_usuario"
+            + " where e.versao > coalesce(c.versao, 0) and e.id_usuario in ("
+            + " select e2.id_usuario from financas.evento_ledger e2"
+            + " left join financas.checkpoint_ledger c2 on c2.id_usuario = e2.id_usuario"
+            + " left join financas.falha_ledger f on f.id_usuario = e2.id_usuario"
+            + " where e2.versao > coalesce(c2.versao, 0) and (f.retomar_em is null or f.retomar_em <= :agora)"
+            + " group by e2.id_usuario order by min(e2.id) limit :usuarios)"
+            + ") p where p.ordem <= :porUsuario order by p.id", nativeQuery = true)
+    List<EventoLedger> obterPendentes(@Param("usuarios") int usuarios,
+                                      @Param("porUsuario") int porUsuario,
+                                      @Param("agora") Instant agora);
+
+    @Query(value = "select e.* from financas.evento_ledger e"
+            + " left join financas.checkpoint_ledger c on c.id_usuario = e.id_usuario"
+            + " where e.id_usuario = :idUsuario and e.versao > coalesce(c.versao, 0) order by e.versao",
+            nativeQuery = true)
+    List<EventoLedger> obterPendentes(@Param("idUsuario") Long idUsuario);
+
+    //Inclui os usuários suspensos; só desce aos eventos dos usuários com a versão à frente do checkpoint
+    @Query(value = "select count(*) from financas.versao_ledger v"
+            + " left join financas.checkpoint_ledger c on c.id_usuario = v.id_usuario"
+            + " join financas.evento_ledger e on e.id_usuario = v.id_usuario and e.versao > coalesce(c.versao, 0)"
+            + " where v.versao > coalesce(c.versao, 0)", nativeQuery = true)
+    long contarPendentes();
+
+    @Query(value = "select e.* from financas.evento_ledger e where e.id >= :offset order by e.id limit :limite",
+            nativeQuery = true)
+    List<EventoLedger> obterAPartirDe(@Param("offset") long offset, @Param("limite") int limite);
+
+    @Modifying
+    @Query(value = "delete from financas.evento_ledger e where e.data_criacao < :limite and exists"
+            + " (select 1 from financas.checkpoint_ledger c where c.id_usuario = e.id_usuario and c.versao >= e.versao)",
+            nativeQuery = true)
+    int removerAplicadosAntesDe(@Param("limite") Instant limite);
+
+}
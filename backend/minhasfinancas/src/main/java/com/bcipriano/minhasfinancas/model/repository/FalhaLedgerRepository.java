@@ -0,0 +1,20 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.FalhaLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface FalhaLedgerRepository extends JpaRepository<FalhaLedger, Long> {
+
+    @Query("select count(f) from FalhaLedger f where f.retomarEm > :agora")
+    long contarSuspensos(@Param("agora") Instant agora);
+
+    @Modifying
+    @Query("delete from FalhaLedger f where f.idUsuario = :idUsuario")
+    int remover(@Param("idUsuario") Long idUsuario);
+
+}
@@ -1,20 +1,175 @@
 package com.bcipriano.minhasfinancas.model.repository;
 
 import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.DescricaoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensal;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensalCategoria;
+import com.bcipriano.minhasfinancas.model.projection.TotalPorTipo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
 
-    @Query(value = "select sum(l.valor) from Lancamento l join l.usuario u"
-            +" where u.id = :idUsuario and l.tipo = :tipo group by u")
-    BigDecimal obterSaldoPorTipoLancamentoEUsuario(@Param("idUsuario")Long usuario, @Param("tipo") TipoLancamento tipo);
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.TotalPorTipo(l.tipo, l.moeda, sum(l.valor))"
+            + " from Lancamento l where l.usuario.id = :idUsuario group by l.tipo, l.moeda")
+    List<TotalPorTipo> obterTotaisPorTipo(@Param("idUsuario") Long idUsuario);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.TotalMensal("
+            + "l.ano, l.mes, l.tipo, l.status, l.moeda, sum(l.valor), count(l))"
+            + " from Lancamento l where l.usuario.id = :idUsuario group by l.ano, l.mes, l.tipo, l.status, l.moeda")
+    List<TotalMensal> obterTotaisMensais(@Param("idUsuario") Long idUsuario);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.TotalMensalCategoria("
+            + "l.ano, l.mes, l.idCategoria, l.tipo, l.status, l.moeda, sum(l.valor), count(l))"
+            + " from Lancamento l where l.usuario.id = :idUsuario and l.idCategoria is not null"
+            + " group by l.ano, l.mes, l.idCategoria, l.tipo, l.status, l.moeda")
+    List<TotalMensalCategoria> obterTotaisMensaisPorCategoria(@Param("idUsuario") Long idUsuario);
+
+    @Query("select distinct l.usuario.id from Lancamento l")
+    List<Long> obterIdsUsuariosComLancamentos();
+
+    @Query("select distinct l.ano from Lancamento l where l.ano < :ano order by l.ano")
+    List<Integer> obterAnosAnterioresA(@Param("ano") Integer ano);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.idCategoria)"
+            + " from Lancamento l where l.id = :id")
+    Optional<LancamentoSnapshot> obterSnapshot(@Param("id") Long id);
 
     Optional<Lancamento> findById(Long id);
 
+    @EntityGraph(attributePaths = "usuario")
+    @Query("select l from Lancamento l where l.id = :id")
+    Optional<Lancamento> obterComUsuario(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.idCategoria)"
+            + " from Lancamento l where l.id in :ids and l.status <> :status")
+    List<LancamentoSnapshot> obterSnapshotsParaStatus(@Param("ids") List<Long> ids,
+                                                      @Param("status") StatusLancamento status);
+
+    //"ano = ?" sem o "is null or", para que o plano genérico do PostgreSQL descarte as partições dos outros anos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano"
+            + " and (:mes is null or l.mes = :mes)"
+            + " and (:tipo is null or l.tipo = :tipo)"
+            + " and l.status <> :status")
+    List<LancamentoSnapshot> obterSnapshotsParaStatusDoAno(@Param("idUsuario") Long idUsuario,
+                                                           @Param("ano") Integer ano,
+                                                           @Param("mes") Integer mes,
+                                                           @Param("tipo") TipoLancamento tipo,
+                                                           @Param("status") StatusLancamento status,
+                                                           Pageable limite);
+
+    //O UPDATE em massa não passa pelo @Version: incrementa a versão para que edições pendentes deem conflito
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Lancamento l set l.status = :status, l.versao = l.versao + 1 where l.id in :ids")
+    int atualizarStatus(@Param("ids") List<Long> ids, @Param("status") StatusLancamento status);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario"
+            + " and (:mes is null or l.mes = :mes)"
+            + " and (:descricao is null or lower(l.descricao) like :descricao escape '\\')"
+            + " order by l.ano, l.mes, l.id")
+    Slice<LancamentoListagem> buscarPrimeiraPagina(@Param("idUsuario") Long idUsuario,
+                                                   @Param("mes") Integer mes,
+                                                   @Param("descricao") String descricao,
+                                                   Pageable pageable);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario"
+            + " and (:mes is null or l.mes = :mes)"
+            + " and (:descricao is null or lower(l.descricao) like :descricao escape '\\')"
+            + " and (l.ano, l.mes, l.id) > (:cursorAno, :cursorMes, :cursorId)"
+            + " order by l.ano, l.mes, l.id")
+    Slice<LancamentoListagem> buscarPagina(@Param("idUsuario") Long idUsuario,
+                                           @Param("mes") Integer mes,
+                                           @Param("descricao") String descricao,
+                                           @Param("cursorAno") Integer cursorAno,
+                                           @Param("cursorMes") Integer cursorMes,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano"
+            + " and (:mes is null or l.mes = :mes)"
+            + " and (:descricao is null or lower(l.descricao) like :descricao escape '\\')"
+            + " order by l.mes, l.id")
+    Slice<LancamentoListagem> buscarPrimeiraPaginaDoAno(@Param("idUsuario") Long idUsuario,
+                                                        @Param("ano") Integer ano,
+                                                        @Param("mes") Integer mes,
+                                                        @Param("descricao") String descricao,
+                                                        Pageable pageable);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano"
+            + " and (:mes is null or l.mes = :mes)"
+            + " and (:descricao is null or lower(l.descricao) like :descricao escape '\\')"
+            + " and (l.mes, l.id) > (:cursorMes, :cursorId)"
+            + " order by l.mes, l.id")
+    Slice<LancamentoListagem> buscarPaginaDoAno(@Param("idUsuario") Long idUsuario,
+                                                @Param("ano") Integer ano,
+                                                @Param("mes") Integer mes,
+                                                @Param("descricao") String descricao,
+                                                @Param("cursorMes") Integer cursorMes,
+                                                @Param("cursorId") Long cursorId,
+                                                Pageable pageable);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.id in :ids")
+    List<LancamentoListagem> obterListagens(@Param("ids") List<Long> ids);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.DescricaoLancamento(l.id, l.descricao)"
+            + " from Lancamento l where l.usuario.id = :idUsuario")
+    List<DescricaoLancamento> obterDescricoes(@Param("idUsuario") Long idUsuario);
+
+    //Requer as migrações V5 (pg_trgm) e V17 (unaccent e o índice GIN sobre financas.normalizar_descricao)
+    @Query(value = "select l.id from financas.lancamento l"
+            + " cross join lateral (select financas.normalizar_descricao(l.descricao) as descricao) n"
+            + " where l.id_usuario = :idUsuario"
+            + " and financas.normalizar_descricao(l.descricao) like :padrao escape '\\'"
+            + " order by case when n.descricao = :termo then 3"
+            + " when n.descricao like :prefixo escape '\\' then 2"
+            + " when n.descricao like :palavra escape '\\' then 1 else 0 end desc,"
+            + " length(n.descricao), l.id desc limit :limite", nativeQuery = true)
+    List<Long> buscarIdsPorSimilaridade(@Param("idUsuario") Long idUsuario,
+                                        @Param("termo") String termo,
+                                        @Param("padrao") String padrao,
+                                        @Param("prefixo") String prefixo,
+                                        @Param("palavra") String palavra,
+                                        @Param("limite") int limite);
+
+    //Deve ser consumida dentro de uma transação
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.LancamentoListagem("
+            + "l.id, l.usuario.id, l.descricao, l.mes, l.ano, l.valor, l.moeda, l.tipo, l.status, l.dataCadastro, l.idCategoria)"
+            + " from Lancamento l where l.usuario.id = :idUsuario order by l.ano, l.mes, l.id")
+    Stream<LancamentoListagem> streamPorUsuario(@Param("idUsuario") Long idUsuario);
+
 }
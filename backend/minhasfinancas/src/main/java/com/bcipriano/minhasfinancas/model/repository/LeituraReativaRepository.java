@@ -0,0 +1,93 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Consultas só de leitura sobre R2DBC, ao lado do LancamentoRepository (JPA) que continua com as escritas.
+ * As linhas são emitidas conforme chegam do driver e a leitura avança de acordo com a demanda do assinante.
+ */
+@Repository
+public class LeituraReativaRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public LeituraReativaRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<LancamentoListagem> listarLancamentos(Long idUsuario, Integer ano, Integer mes) {
+        StringBuilder sql = new StringBuilder("select id, id_usuario, descricao, mes, ano, valor, moeda, tipo, status,"
+                + " data_cadastro, id_categoria from financas.lancamento where id_usuario = :idUsuario");
+        if(ano != null) {
+            sql.append(" and ano = :ano");
+        }
+        if(mes != null) {
+            sql.append(" and mes = :mes");
+        }
+        sql.append(" order by ano, mes, id");
+
+        DatabaseClient.GenericExecuteSpec consulta = databaseClient.sql(sql.toString()).bind("idUsuario", idUsuario);
+        if(ano != null) {
+            consulta = consulta.bind("ano", ano);
+        }
+        if(mes != null) {
+            consulta = consulta.bind("mes", mes);
+        }
+        return consulta.map((row, metadata) -> listagem(row)).all();
+    }
+
+    public Mono<Boolean> existeUsuario(Long idUsuario) {
+        return databaseClient.sql("select id from financas.usuario where id = :idUsuario")
+                .bind("idUsuario", idUsuario)
+                .fetch()
+                .first()
+                .hasElement();
+    }
+
+    public Mono<Map<String, BigDecimal>> obterSaldoMaterializado(Long idUsuario) {
+        return databaseClient.sql("select moeda, total_receitas - total_despesas as saldo"
+                        + " from financas.saldo_usuario where id_usuario = :idUsuario")
+                .bind("idUsuario", idUsuario)
+                .map((row, metadata) -> Map.entry(row.get("moeda", String.class), row.get("saldo", BigDecimal.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    public Mono<Map<String, BigDecimal>> calcularSaldo(Long idUsuario) {
+        return databaseClient.sql("select moeda, sum(case when tipo = 'RECEITA' then valor else -valor end) as saldo"
+                        + " from financas.lancamento where id_usuario = :idUsuario group by moeda")
+                .bind("idUsuario", idUsuario)
+                .map((row, metadata) -> Map.entry(row.get("moeda", String.class), row.get("saldo", BigDecimal.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private static LancamentoListagem listagem(Row row) {
+        String tipo = row.get("tipo", String.class);
+        String status = row.get("status", String.class);
+        return new LancamentoListagem(
+                row.get("id", Long.class),
+                row.get("id_usuario", Long.class),
+                row.get("descricao", String.class),
+                row.get("mes", Integer.class),
+                row.get("ano", Integer.class),
+                row.get("valor", BigDecimal.class),
+                row.get("moeda", String.class),
+                tipo != null ? TipoLancamento.valueOf(tipo) : null,
+                status != null ? StatusLancamento.valueOf(status) : null,
+                row.get("data_cadastro", LocalDate.class),
+                row.get("id_categoria", Long.class));
+    }
+
+}
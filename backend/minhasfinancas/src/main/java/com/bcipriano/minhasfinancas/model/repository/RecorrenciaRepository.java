@@ -0,0 +1,25 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RecorrenciaRepository extends JpaRepository<Recorrencia, Long> {
+
+    List<Recorrencia> findByIdUsuarioOrderById(Long idUsuario);
+
+    //Percorre a partição pelo id: recorrências que não puderam ser geradas ficam vencidas sem repetir no lote seguinte
+    @Query(value = "select r.* from financas.recorrencia r where r.proxima_ocorrencia <= :data"
+            + " and mod(r.id_usuario, :particoes) = :particao and r.id > :aposId order by r.id limit :limite",
+            nativeQuery = true)
+    List<Recorrencia> obterVencidas(@Param("data") LocalDate data,
+                                    @Param("particoes") int particoes,
+                                    @Param("particao") int particao,
+                                    @Param("aposId") long aposId,
+                                    @Param("limite") int limite);
+
+}
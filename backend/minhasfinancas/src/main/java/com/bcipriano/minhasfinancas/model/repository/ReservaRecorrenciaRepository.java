@@ -0,0 +1,40 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.ReservaRecorrencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface ReservaRecorrenciaRepository extends JpaRepository<ReservaRecorrencia, Integer> {
+
+    @Modifying
+    @Query(value = "insert into financas.reserva_recorrencia (particao) values (:particao) on conflict do nothing",
+            nativeQuery = true)
+    int inserirSeAusente(@Param("particao") int particao);
+
+    //Só uma instância vê 1: as demais encontram a reserva em dia (ou esperam o lote que a renova terminar)
+    @Modifying
+    @Query(value = "update financas.reserva_recorrencia set responsavel = :responsavel, bloqueado_ate = :ate"
+            + " where particao = :particao and (bloqueado_ate is null or bloqueado_ate < :agora)", nativeQuery = true)
+    int reservar(@Param("particao") int particao,
+                 @Param("responsavel") String responsavel,
+                 @Param("agora") Instant agora,
+                 @Param("ate") Instant ate);
+
+    //Primeiro comando de cada lote: bloqueia a linha até o commit e devolve 0 se a reserva passou a outra instância
+    @Modifying
+    @Query(value = "update financas.reserva_recorrencia set bloqueado_ate = :ate"
+            + " where particao = :particao and responsavel = :responsavel", nativeQuery = true)
+    int renovar(@Param("particao") int particao,
+                @Param("responsavel") String responsavel,
+                @Param("ate") Instant ate);
+
+    @Modifying
+    @Query(value = "update financas.reserva_recorrencia set responsavel = null, bloqueado_ate = null"
+            + " where particao = :particao and responsavel = :responsavel", nativeQuery = true)
+    int liberar(@Param("particao") int particao, @Param("responsavel") String responsavel);
+
+}
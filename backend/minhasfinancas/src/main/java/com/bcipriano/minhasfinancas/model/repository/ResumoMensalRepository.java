@@ -0,0 +1,43 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
+import com.bcipriano.minhasfinancas.model.projection.TotalPorTipo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, Long> {
+
+    List<ResumoMensal> findByIdUsuarioAndAno(Long idUsuario, Integer ano);
+
+    //Anos arquivados não têm mais lançamentos para conferir ou reconstruir o resumo: ficam de fora
+    @Query("select r from ResumoMensal r where r.idUsuario = :idUsuario"
+            + " and r.ano not in (select a.ano from AnoArquivado a)")
+    List<ResumoMensal> obterForaDeAnosArquivados(@Param("idUsuario") Long idUsuario);
+
+    @Query("select new com.bcipriano.minhasfinancas.model.projection.TotalPorTipo(r.tipo, r.moeda, sum(r.total))"
+            + " from ResumoMensal r where r.idUsuario = :idUsuario"
+            + " and r.ano in (select a.ano from AnoArquivado a) group by r.tipo, r.moeda")
+    List<TotalPorTipo> obterTotaisArquivadosPorTipo(@Param("idUsuario") Long idUsuario);
+
+    //Consulta nomeada em META-INF/somas-*.xml: cria a chave ou soma a variação sobre a existente
+    @Modifying
+    int somar(@Param("idUsuario") Long idUsuario,
+              @Param("ano") Integer ano,
+              @Param("mes") Integer mes,
+              @Param("tipo") String tipo,
+              @Param("status") String status,
+              @Param("moeda") String moeda,
+              @Param("valor") BigDecimal valor,
+              @Param("quantidade") long quantidade);
+
+    @Modifying
+    @Query("delete from ResumoMensal r where r.idUsuario = :idUsuario"
+            + " and r.ano not in (select a.ano from AnoArquivado a)")
+    void removerForaDeAnosArquivados(@Param("idUsuario") Long idUsuario);
+
+}
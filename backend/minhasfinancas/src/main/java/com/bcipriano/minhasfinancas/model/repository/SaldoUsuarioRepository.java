@@ -0,0 +1,28 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.SaldoUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, SaldoUsuario.Chave> {
+
+    List<SaldoUsuario> findByIdUsuario(Long idUsuario);
+
+    //Limpa o contexto: os saldos lidos antes na transação seriam atualizados, e não inseridos, no saveAll seguinte
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from SaldoUsuario s where s.idUsuario = :idUsuario")
+    void removerPorUsuario(@Param("idUsuario") Long idUsuario);
+
+    //Consulta nomeada em META-INF/somas-*.xml: cria o saldo ou soma a variação sobre o existente
+    @Modifying
+    int somar(@Param("idUsuario") Long idUsuario,
+              @Param("moeda") String moeda,
+              @Param("receitas") BigDecimal receitas,
+              @Param("despesas") BigDecimal despesas);
+
+}
@@ -0,0 +1,41 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface TotalCategoriaRepository extends JpaRepository<TotalCategoria, Long> {
+
+    @Query("select t from TotalCategoria t where t.idUsuario = :idUsuario and t.ano = :ano"
+            + " and (:mes is null or t.mes = :mes)")
+    List<TotalCategoria> obterDoPeriodo(@Param("idUsuario") Long idUsuario,
+                                        @Param("ano") Integer ano,
+                                        @Param("mes") Integer mes);
+
+    @Query("select t from TotalCategoria t where t.idUsuario = :idUsuario"
+            + " and t.ano not in (select a.ano from AnoArquivado a)")
+    List<TotalCategoria> obterForaDeAnosArquivados(@Param("idUsuario") Long idUsuario);
+
+    //Consulta nomeada em META-INF/somas-*.xml: cria a chave ou soma a variação sobre a existente
+    @Modifying
+    int somar(@Param("idUsuario") Long idUsuario,
+              @Param("ano") Integer ano,
+              @Param("mes") Integer mes,
+              @Param("idCategoria") Long idCategoria,
+              @Param("tipo") String tipo,
+              @Param("status") String status,
+              @Param("moeda") String moeda,
+              @Param("valor") BigDecimal valor,
+              @Param("quantidade") long quantidade);
+
+    @Modifying
+    @Query("delete from TotalCategoria t where t.idUsuario = :idUsuario"
+            + " and t.ano not in (select a.ano from AnoArquivado a)")
+    void removerForaDeAnosArquivados(@Param("idUsuario") Long idUsuario);
+
+}
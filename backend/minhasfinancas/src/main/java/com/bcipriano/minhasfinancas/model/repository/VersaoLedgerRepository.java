@@ -0,0 +1,24 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.VersaoLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface VersaoLedgerRepository extends JpaRepository<VersaoLedger, Long> {
+
+    @Query("select v.versao from VersaoLedger v where v.idUsuario = :idUsuario")
+    Optional<Long> obterVersao(@Param("idUsuario") Long idUsuario);
+
+    @Query(value = "select versao from financas.versao_ledger where id_usuario = :idUsuario for update",
+            nativeQuery = true)
+    Optional<Long> obterVersaoComBloqueio(@Param("idUsuario") Long idUsuario);
+
+    //Consulta nomeada em META-INF/somas-*.xml: cria a versão 1 ou incrementa a existente
+    @Modifying
+    int incrementar(@Param("idUsuario") Long idUsuario);
+
+}
@@ -0,0 +1,21 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CategoriaService {
+
+    Categoria salvar(Categoria categoria);
+
+    Optional<Categoria> obterPorId(Long id);
+
+    List<Categoria> obterPorUsuario(Long idUsuario);
+
+    /**
+     * Lança RegraNegocioException se a categoria não existir ou for de outro usuário.
+     */
+    void validarDoUsuario(Long idCategoria, Long idUsuario);
+
+}
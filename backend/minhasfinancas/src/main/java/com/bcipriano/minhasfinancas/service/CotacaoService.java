@@ -0,0 +1,35 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Conversão para a moeda padrão com as cotações do ProvedorCotacao, guardadas em cache por (moeda, data).
+ */
+public interface CotacaoService {
+
+    /**
+     * Soma de totais já agregados por moeda (um "group by moeda" na base), cada um convertido pela cotação
+     * da data: uma consulta ao cache por moeda, qualquer que seja a quantidade de lançamentos.
+     */
+    BigDecimal converter(Map<String, BigDecimal> totaisPorMoeda, LocalDate data);
+
+    BigDecimal converter(String moeda, BigDecimal valor, LocalDate data);
+
+    /**
+     * Cotações da data por moeda, em ordem; sem a moeda padrão e sem as moedas ainda sem cotação.
+     */
+    Map<String, BigDecimal> obterCotacoes(Collection<String> moedas, LocalDate data);
+
+    boolean suporta(String moeda);
+
+    /**
+     * Indica se os lançamentos do mês podem ser convertidos: pela cotação do fim do mês, ou pela do dia
+     * enquanto o mês não terminou, as mesmas datas usadas na leitura dos resumos.
+     */
+    boolean temCotacao(String moeda, YearMonth mes);
+
+}
@@ -0,0 +1,9 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.io.OutputStream;
+
+public interface ExportacaoService {
+
+    void exportar(Long idUsuario, FormatoExportacao formato, OutputStream saida);
+
+}
@@ -0,0 +1,6 @@
+package com.bcipriano.minhasfinancas.service;
+
+public enum FormatoExportacao {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,7 @@
+package com.bcipriano.minhasfinancas.service;
+
+public enum FormatoImportacao {
+    JSON,
+    NDJSON,
+    CSV
+}
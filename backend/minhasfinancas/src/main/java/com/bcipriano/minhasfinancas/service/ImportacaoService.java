@@ -0,0 +1,9 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.io.InputStream;
+
+public interface ImportacaoService {
+
+    ResultadoImportacao importar(Long idUsuario, InputStream entrada, FormatoImportacao formato);
+
+}
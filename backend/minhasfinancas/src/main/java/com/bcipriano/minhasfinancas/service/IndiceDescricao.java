@@ -0,0 +1,16 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.util.List;
+
+/**
+ * Estratégia de busca textual na descrição dos lançamentos de um usuário.
+ * Selecionada pela propriedade minhasfinancas.busca.estrategia (memoria | postgres).
+ */
+public interface IndiceDescricao {
+
+    /**
+     * Retorna os ids dos lançamentos cuja descrição contém o termo, do mais relevante para o menos relevante.
+     */
+    List<Long> buscar(Long idUsuario, String termo, int limite);
+
+}
@@ -1,11 +1,17 @@
 package com.bcipriano.minhasfinancas.service;
 
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
 import com.bcipriano.minhasfinancas.model.entity.Lancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface LancamentoService {
 
@@ -13,16 +19,44 @@ public interface LancamentoService {
 
     Lancamento atualizar(Lancamento lancamento);
 
+    /**
+     * Aplica uma alteração parcial (JSON merge patch) sobre o lançamento: apenas os campos listados mudam,
+     * com os valores de alteracoes (null inclusive). O campo versao, se presente, é a versão esperada.
+     * Vazio se o lançamento não existir.
+     */
+    Optional<Lancamento> atualizarParcial(Long id, LancamentoDTO alteracoes, Set<String> campos);
+
     void deletar(Lancamento lancamento);
 
-    List<Lancamento> buscar(Lancamento lancamentoFiltro);
+    Slice<LancamentoListagem> buscar(Lancamento lancamentoFiltro, CursorLancamento cursor, int tamanho);
+
+    List<LancamentoListagem> buscarPorDescricao(Long idUsuario, String termo, int limite);
 
     void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 
+    /**
+     * Troca o status relendo o lançamento em uma transação própria. Se outra escrita alterar o lançamento
+     * no meio, a troca é refeita sobre a versão nova (o status não depende dos demais campos), até o limite
+     * de tentativas; esgotadas, a ConcurrencyFailureException chega ao chamador.
+     */
+    Optional<Lancamento> atualizarStatus(Long id, StatusLancamento status);
+
+    int atualizarStatus(List<Long> ids, StatusLancamento status);
+
+    /**
+     * Troca o status dos lançamentos do usuário em um ano, opcionalmente filtrando mês e tipo.
+     * O ano é obrigatório e o filtro pode alcançar no máximo LancamentoServiceImpl.MAXIMO_STATUS_POR_FILTRO lançamentos.
+     */
+    int atualizarStatusPorFiltro(Lancamento lancamentoFiltro, StatusLancamento status);
+
     void validar(Lancamento lancamento);
 
     Optional<Lancamento> obterPorId(Long id);
 
+    Optional<Lancamento> obterPorIdComUsuario(Long id);
+
 
     BigDecimal obterSaldoPorUsuario(Long id);
+
+    Map<String, BigDecimal> obterCotacoesDoSaldo(Long id);
 }
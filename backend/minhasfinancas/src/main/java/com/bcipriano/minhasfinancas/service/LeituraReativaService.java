@@ -0,0 +1,15 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+public interface LeituraReativaService {
+
+    Flux<LancamentoListagem> listarLancamentos(Long idUsuario, Integer ano, Integer mes, int limite);
+
+    Mono<BigDecimal> obterSaldo(Long idUsuario);
+
+}
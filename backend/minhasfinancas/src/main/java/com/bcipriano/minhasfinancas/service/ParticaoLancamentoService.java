@@ -0,0 +1,21 @@
+package com.bcipriano.minhasfinancas.service;
+
+public interface ParticaoLancamentoService {
+
+    /**
+     * Cria as partições do ano atual e do seguinte, antes que os lançamentos deles cheguem à partição padrão.
+     */
+    void prepararParticoes();
+
+    /**
+     * Desanexa a partição do ano para o esquema financas_arquivo. Somente anos fora da janela ativa.
+     * Retorna false quando o ano já estava arquivado.
+     */
+    boolean arquivar(Integer ano);
+
+    /**
+     * Arquiva os anos com lançamentos anteriores à janela ativa. Retorna quantos anos foram arquivados.
+     */
+    int arquivarAnosAntigos();
+
+}
@@ -0,0 +1,27 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+
+/**
+ * Visão derivada dos lançamentos, mantida pelo consumidor do ledger fora da transação de escrita.
+ * Novas visões só precisam implementar esta interface: a escrita continua gravando apenas o evento.
+ * Todas as chamadas vêm do ProjecaoLedgerService, com o checkpoint do usuário bloqueado.
+ */
+public interface ProjecaoLedger {
+
+    /**
+     * Aplica as alterações de um único usuário ainda não refletidas na visão, na ordem do ledger.
+     */
+    void aplicar(LancamentoAlteradoEvent alteracoes);
+
+    /**
+     * Monta a visão do usuário a partir dos lançamentos atuais.
+     */
+    void reconstruir(Long idUsuario);
+
+    /**
+     * Compara a visão do usuário com os lançamentos atuais.
+     */
+    boolean verificar(Long idUsuario);
+
+}
@@ -0,0 +1,24 @@
+package com.bcipriano.minhasfinancas.service;
+
+public interface ProjecaoLedgerService {
+
+    /**
+     * Aplica um lote de eventos pendentes, em ordem por usuário. Retorna quantos eventos foram aplicados.
+     */
+    int processarPendentes();
+
+    /**
+     * Reentrega os eventos a partir de um offset (id do evento). Eventos que o checkpoint do usuário
+     * já cobre são ignorados, então a reaplicação pode partir de qualquer ponto.
+     */
+    int reprocessar(long offset);
+
+    long obterVersaoAplicada(Long idUsuario);
+
+    void reconstruir(Long idUsuario);
+
+    int verificarTodos();
+
+    int removerEventosAplicados();
+
+}
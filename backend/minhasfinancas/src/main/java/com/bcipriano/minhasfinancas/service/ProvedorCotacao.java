@@ -0,0 +1,24 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Fonte das cotações usadas para converter valores para a moeda padrão (Lancamento.MOEDA_PADRAO).
+ * Selecionada pela propriedade minhasfinancas.cotacao.provedor (arquivo); uma API externa ou uma tabela
+ * na base entram como outra implementação. As consultas passam pelo cache do CotacaoService.
+ */
+public interface ProvedorCotacao {
+
+    /**
+     * Valor de uma unidade da moeda na moeda padrão, pela última cotação publicada até a data (inclusive).
+     */
+    Optional<BigDecimal> obterCotacao(String moeda, LocalDate data);
+
+    /**
+     * Indica se a moeda tem cotações, para recusar lançamentos em moedas que não poderiam ser convertidas.
+     */
+    boolean suporta(String moeda);
+
+}
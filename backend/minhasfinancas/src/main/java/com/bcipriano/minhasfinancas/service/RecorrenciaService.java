@@ -0,0 +1,28 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface RecorrenciaService {
+
+    Recorrencia salvar(Recorrencia recorrencia);
+
+    Optional<Recorrencia> obterPorId(Long id);
+
+    List<Recorrencia> obterPorUsuario(Long idUsuario);
+
+    /**
+     * Remove o modelo; os lançamentos já gerados por ele continuam.
+     */
+    void deletar(Recorrencia recorrencia);
+
+    /**
+     * Gera como lançamentos pendentes as ocorrências vencidas até a data, nas partições da fila que esta
+     * instância conseguir reservar. Retorna quantos lançamentos foram gerados.
+     */
+    int gerarOcorrencias(LocalDate data);
+
+}
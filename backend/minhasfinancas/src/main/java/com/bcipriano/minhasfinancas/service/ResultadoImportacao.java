@@ -0,0 +1,9 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.util.List;
+
+public record ResultadoImportacao(long linhas, long importados, List<ErroImportacao> erros) {
+
+    public record ErroImportacao(long linha, String mensagem) {
+    }
+}
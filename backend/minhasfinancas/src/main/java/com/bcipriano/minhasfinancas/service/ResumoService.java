@@ -0,0 +1,11 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
+
+import java.util.List;
+
+public interface ResumoService {
+
+    List<ResumoMensal> obterResumosDoAno(Long idUsuario, Integer ano);
+
+}
@@ -0,0 +1,15 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface SaldoService {
+
+    BigDecimal obterSaldo(Long idUsuario);
+
+    /**
+     * Cotações do dia que obterSaldo aplica às moedas do usuário; vazio quando ele só tem a moeda padrão.
+     */
+    Map<String, BigDecimal> obterCotacoes(Long idUsuario);
+
+}
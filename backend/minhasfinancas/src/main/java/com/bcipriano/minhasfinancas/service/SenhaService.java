@@ -0,0 +1,24 @@
+package com.bcipriano.minhasfinancas.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hash de senhas (BCrypt). A verificação é cara de propósito e roda num executor próprio e limitado,
+ * fora das threads do servidor.
+ */
+public interface SenhaService {
+
+    String gerarHash(String senha);
+
+    /**
+     * Compara a senha informada com a armazenada, que pode ser um hash ou, em cadastros antigos, o texto puro.
+     * Completa com RejectedExecutionException quando a fila de verificações está cheia.
+     */
+    CompletableFuture<Boolean> verificar(String senha, String senhaArmazenada);
+
+    /**
+     * Indica se a senha armazenada deve ser regravada: texto puro ou hash com custo menor que o atual.
+     */
+    boolean precisaAtualizar(String senhaArmazenada);
+
+}
@@ -0,0 +1,14 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+
+import java.util.List;
+
+public interface TotalCategoriaService {
+
+    /**
+     * Totais do ano (ou só do mês, quando informado) por (mes, categoria, tipo, status), na moeda padrão.
+     */
+    List<TotalCategoria> obterTotais(Long idUsuario, Integer ano, Integer mes);
+
+}
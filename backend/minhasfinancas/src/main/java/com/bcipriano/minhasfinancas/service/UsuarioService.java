@@ -1,16 +1,33 @@
 package com.bcipriano.minhasfinancas.service;
 
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface UsuarioService {
     Usuario autenticar(String email, String senha);
 
+    /**
+     * Autentica sem ocupar a thread chamadora durante a verificação do hash.
+     * Falha com ErroAutenticacao, ou RejectedExecutionException quando há verificações demais em andamento.
+     */
+    CompletableFuture<Usuario> autenticarAsync(String email, String senha);
+
     Usuario salvarUsuario(Usuario usuario);
 
     void validarEmail(String email);
 
-    Optional<Usuario> obterPorId(Long id);
+    /**
+     * Cópia imutável do usuário, servida pelo cache de usuarios.
+     */
+    Optional<UsuarioListagem> obterPorId(Long id);
+
+    /**
+     * Referência ao usuário sem consultar a base, para quando só a chave estrangeira é necessária.
+     * O id deve ter sido validado antes; a referência só pode ser usada dentro de uma transação.
+     */
+    Usuario obterReferencia(Long id);
 
 }
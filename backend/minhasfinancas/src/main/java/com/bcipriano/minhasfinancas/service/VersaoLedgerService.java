@@ -0,0 +1,17 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+
+public interface VersaoLedgerService {
+
+    long obterVersao(Long idUsuario);
+
+    void incrementar(Long idUsuario);
+
+    /**
+     * Incrementa a versão do usuário e grava as alterações no ledger com essa versão.
+     * Deve rodar na transação da escrita: o bloqueio da versão mantém o ledger de cada usuário em ordem.
+     */
+    void registrar(Long idUsuario, LancamentoAlteradoEvent alteracoes);
+
+}
@@ -0,0 +1,75 @@
+package com.bcipriano.minhasfinancas.service.event;
+
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Publicado pelo LancamentoService a cada escrita, dentro da mesma transação.
+ * Carrega o estado anterior e o novo dos lançamentos afetados: inclusões só têm
+ * estado atual, exclusões só têm estado anterior. Escritas em lote publicam um único evento.
+ * Também é o conteúdo gravado no ledger (EventoLedger), separado por usuário.
+ */
+public record LancamentoAlteradoEvent(List<LancamentoSnapshot> anteriores, List<LancamentoSnapshot> atuais) {
+
+    public static LancamentoAlteradoEvent inclusao(LancamentoSnapshot atual) {
+        return new LancamentoAlteradoEvent(List.of(), List.of(atual));
+    }
+
+    public static LancamentoAlteradoEvent inclusao(List<LancamentoSnapshot> atuais) {
+        return new LancamentoAlteradoEvent(List.of(), atuais);
+    }
+
+    public static LancamentoAlteradoEvent alteracao(LancamentoSnapshot anterior, LancamentoSnapshot atual) {
+        return new LancamentoAlteradoEvent(anterior != null ? List.of(anterior) : List.of(), List.of(atual));
+    }
+
+    public static LancamentoAlteradoEvent alteracao(List<LancamentoSnapshot> anteriores, List<LancamentoSnapshot> atuais) {
+        return new LancamentoAlteradoEvent(anteriores, atuais);
+    }
+
+    public static LancamentoAlteradoEvent exclusao(LancamentoSnapshot anterior) {
+        return new LancamentoAlteradoEvent(List.of(anterior), List.of());
+    }
+
+    //Marca no ledger uma mudança das projeções sem escrita de lançamento (reconstrução)
+    public static LancamentoAlteradoEvent vazio() {
+        return new LancamentoAlteradoEvent(List.of(), List.of());
+    }
+
+    //Concatena eventos consecutivos: para projeções aditivas equivale a aplicá-los um a um
+    public static LancamentoAlteradoEvent juntar(List<LancamentoAlteradoEvent> eventos) {
+        if(eventos.size() == 1) {
+            return eventos.get(0);
+        }
+        List<LancamentoSnapshot> anteriores = new ArrayList<>();
+        List<LancamentoSnapshot> atuais = new ArrayList<>();
+        for(LancamentoAlteradoEvent evento : eventos) {
+            anteriores.addAll(evento.anteriores());
+            atuais.addAll(evento.atuais());
+        }
+        return new LancamentoAlteradoEvent(anteriores, atuais);
+    }
+
+    public List<Long> usuarios() {
+        return Stream.concat(anteriores.stream(), atuais.stream())
+                .filter(Objects::nonNull)
+                .map(LancamentoSnapshot::idUsuario)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public LancamentoAlteradoEvent doUsuario(Long idUsuario) {
+        Predicate<LancamentoSnapshot> doUsuario = snapshot -> snapshot != null && idUsuario.equals(snapshot.idUsuario());
+        return new LancamentoAlteradoEvent(
+                anteriores.stream().filter(doUsuario).collect(Collectors.toList()),
+                atuais.stream().filter(doUsuario).collect(Collectors.toList()));
+    }
+}
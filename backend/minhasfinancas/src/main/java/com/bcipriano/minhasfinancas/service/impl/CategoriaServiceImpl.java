@@ -0,0 +1,77 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import com.bcipriano.minhasfinancas.model.repository.CategoriaRepository;
+import com.bcipriano.minhasfinancas.service.CategoriaService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class CategoriaServiceImpl implements CategoriaService {
+
+    public static final int TAMANHO_MAXIMO_NOME = 50;
+
+    public static final String CHAVE_NOME = "uk_categoria_usuario_nome";
+
+    private CategoriaRepository repository;
+
+    public CategoriaServiceImpl(CategoriaRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    @Transactional
+    public Categoria salvar(Categoria categoria) {
+        if(categoria.getIdUsuario() == null) {
+            throw new RegraNegocioException("Informe um usuário!");
+        }
+        if(categoria.getNome() == null || categoria.getNome().trim().equals("")) {
+            throw new RegraNegocioException("Informe um nome de categoria válido!");
+        }
+        categoria.setNome(categoria.getNome().trim());
+        if(categoria.getNome().length() > TAMANHO_MAXIMO_NOME) {
+            throw new RegraNegocioException("Informe um nome de categoria com até 50 caracteres!");
+        }
+        if(repository.existsByIdUsuarioAndNomeIgnoreCase(categoria.getIdUsuario(), categoria.getNome())) {
+            throw new RegraNegocioException("Já existe uma categoria com este nome.");
+        }
+        try {
+            return repository.saveAndFlush(categoria);
+        } catch (DataIntegrityViolationException e) {
+            //Cadastro simultâneo do mesmo nome: a consulta acima não o viu, a chave única sim
+            if(e.getCause() instanceof ConstraintViolationException violacao
+                    && CHAVE_NOME.equalsIgnoreCase(violacao.getConstraintName())) {
+                throw new RegraNegocioException("Já existe uma categoria com este nome.");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Categoria> obterPorId(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Categoria> obterPorUsuario(Long idUsuario) {
+        return repository.findByIdUsuarioOrderByNome(idUsuario);
+    }
+
+    //Uma categoria de outro usuário levaria o lançamento para os totais dele
+    @Override
+    @Transactional(readOnly = true)
+    public void validarDoUsuario(Long idCategoria, Long idUsuario) {
+        if(!repository.existsByIdAndIdUsuario(idCategoria, idUsuario)) {
+            throw new RegraNegocioException("Categoria não encontrada para o usuário do lançamento.");
+        }
+    }
+
+}
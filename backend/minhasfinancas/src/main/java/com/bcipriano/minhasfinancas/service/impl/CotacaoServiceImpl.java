@@ -0,0 +1,111 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.ProvedorCotacao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Service
+public class CotacaoServiceImpl implements CotacaoService {
+
+    private ProvedorCotacao provedor;
+
+    //Por (moeda, data): a cotação de uma data passada não muda e só sai pelo tamanho máximo. A do dia e as
+    //ausentes (uma série ainda não publicada) expiram com o ttl
+    private Cache<ChaveCotacao, Optional<BigDecimal>> cotacoes;
+
+    public CotacaoServiceImpl(ProvedorCotacao provedor,
+                              @Value("${minhasfinancas.cotacao.cache.max:10000}") long maximoCotacoes,
+                              @Value("${minhasfinancas.cotacao.cache.ttl:1h}") Duration ttl) {
+        this.provedor = provedor;
+        this.cotacoes = Caffeine.newBuilder()
+                .maximumSize(maximoCotacoes)
+                .expireAfter(new Expiry<ChaveCotacao, Optional<BigDecimal>>() {
+                    @Override
+                    public long expireAfterCreate(ChaveCotacao chave, Optional<BigDecimal> cotacao, long agora) {
+                        return cotacao.isPresent() && chave.data().isBefore(LocalDate.now()) ? Long.MAX_VALUE : ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ChaveCotacao chave, Optional<BigDecimal> cotacao, long agora,
+                                                  long duracaoAtual) {
+                        return expireAfterCreate(chave, cotacao, agora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ChaveCotacao chave, Optional<BigDecimal> cotacao, long agora,
+                                                long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public BigDecimal converter(Map<String, BigDecimal> totaisPorMoeda, LocalDate data) {
+        BigDecimal total = BigDecimal.ZERO;
+        for(Map.Entry<String, BigDecimal> totalDaMoeda : totaisPorMoeda.entrySet()) {
+            total = total.add(converter(totalDaMoeda.getKey(), totalDaMoeda.getValue(), data));
+        }
+        return total;
+    }
+
+    @Override
+    public BigDecimal converter(String moeda, BigDecimal valor, LocalDate data) {
+        if(moeda == null || Lancamento.MOEDA_PADRAO.equals(moeda)) {
+            return valor;
+        }
+        BigDecimal cotacao = obterCotacao(moeda, data)
+                .orElseThrow(() -> new RegraNegocioException("Cotação indisponível: " + moeda + " em " + data));
+        return valor.multiply(cotacao).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    @Override
+    public Map<String, BigDecimal> obterCotacoes(Collection<String> moedas, LocalDate data) {
+        Map<String, BigDecimal> cotacoesDaData = new TreeMap<>();
+        for(String moeda : moedas) {
+            if(moeda != null && !Lancamento.MOEDA_PADRAO.equals(moeda)) {
+                obterCotacao(moeda, data).ifPresent(cotacao -> cotacoesDaData.put(moeda, cotacao));
+            }
+        }
+        return cotacoesDaData;
+    }
+
+    @Override
+    public boolean suporta(String moeda) {
+        return Lancamento.MOEDA_PADRAO.equals(moeda) || provedor.suporta(moeda);
+    }
+
+    @Override
+    public boolean temCotacao(String moeda, YearMonth mes) {
+        if(moeda == null || Lancamento.MOEDA_PADRAO.equals(moeda)) {
+            return true;
+        }
+        LocalDate hoje = LocalDate.now();
+        LocalDate fimDoMes = mes.atEndOfMonth();
+        return obterCotacao(moeda, fimDoMes.isAfter(hoje) ? hoje : fimDoMes).isPresent();
+    }
+
+    private Optional<BigDecimal> obterCotacao(String moeda, LocalDate data) {
+        return cotacoes.get(new ChaveCotacao(moeda, data), chave -> provedor.obterCotacao(moeda, data));
+    }
+
+    private record ChaveCotacao(String moeda, LocalDate data) {
+    }
+
+}
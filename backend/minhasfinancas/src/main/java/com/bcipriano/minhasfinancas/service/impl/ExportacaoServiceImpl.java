@@ -0,0 +1,77 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.ExportacaoService;
+import com.bcipriano.minhasfinancas.service.FormatoExportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Escreve os lançamentos de um usuário direto na saída, à medida que são lidos da base.
+ * A memória usada independe do tamanho do histórico.
+ */
+@Service
+public class ExportacaoServiceImpl implements ExportacaoService {
+
+    private LancamentoRepository repository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ObjectWriter escritorNdjson;
+
+    private ObjectWriter escritorCsv;
+
+    public ExportacaoServiceImpl(LancamentoRepository repository,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.escritorNdjson = objectMapper.writerFor(LancamentoListagem.class)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .withRootValueSeparator("\n");
+
+        CsvMapper csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.escritorCsv = csvMapper.writer(csvMapper.schemaFor(LancamentoListagem.class).withHeader());
+    }
+
+    @Override
+    public void exportar(Long idUsuario, FormatoExportacao formato, OutputStream saida) {
+        ObjectWriter escritor = formato == FormatoExportacao.CSV ? escritorCsv : escritorNdjson;
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<LancamentoListagem> linhas = repository.streamPorUsuario(idUsuario);
+                 SequenceWriter sequencia = escritor.writeValues(saida)) {
+                Iterator<LancamentoListagem> iterador = linhas.iterator();
+                boolean vazio = !iterador.hasNext();
+                while (iterador.hasNext()) {
+                    sequencia.write(iterador.next());
+                }
+                //O separador só vai entre os objetos: termina a última linha do NDJSON
+                if (formato == FormatoExportacao.NDJSON && !vazio) {
+                    sequencia.flush();
+                    saida.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+}
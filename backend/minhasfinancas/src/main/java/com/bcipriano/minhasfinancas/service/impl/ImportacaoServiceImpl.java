@@ -0,0 +1,347 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.FormatoImportacao;
+import com.bcipriano.minhasfinancas.service.ImportacaoService;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.ResultadoImportacao;
+import com.bcipriano.minhasfinancas.service.ResultadoImportacao.ErroImportacao;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Importa lançamentos lendo a entrada linha a linha e gravando em lotes, cada lote na sua transação.
+ * Linhas inválidas são reportadas sem interromper a importação. Um lote recusado pela base é regravado linha a
+ * linha, cada uma na sua transação, e só as linhas recusadas de novo entram nos erros.
+ */
+@Slf4j
+@Service
+public class ImportacaoServiceImpl implements ImportacaoService {
+
+    public static final int MAXIMO_ERROS = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private LancamentoRepository repository;
+
+    private LancamentoService lancamentoService;
+
+    private UsuarioService usuarioService;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ObjectMapper objectMapper;
+
+    private int tamanhoLote;
+
+    public ImportacaoServiceImpl(LancamentoRepository repository,
+                                 LancamentoService lancamentoService,
+                                 UsuarioService usuarioService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${minhasfinancas.importacao.tamanho-lote:500}") int tamanhoLote) {
+        this.repository = repository;
+        this.lancamentoService = lancamentoService;
+        this.usuarioService = usuarioService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    @Override
+    public ResultadoImportacao importar(Long idUsuario, InputStream entrada, FormatoImportacao formato) {
+        if(idUsuario == null || !usuarioService.obterPorId(idUsuario).isPresent()) {
+            throw new RegraNegocioException("Usuario não encontrado para o Id informado.");
+        }
+
+        List<ErroImportacao> erros = new ArrayList<>();
+        List<Lancamento> lote = new ArrayList<>(tamanhoLote);
+        List<Long> linhasDoLote = new ArrayList<>(tamanhoLote);
+        long importados = 0;
+
+        LeitorLinhas leitor = criarLeitor(entrada, formato);
+        Linha linha;
+        while((linha = leitor.proxima()) != null) {
+            if(linha.erro() != null) {
+                registrarErro(erros, linha.numero(), linha.erro());
+                continue;
+            }
+            try {
+                Lancamento lancamento = converter(linha.dto(), idUsuario);
+                lancamentoService.validar(lancamento);
+                lote.add(lancamento);
+                linhasDoLote.add(linha.numero());
+            } catch (RegraNegocioException regraNegocioException) {
+                registrarErro(erros, linha.numero(), regraNegocioException.getMessage());
+            }
+
+            if(lote.size() >= tamanhoLote) {
+                importados += gravar(idUsuario, lote, linhasDoLote, erros);
+            }
+        }
+        if(!lote.isEmpty()) {
+            importados += gravar(idUsuario, lote, linhasDoLote, erros);
+        }
+
+        return new ResultadoImportacao(leitor.linhasLidas(), importados, erros);
+    }
+
+    private long gravar(Long idUsuario, List<Lancamento> lote, List<Long> linhasDoLote, List<ErroImportacao> erros) {
+        int quantidade = lote.size();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+                //Só a chave estrangeira é gravada: o lote aponta para uma referência, sem carregar o usuário
+                Usuario referencia = usuarioService.obterReferencia(idUsuario);
+                lote.forEach(lancamento -> lancamento.setUsuario(referencia));
+                List<Lancamento> salvos = repository.saveAll(lote);
+                repository.flush();
+                eventPublisher.publishEvent(LancamentoAlteradoEvent.inclusao(salvos.stream()
+                        .map(LancamentoSnapshot::de)
+                        .collect(Collectors.toList())));
+                entityManager.clear();
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Falha ao gravar lote de importação; gravando linha a linha", e);
+            quantidade = gravarLinhaALinha(idUsuario, lote, linhasDoLote, erros);
+        }
+        lote.clear();
+        linhasDoLote.clear();
+        return quantidade;
+    }
+
+    private int gravarLinhaALinha(Long idUsuario, List<Lancamento> lote, List<Long> linhasDoLote,
+                                  List<ErroImportacao> erros) {
+        int gravados = 0;
+        for(int i = 0; i < lote.size(); i++) {
+            Lancamento lancamento = lote.get(i);
+            //Id e versão atribuídos pela tentativa desfeita: a linha volta a ser um lançamento novo
+            lancamento.setId(null);
+            lancamento.setVersao(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lancamento.setUsuario(usuarioService.obterReferencia(idUsuario));
+                    Lancamento salvo = repository.save(lancamento);
+                    repository.flush();
+                    eventPublisher.publishEvent(LancamentoAlteradoEvent.inclusao(LancamentoSnapshot.de(salvo)));
+                    entityManager.clear();
+                });
+                gravados++;
+            } catch (DataAccessException | TransactionException e) {
+                log.debug("Linha {} da importação recusada pela base", linhasDoLote.get(i), e);
+                registrarErro(erros, linhasDoLote.get(i), "Falha ao gravar esta linha.");
+            }
+        }
+        return gravados;
+    }
+
+    private Lancamento converter(LancamentoDTO dto, Long idUsuario) {
+        if(dto.getUsuario() != null && !dto.getUsuario().equals(idUsuario)) {
+            throw new RegraNegocioException("Usuario da linha difere do usuario da importação.");
+        }
+
+        Lancamento lancamento = new Lancamento();
+        lancamento.setDescricao(dto.getDescricao());
+        lancamento.setAno(dto.getAno());
+        lancamento.setMes(dto.getMes());
+        lancamento.setValor(dto.getValor());
+        if(dto.getMoeda() != null) {
+            lancamento.setMoeda(dto.getMoeda());
+        }
+        lancamento.setIdCategoria(dto.getCategoria());
+        lancamento.setUsuario(Usuario.builder().id(idUsuario).build());
+        lancamento.setStatus(StatusLancamento.PENDENTE);
+
+        try {
+            if(dto.getTipo() != null) {
+                lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Tipo de lançamento inválido.");
+        }
+
+        try {
+            if(dto.getStatus() != null) {
+                lancamento.setStatus(StatusLancamento.valueOf(dto.getStatus()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Status de lançamento inválido.");
+        }
+
+        return lancamento;
+    }
+
+    private void registrarErro(List<ErroImportacao> erros, long linha, String mensagem) {
+        if(erros.size() < MAXIMO_ERROS) {
+            erros.add(new ErroImportacao(linha, mensagem));
+        }
+    }
+
+    private LeitorLinhas criarLeitor(InputStream entrada, FormatoImportacao formato) {
+        try {
+            switch (formato) {
+                case NDJSON:
+                    return new LeitorNdjson(entrada, objectMapper.readerFor(LancamentoDTO.class));
+                case CSV:
+                    CsvMapper csvMapper = new CsvMapper();
+                    csvMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+                    ObjectReader leitorCsv = csvMapper.readerFor(LancamentoDTO.class)
+                            .with(CsvSchema.emptySchema().withHeader());
+                    return new LeitorIterador(leitorCsv.readValues(entrada), 1);
+                default:
+                    return new LeitorIterador(objectMapper.readerFor(LancamentoDTO.class).readValues(entrada), 0);
+            }
+        } catch (IOException e) {
+            throw new RegraNegocioException("Não foi possível ler o arquivo de importação.");
+        }
+    }
+
+    private record Linha(long numero, LancamentoDTO dto, String erro) {
+    }
+
+    private interface LeitorLinhas {
+
+        /**
+         * Próxima linha do arquivo ou null ao final.
+         */
+        Linha proxima();
+
+        long linhasLidas();
+    }
+
+    //Uma linha por objeto JSON: um erro de sintaxe afeta apenas a própria linha
+    private static class LeitorNdjson implements LeitorLinhas {
+
+        private final BufferedReader leitor;
+
+        private final ObjectReader objectReader;
+
+        private long numero;
+
+        private long lidas;
+
+        LeitorNdjson(InputStream entrada, ObjectReader objectReader) {
+            this.leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+            this.objectReader = objectReader;
+        }
+
+        @Override
+        public Linha proxima() {
+            try {
+                String conteudo;
+                do {
+                    conteudo = leitor.readLine();
+                    numero++;
+                } while(conteudo != null && conteudo.isBlank());
+                if(conteudo == null) {
+                    return null;
+                }
+                lidas++;
+                try {
+                    return new Linha(numero, objectReader.readValue(conteudo), null);
+                } catch (JsonProcessingException e) {
+                    return new Linha(numero, null, "Linha inválida: " + e.getOriginalMessage());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long linhasLidas() {
+            return lidas;
+        }
+    }
+
+    //Array JSON ou CSV: erros de conversão pulam o registro; erros de sintaxe encerram a leitura
+    private static class LeitorIterador implements LeitorLinhas {
+
+        private final MappingIterator<LancamentoDTO> iterador;
+
+        private final long deslocamento;
+
+        private long lidas;
+
+        private boolean encerrado;
+
+        LeitorIterador(MappingIterator<LancamentoDTO> iterador, long deslocamento) {
+            this.iterador = iterador;
+            this.deslocamento = deslocamento;
+        }
+
+        @Override
+        public Linha proxima() {
+            if(encerrado) {
+                return null;
+            }
+            try {
+                if(!iterador.hasNextValue()) {
+                    return null;
+                }
+            } catch (IOException e) {
+                encerrado = true;
+                return new Linha(lidas + 1 + deslocamento, null, "Arquivo inválido: " + mensagem(e));
+            }
+            lidas++;
+            try {
+                return new Linha(lidas + deslocamento, iterador.nextValue(), null);
+            } catch (JsonMappingException e) {
+                return new Linha(lidas + deslocamento, null, "Linha inválida: " + e.getOriginalMessage());
+            } catch (IOException e) {
+                encerrado = true;
+                return new Linha(lidas + deslocamento, null, "Arquivo inválido: " + mensagem(e));
+            }
+        }
+
+        @Override
+        public long linhasLidas() {
+            return lidas;
+        }
+
+        private static String mensagem(IOException e) {
+            return e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage();
+        }
+    }
+
+}
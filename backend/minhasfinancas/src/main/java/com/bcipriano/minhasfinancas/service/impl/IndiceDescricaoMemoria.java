@@ -0,0 +1,278 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.projection.DescricaoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.IndiceDescricao;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido de trigramas por usuário, mantido em memória.
+ * O índice de um usuário é montado na primeira busca e depois atualizado a cada escrita confirmada.
+ * Como cada nó só vê as próprias escritas, o índice expira após minhasfinancas.busca.memoria.ttl.
+ * A montagem lê a base fora do mapa de índices: só as buscas do mesmo usuário esperam por ela.
+ */
+@Service
+@ConditionalOnProperty(name = "minhasfinancas.busca.estrategia", havingValue = "memoria", matchIfMissing = true)
+public class IndiceDescricaoMemoria implements IndiceDescricao {
+
+    private static final int TAMANHO_GRAMA = 3;
+
+    private final Map<Long, IndiceUsuario> indices = new ConcurrentHashMap<>();
+
+    private LancamentoRepository lancamentoRepository;
+
+    private int maximoUsuarios;
+
+    private Duration ttl;
+
+    public IndiceDescricaoMemoria(LancamentoRepository lancamentoRepository,
+                                  @Value("${minhasfinancas.busca.memoria.max-usuarios:1000}") int maximoUsuarios,
+                                  @Value("${minhasfinancas.busca.memoria.ttl:10m}") Duration ttl) {
+        this.lancamentoRepository = lancamentoRepository;
+        this.maximoUsuarios = maximoUsuarios;
+        this.ttl = ttl;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> buscar(Long idUsuario, String termo, int limite) {
+        String termoNormalizado = normalizar(termo);
+        if(termoNormalizado.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long agora = System.currentTimeMillis();
+        IndiceUsuario indice = obter(idUsuario, agora);
+        indice.aguardarMontagem();
+        indice.ultimoAcesso = agora;
+        if(indices.size() > maximoUsuarios) {
+            despejarMenosUsado();
+        }
+        return indice.buscar(termoNormalizado, limite);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarLancamento(LancamentoAlteradoEvent evento) {
+        //Só atualiza índices já carregados; os demais são montados a partir da base na próxima busca
+        for(LancamentoSnapshot anterior : evento.anteriores()) {
+            IndiceUsuario indice = anterior.idUsuario() != null ? indices.get(anterior.idUsuario()) : null;
+            if(indice != null) {
+                indice.remover(anterior.id());
+            }
+        }
+        for(LancamentoSnapshot atual : evento.atuais()) {
+            IndiceUsuario indice = atual.idUsuario() != null ? indices.get(atual.idUsuario()) : null;
+            if(indice != null) {
+                indice.adicionar(atual.id(), atual.descricao());
+            }
+        }
+    }
+
+    //Publica um índice vazio e só quem o publicou o monta; os demais encontram o mesmo índice e esperam
+    private IndiceUsuario obter(Long idUsuario, long agora) {
+        while(true) {
+            IndiceUsuario atual = indices.get(idUsuario);
+            if(atual != null && !atual.expirado(agora, ttl)) {
+                return atual;
+            }
+            IndiceUsuario novo = new IndiceUsuario(agora);
+            boolean publicado = atual == null
+                    ? indices.putIfAbsent(idUsuario, novo) == null
+                    : indices.replace(idUsuario, atual, novo);
+            if(publicado) {
+                montar(idUsuario, novo);
+                return novo;
+            }
+        }
+    }
+
+    private void montar(Long idUsuario, IndiceUsuario indice) {
+        try {
+            for(DescricaoLancamento descricao : lancamentoRepository.obterDescricoes(idUsuario)) {
+                indice.carregar(descricao.id(), descricao.descricao());
+            }
+            indice.concluirMontagem(null);
+        } catch (RuntimeException e) {
+            indices.remove(idUsuario, indice);
+            indice.concluirMontagem(e);
+            throw e;
+        }
+    }
+
+    private void despejarMenosUsado() {
+        indices.entrySet().stream()
+                .min(Comparator.comparingLong(entrada -> entrada.getValue().ultimoAcesso))
+                .ifPresent(entrada -> indices.remove(entrada.getKey(), entrada.getValue()));
+    }
+
+    static String normalizar(String texto) {
+        if(texto == null) {
+            return "";
+        }
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
+    private static Set<String> gramas(String texto) {
+        Set<String> gramas = new HashSet<>();
+        for(int i = 0; i + TAMANHO_GRAMA <= texto.length(); i++) {
+            gramas.add(texto.substring(i, i + TAMANHO_GRAMA));
+        }
+        return gramas;
+    }
+
+    private static class IndiceUsuario {
+
+        private final long criadoEm;
+
+        private volatile long ultimoAcesso;
+
+        private final Map<Long, String> documentos = new HashMap<>();
+
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        private final CompletableFuture<Void> montagem = new CompletableFuture<>();
+
+        //Lançamentos alterados durante a montagem: a versão do evento é mais nova que a lida da base
+        private Set<Long> alteradosNaMontagem = new HashSet<>();
+
+        IndiceUsuario(long criadoEm) {
+            this.criadoEm = criadoEm;
+            this.ultimoAcesso = criadoEm;
+        }
+
+        boolean expirado(long agora, Duration ttl) {
+            return agora - criadoEm > ttl.toMillis();
+        }
+
+        void aguardarMontagem() {
+            try {
+                montagem.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException erro ? erro : e;
+            }
+        }
+
+        synchronized void concluirMontagem(RuntimeException erro) {
+            alteradosNaMontagem = null;
+            if(erro == null) {
+                montagem.complete(null);
+            } else {
+                montagem.completeExceptionally(erro);
+            }
+        }
+
+        synchronized void carregar(Long id, String descricao) {
+            if(!alteradosNaMontagem.contains(id)) {
+                indexar(id, descricao);
+            }
+        }
+
+        synchronized void adicionar(Long id, String descricao) {
+            marcarAlterado(id);
+            indexar(id, descricao);
+        }
+
+        synchronized void remover(Long id) {
+            marcarAlterado(id);
+            desindexar(id);
+        }
+
+        private void marcarAlterado(Long id) {
+            if(alteradosNaMontagem != null) {
+                alteradosNaMontagem.add(id);
+            }
+        }
+
+        private void indexar(Long id, String descricao) {
+            desindexar(id);
+            String normalizada = normalizar(descricao);
+            documentos.put(id, normalizada);
+            for(String grama : gramas(normalizada)) {
+                postings.computeIfAbsent(grama, g -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void desindexar(Long id) {
+            String normalizada = documentos.remove(id);
+            if(normalizada == null) {
+                return;
+            }
+            for(String grama : gramas(normalizada)) {
+                Set<Long> ids = postings.get(grama);
+                if(ids != null) {
+                    ids.remove(id);
+                    if(ids.isEmpty()) {
+                        postings.remove(grama);
+                    }
+                }
+            }
+        }
+
+        synchronized List<Long> buscar(String termo, int limite) {
+            Set<Long> candidatos = candidatos(termo);
+            return candidatos.stream()
+                    .filter(id -> documentos.get(id).contains(termo))
+                    .sorted(Comparator.<Long>comparingInt(id -> relevancia(documentos.get(id), termo)).reversed()
+                            .thenComparingInt(id -> documentos.get(id).length())
+                            .thenComparing(Comparator.<Long>reverseOrder()))
+                    .limit(limite)
+                    .collect(Collectors.toList());
+        }
+
+        private Set<Long> candidatos(String termo) {
+            Set<String> gramasTermo = gramas(termo);
+            if(gramasTermo.isEmpty()) {
+                return documentos.keySet();
+            }
+            List<Set<Long>> listas = new ArrayList<>();
+            for(String grama : gramasTermo) {
+                Set<Long> ids = postings.get(grama);
+                if(ids == null) {
+                    return Set.of();
+                }
+                listas.add(ids);
+            }
+            listas.sort(Comparator.comparingInt(Set::size));
+            Set<Long> resultado = new HashSet<>(listas.get(0));
+            for(int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+                resultado.retainAll(listas.get(i));
+            }
+            return resultado;
+        }
+
+        private static int relevancia(String descricao, String termo) {
+            if(descricao.equals(termo)) {
+                return 3;
+            }
+            if(descricao.startsWith(termo)) {
+                return 2;
+            }
+            if(descricao.contains(" " + termo)) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+}
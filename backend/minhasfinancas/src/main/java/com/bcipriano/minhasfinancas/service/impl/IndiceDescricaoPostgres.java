@@ -0,0 +1,40 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.IndiceDescricao;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Busca delegada ao PostgreSQL (pg_trgm e unaccent). O índice GIN é mantido pelo próprio banco a cada escrita.
+ * Termo e descrições passam pela mesma normalização e ordem de relevância do IndiceDescricaoMemoria.
+ * Depende das migrações V5 (pg_trgm) e V17 (unaccent, financas.normalizar_descricao e o índice sobre ela).
+ */
+@Service
+@ConditionalOnProperty(name = "minhasfinancas.busca.estrategia", havingValue = "postgres")
+public class IndiceDescricaoPostgres implements IndiceDescricao {
+
+    private LancamentoRepository lancamentoRepository;
+
+    public IndiceDescricaoPostgres(LancamentoRepository lancamentoRepository) {
+        this.lancamentoRepository = lancamentoRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> buscar(Long idUsuario, String termo, int limite) {
+        String termoNormalizado = IndiceDescricaoMemoria.normalizar(termo);
+        if(termoNormalizado.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String escapado = termoNormalizado
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return lancamentoRepository.buscarIdsPorSimilaridade(idUsuario, termoNormalizado,
+                "%" + escapado + "%", escapado + "%", "% " + escapado + "%", limite);
+    }
+
+}
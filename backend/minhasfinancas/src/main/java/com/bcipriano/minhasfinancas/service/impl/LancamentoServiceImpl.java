@@ -1,57 +1,184 @@
 package com.bcipriano.minhasfinancas.service.impl;
 
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
 import com.bcipriano.minhasfinancas.model.entity.Lancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.AnoArquivadoRepository;
 import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.CategoriaService;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.IndiceDescricao;
 import com.bcipriano.minhasfinancas.service.LancamentoService;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import com.bcipriano.minhasfinancas.service.SaldoService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
 
+    public static final int TAMANHO_MAXIMO_PAGINA = 500;
+
+    public static final int LIMITE_MAXIMO_BUSCA = 100;
+
+    public static final int TAMANHO_LOTE_STATUS = 1000;
+
+    public static final int MAXIMO_STATUS_POR_FILTRO = 10 * TAMANHO_LOTE_STATUS;
+
+    private static final Pattern CODIGO_MOEDA = Pattern.compile("[A-Z]{3}");
+
     private LancamentoRepository repository;
 
+    private AnoArquivadoRepository anoArquivadoRepository;
+
+    private SaldoService saldoService;
+
+    private IndiceDescricao indiceDescricao;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private UsuarioService usuarioService;
+
+    private CotacaoService cotacaoService;
+
+    private CategoriaService categoriaService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int tentativasStatus;
+
+    private long tempoMaximoStatusMs;
+
     @Override
     public Optional<Lancamento> obterPorId(Long id) {
         return repository.findById(id);
     }
 
-    public LancamentoServiceImpl(LancamentoRepository repository) {
+    @Override
+    public Optional<Lancamento> obterPorIdComUsuario(Long id) {
+        return repository.obterComUsuario(id);
+    }
+
+    public LancamentoServiceImpl(LancamentoRepository repository, AnoArquivadoRepository anoArquivadoRepository,
+                                 SaldoService saldoService,
+                                 IndiceDescricao indiceDescricao, ApplicationEventPublisher eventPublisher,
+                                 UsuarioService usuarioService, CotacaoService cotacaoService,
+                                 CategoriaService categoriaService, PlatformTransactionManager transactionManager,
+                                 @Value("${minhasfinancas.lancamento.tentativas-status:5}") int tentativasStatus,
+                                 @Value("${minhasfinancas.lancamento.tempo-maximo-status-ms:1000}") long tempoMaximoStatusMs) {
         this.repository = repository;
+        this.anoArquivadoRepository = anoArquivadoRepository;
+        this.saldoService = saldoService;
+        this.indiceDescricao = indiceDescricao;
+        this.eventPublisher = eventPublisher;
+        this.usuarioService = usuarioService;
+        this.cotacaoService = cotacaoService;
+        this.categoriaService = categoriaService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tentativasStatus = tentativasStatus;
+        this.tempoMaximoStatusMs = tempoMaximoStatusMs;
     }
 
     @Override
     public void validar(Lancamento lancamento) {
-        if(lancamento.getDescricao() == null || lancamento.getDescricao().trim().equals("")) {
+        validarDescricao(lancamento.getDescricao());
+        validarMes(lancamento.getMes());
+        validarAno(lancamento.getAno());
+        validarAnoAtivo(lancamento.getAno());
+        if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null){
+            throw new RegraNegocioException("Informe um usuário!");
+        }
+        validarValor(lancamento.getValor());
+        validarMoeda(lancamento.getMoeda());
+        validarCotacao(lancamento);
+        validarTipo(lancamento.getTipo());
+        validarCategoria(lancamento);
+    }
+
+    private static void validarDescricao(String descricao) {
+        if(descricao == null || descricao.trim().equals("")) {
             throw new RegraNegocioException("Informe uma descrição válida!");
         }
-        if(lancamento.getMes() == null || lancamento.getMes() < 1 || lancamento.getMes() > 12){
+    }
+
+    private static void validarMes(Integer mes) {
+        if(mes == null || mes < 1 || mes > 12){
             throw new RegraNegocioException("Informe um mês válido!");
         }
+    }
 
-        if(lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
+    private static void validarAno(Integer ano) {
+        if(ano == null || ano.toString().length() != 4) {
             throw new RegraNegocioException("Informe um ano válido!");
         }
+    }
 
-        if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null){
-            throw new RegraNegocioException("Informe um usuário!");
+    private void validarAnoAtivo(Integer ano) {
+        if(anoArquivadoRepository.obterAnos().contains(ano)) {
+            throw new RegraNegocioException("Os lançamentos de " + ano + " estão arquivados e não podem ser alterados!");
         }
+    }
 
-        if(lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1 ){
+    private static void validarValor(BigDecimal valor) {
+        if(valor == null || valor.compareTo(BigDecimal.ZERO) < 1 ){
             throw new RegraNegocioException("Informe um valor válido!");
         }
+    }
+
+    private void validarMoeda(String moeda) {
+        if(moeda == null || !CODIGO_MOEDA.matcher(moeda).matches()) {
+            throw new RegraNegocioException("Informe uma moeda válida!");
+        }
+        if(!moeda.equals(Lancamento.MOEDA_PADRAO) && !cotacaoService.suporta(moeda)) {
+            throw new RegraNegocioException("Moeda sem cotação disponível: " + moeda);
+        }
+    }
+
+    private void validarCotacao(Lancamento lancamento) {
+        if(!cotacaoService.temCotacao(lancamento.getMoeda(), YearMonth.of(lancamento.getAno(), lancamento.getMes()))) {
+            throw new RegraNegocioException("Cotação indisponível: " + lancamento.getMoeda() + " em "
+                    + lancamento.getMes() + "/" + lancamento.getAno());
+        }
+    }
+
+    private void validarCategoria(Lancamento lancamento) {
+        if(lancamento.getIdCategoria() != null) {
+            categoriaService.validarDoUsuario(lancamento.getIdCategoria(), lancamento.getUsuario().getId());
+        }
+    }
 
-        if(lancamento.getTipo() == null){
+    private static void validarTipo(TipoLancamento tipo) {
+        if(tipo == null){
             throw new RegraNegocioException("Informe um tipo de lancamento!");
         }
     }
@@ -61,55 +188,308 @@ public class LancamentoServiceImpl implements LancamentoService {
     public Lancamento salvar(Lancamento lancamento) {
         this.validar(lancamento);
         lancamento.setStatus(StatusLancamento.PENDENTE);
-        return repository.save(lancamento);
+        Lancamento lancamentoSalvo = repository.save(lancamento);
+        eventPublisher.publishEvent(LancamentoAlteradoEvent.inclusao(LancamentoSnapshot.de(lancamentoSalvo)));
+        return lancamentoSalvo;
     }
 
     @Override
     @Transactional
     public Lancamento atualizar(Lancamento lancamento) {
         Objects.requireNonNull(lancamento.getId());
+        //A versão lida pelo chamador: sem ela o save trataria o lançamento como novo
+        Objects.requireNonNull(lancamento.getVersao());
         this.validar(lancamento);
-        return repository.save(lancamento);
+        Optional<LancamentoSnapshot> anterior = repository.obterSnapshot(lancamento.getId());
+        Lancamento lancamentoAtualizado = repository.save(lancamento);
+        eventPublisher.publishEvent(LancamentoAlteradoEvent.alteracao(
+                anterior.orElse(null), LancamentoSnapshot.de(lancamentoAtualizado)));
+        return lancamentoAtualizado;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Lancamento> atualizarParcial(Long id, LancamentoDTO alteracoes, Set<String> campos) {
+        Optional<Lancamento> encontrado = repository.findById(id);
+        if(!encontrado.isPresent()){
+            return encontrado;
+        }
+        Lancamento lancamento = encontrado.get();
+        if(campos.contains("versao") && !Objects.equals(alteracoes.getVersao(), lancamento.getVersao())){
+            throw new ObjectOptimisticLockingFailureException(Lancamento.class, id);
+        }
+
+        LancamentoSnapshot anterior = LancamentoSnapshot.de(lancamento);
+        for(String campo : campos){
+            switch(campo){
+                case "id":
+                    if(!id.equals(alteracoes.getId())){
+                        throw new RegraNegocioException("O id do lançamento não pode ser alterado!");
+                    }
+                    break;
+                case "versao":
+                    break;
+                case "descricao":
+                    validarDescricao(alteracoes.getDescricao());
+                    lancamento.setDescricao(alteracoes.getDescricao());
+                    break;
+                case "mes":
+                    validarMes(alteracoes.getMes());
+                    lancamento.setMes(alteracoes.getMes());
+                    break;
+                case "ano":
+                    validarAno(alteracoes.getAno());
+                    validarAnoAtivo(alteracoes.getAno());
+                    lancamento.setAno(alteracoes.getAno());
+                    break;
+                case "valor":
+                    validarValor(alteracoes.getValor());
+                    lancamento.setValor(alteracoes.getValor());
+                    break;
+                case "moeda":
+                    validarMoeda(alteracoes.getMoeda());
+                    lancamento.setMoeda(alteracoes.getMoeda());
+                    break;
+                case "tipo":
+                    lancamento.setTipo(converterEnum(TipoLancamento.class, alteracoes.getTipo(), "Informe um tipo de lancamento!"));
+                    break;
+                case "status":
+                    lancamento.setStatus(converterEnum(StatusLancamento.class, alteracoes.getStatus(), "Informe um status de lançamento!"));
+                    break;
+                case "categoria":
+                    lancamento.setIdCategoria(alteracoes.getCategoria());
+                    break;
+                case "usuario":
+                    if(!Objects.equals(alteracoes.getUsuario(), anterior.idUsuario())){
+                        if(alteracoes.getUsuario() == null){
+                            throw new RegraNegocioException("Informe um usuário!");
+                        }
+                        if(!usuarioService.obterPorId(alteracoes.getUsuario()).isPresent()){
+                            throw new RegraNegocioException("Usuario não encontrado para o Id informado.");
+                        }
+                        lancamento.setUsuario(usuarioService.obterReferencia(alteracoes.getUsuario()));
+                    }
+                    break;
+                default:
+                    throw new RegraNegocioException("Campo de lançamento desconhecido: " + campo);
+            }
+        }
+
+        LancamentoSnapshot atual = LancamentoSnapshot.de(lancamento);
+        if(!Objects.equals(atual.moeda(), anterior.moeda()) || !Objects.equals(atual.ano(), anterior.ano())
+                || !Objects.equals(atual.mes(), anterior.mes())){
+            validarCotacao(lancamento);
+        }
+        //Conferida depois do laço: a troca de dono também precisa levar uma categoria do novo usuário
+        if(!Objects.equals(atual.idCategoria(), anterior.idCategoria())
+                || !Objects.equals(atual.idUsuario(), anterior.idUsuario())){
+            validarCategoria(lancamento);
+        }
+        if(!atual.equals(anterior)){
+            repository.flush();
+            eventPublisher.publishEvent(LancamentoAlteradoEvent.alteracao(anterior, atual));
+        }
+        return Optional.of(lancamento);
+    }
+
+    private static <E extends Enum<E>> E converterEnum(Class<E> tipo, String valor, String mensagemAusente) {
+        if(valor == null){
+            throw new RegraNegocioException(mensagemAusente);
+        }
+        try {
+            return Enum.valueOf(tipo, valor);
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Valor inválido: " + valor);
+        }
     }
 
     @Override
     @Transactional
     public void deletar(Lancamento lancamento) {
         Objects.requireNonNull(lancamento.getId());
+        LancamentoSnapshot anterior = repository.obterSnapshot(lancamento.getId())
+                .orElseGet(() -> LancamentoSnapshot.de(lancamento));
         repository.delete(lancamento);
+        eventPublisher.publishEvent(LancamentoAlteradoEvent.exclusao(anterior));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-        //Método de filtragem do spring
-        Example example = Example.of(lancamentoFiltro, ExampleMatcher
-                .matching()
-                .withIgnoreCase()
-                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example);
+    public Slice<LancamentoListagem> buscar(Lancamento lancamentoFiltro, CursorLancamento cursor, int tamanho) {
+        if(lancamentoFiltro.getUsuario() == null || lancamentoFiltro.getUsuario().getId() == null){
+            throw new RegraNegocioException("Informe um usuário!");
+        }
+        if(tamanho < 1){
+            throw new RegraNegocioException("Informe um tamanho de página válido!");
+        }
+
+        String descricao = null;
+        if(lancamentoFiltro.getDescricao() != null && !lancamentoFiltro.getDescricao().trim().equals("")){
+            descricao = "%" + escaparLike(lancamentoFiltro.getDescricao().trim().toLowerCase()) + "%";
+        }
+
+        Long idUsuario = lancamentoFiltro.getUsuario().getId();
+        Pageable pagina = PageRequest.ofSize(Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        if(lancamentoFiltro.getAno() != null){
+            if(cursor != null && cursor.ano() > lancamentoFiltro.getAno()){
+                return new SliceImpl<>(List.of(), pagina, false);
+            }
+            if(cursor == null || cursor.ano() < lancamentoFiltro.getAno()){
+                return repository.buscarPrimeiraPaginaDoAno(idUsuario, lancamentoFiltro.getAno(),
+                        lancamentoFiltro.getMes(), descricao, pagina);
+            }
+            return repository.buscarPaginaDoAno(idUsuario, lancamentoFiltro.getAno(),
+                    lancamentoFiltro.getMes(), descricao, cursor.mes(), cursor.id(), pagina);
+        }
+
+        if(cursor == null){
+            return repository.buscarPrimeiraPagina(idUsuario, lancamentoFiltro.getMes(), descricao, pagina);
+        }
+        return repository.buscarPagina(idUsuario, lancamentoFiltro.getMes(), descricao,
+                cursor.ano(), cursor.mes(), cursor.id(), pagina);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public BigDecimal obterSaldoPorUsuario(Long id) {
-        BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.RECEITA);
-        BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.DESPESA);
+    public List<LancamentoListagem> buscarPorDescricao(Long idUsuario, String termo, int limite) {
+        if(termo == null || termo.trim().equals("")){
+            throw new RegraNegocioException("Informe um termo de busca!");
+        }
+        if(limite < 1){
+            throw new RegraNegocioException("Informe um limite válido!");
+        }
 
-        if(receitas == null){
-            receitas = BigDecimal.ZERO;
+        List<Long> ids = indiceDescricao.buscar(idUsuario, termo, Math.min(limite, LIMITE_MAXIMO_BUSCA));
+        if(ids.isEmpty()){
+            return List.of();
         }
-        if(despesas == null){
-            despesas = BigDecimal.ZERO;
+
+        //A consulta por ids não garante a ordem
+        Map<Long, Integer> posicoes = new HashMap<>();
+        for(int i = 0; i < ids.size(); i++){
+            posicoes.put(ids.get(i), i);
         }
+        return repository.obterListagens(ids).stream()
+                .sorted(Comparator.comparing(lancamento -> posicoes.get(lancamento.id())))
+                .collect(Collectors.toList());
+    }
 
-        return receitas.subtract(despesas);
+    private static String escaparLike(String valor) {
+        return valor.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public BigDecimal obterSaldoPorUsuario(Long id) {
+        return saldoService.obterSaldo(id);
+    }
+
+    @Override
+    public Map<String, BigDecimal> obterCotacoesDoSaldo(Long id) {
+        return saldoService.obterCotacoes(id);
+    }
+
+    @Override
+    @Transactional
     public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
         lancamento.setStatus(status);
         atualizar(lancamento);
     }
 
+    //Sem @Transactional: cada tentativa precisa de uma transação própria
+    @Override
+    public Optional<Lancamento> atualizarStatus(Long id, StatusLancamento status) {
+        if(status == null){
+            throw new RegraNegocioException("Informe um status de lançamento!");
+        }
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tempoMaximoStatusMs);
+        for(int tentativa = 1; ; tentativa++){
+            try {
+                return transactionTemplate.execute(transacao -> repository.obterComUsuario(id).map(lancamento -> {
+                    if(lancamento.getStatus() != status){
+                        LancamentoSnapshot anterior = LancamentoSnapshot.de(lancamento);
+                        lancamento.setStatus(status);
+                        repository.flush();
+                        eventPublisher.publishEvent(LancamentoAlteradoEvent.alteracao(anterior, anterior.comStatus(status)));
+                    }
+                    return lancamento;
+                }));
+            } catch (ConcurrencyFailureException e) {
+                long restante = prazo - System.nanoTime();
+                if(tentativa >= tentativasStatus || restante <= 0){
+                    throw e;
+                }
+                aguardarNovaTentativa(tentativa, restante);
+            }
+        }
+    }
+
+    private static void aguardarNovaTentativa(int tentativa, long restanteNanos) {
+        long espera = ThreadLocalRandom.current().nextLong(1, (5L << Math.min(tentativa, 5)) + 1);
+        try {
+            Thread.sleep(Math.min(espera, TimeUnit.NANOSECONDS.toMillis(restanteNanos) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido ao repetir a troca de status", e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int atualizarStatus(List<Long> ids, StatusLancamento status) {
+        if(ids == null || ids.isEmpty()){
+            throw new RegraNegocioException("Informe os lançamentos!");
+        }
+        if(ids.size() > TAMANHO_LOTE_STATUS){
+            throw new RegraNegocioException("Informe no máximo " + TAMANHO_LOTE_STATUS + " lançamentos!");
+        }
+        if(status == null){
+            throw new RegraNegocioException("Informe um status de lançamento!");
+        }
+        return aplicarStatus(repository.obterSnapshotsParaStatus(ids, status), status);
+    }
+
+    @Override
+    @Transactional
+    public int atualizarStatusPorFiltro(Lancamento lancamentoFiltro, StatusLancamento status) {
+        if(lancamentoFiltro.getUsuario() == null || lancamentoFiltro.getUsuario().getId() == null){
+            throw new RegraNegocioException("Informe um usuário!");
+        }
+        if(status == null){
+            throw new RegraNegocioException("Informe um status de lançamento!");
+        }
+        //Sem o ano a consulta bloquearia os lançamentos de todas as partições
+        if(lancamentoFiltro.getAno() == null){
+            throw new RegraNegocioException("Informe o ano dos lançamentos!");
+        }
+        List<LancamentoSnapshot> anteriores = repository.obterSnapshotsParaStatusDoAno(
+                lancamentoFiltro.getUsuario().getId(),
+                lancamentoFiltro.getAno(),
+                lancamentoFiltro.getMes(),
+                lancamentoFiltro.getTipo(),
+                status,
+                PageRequest.of(0, MAXIMO_STATUS_POR_FILTRO + 1));
+        if(anteriores.size() > MAXIMO_STATUS_POR_FILTRO){
+            throw new RegraNegocioException("O filtro alcança mais de " + MAXIMO_STATUS_POR_FILTRO
+                    + " lançamentos! Informe também o mês ou o tipo.");
+        }
+        return aplicarStatus(anteriores, status);
+    }
+
+    private int aplicarStatus(List<LancamentoSnapshot> anteriores, StatusLancamento status) {
+        if(anteriores.isEmpty()){
+            return 0;
+        }
+        List<Long> ids = anteriores.stream().map(LancamentoSnapshot::id).collect(Collectors.toList());
+        int atualizados = 0;
+        for(int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE_STATUS){
+            atualizados += repository.atualizarStatus(
+                    ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE_STATUS, ids.size())), status);
+        }
+        eventPublisher.publishEvent(LancamentoAlteradoEvent.alteracao(anteriores, anteriores.stream()
+                .map(anterior -> anterior.comStatus(status))
+                .collect(Collectors.toList())));
+        return atualizados;
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.repository.LeituraReativaRepository;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.LeituraReativaService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Service
+public class LeituraReativaServiceImpl implements LeituraReativaService {
+
+    public static final int LIMITE_MAXIMO = 10000;
+
+    private LeituraReativaRepository repository;
+
+    private CotacaoService cotacaoService;
+
+    public LeituraReativaServiceImpl(LeituraReativaRepository repository, CotacaoService cotacaoService) {
+        this.repository = repository;
+        this.cotacaoService = cotacaoService;
+    }
+
+    @Override
+    public Flux<LancamentoListagem> listarLancamentos(Long idUsuario, Integer ano, Integer mes, int limite) {
+        //Validação antes de montar o Flux: o erro chega ao chamador antes de a resposta começar
+        if(idUsuario == null){
+            throw new RegraNegocioException("Informe um usuário!");
+        }
+        if(limite < 1){
+            throw new RegraNegocioException("Informe um limite válido!");
+        }
+        return repository.listarLancamentos(idUsuario, ano, mes).take(Math.min(limite, LIMITE_MAXIMO), true);
+    }
+
+    @Override
+    public Mono<BigDecimal> obterSaldo(Long idUsuario) {
+        //Mesma regra do SaldoService: o saldo materializado, ou a soma dos lançamentos enquanto ele não existe.
+        //A conversão sai do event loop: o provedor de cotações pode bloquear quando a cotação não está no cache
+        return repository.existeUsuario(idUsuario)
+                .filter(Boolean::booleanValue)
+                .flatMap(existe -> repository.obterSaldoMaterializado(idUsuario)
+                        .filter(saldos -> !saldos.isEmpty())
+                        .switchIfEmpty(Mono.defer(() -> repository.calcularSaldo(idUsuario))))
+                .publishOn(Schedulers.boundedElastic())
+                .map(saldos -> cotacaoService.converter(saldos, LocalDate.now()));
+    }
+
+}
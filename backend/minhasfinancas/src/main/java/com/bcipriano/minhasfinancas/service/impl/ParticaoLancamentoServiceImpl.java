@@ -0,0 +1,108 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.ParticaoLancamentoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+
+/**
+ * Manutenção das partições anuais de lançamentos (PostgreSQL, esquema das migrações em db/migration).
+ * Antes de arquivar um ano, o ledger é drenado e as projeções conferidas: depois do arquivamento, os resumos
+ * mensais do ano são a única fonte dos totais dele.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "minhasfinancas.particoes.habilitado", havingValue = "true")
+public class ParticaoLancamentoServiceImpl implements ParticaoLancamentoService {
+
+    private AnoArquivadoRepository anoArquivadoRepository;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private ProjecaoLedgerService projecaoLedgerService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int anosAtivos;
+
+    public ParticaoLancamentoServiceImpl(AnoArquivadoRepository anoArquivadoRepository,
+                                         LancamentoRepository lancamentoRepository,
+                                         ProjecaoLedgerService projecaoLedgerService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${minhasfinancas.particoes.anos-ativos:0}") int anosAtivos) {
+        this.anoArquivadoRepository = anoArquivadoRepository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.projecaoLedgerService = projecaoLedgerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.anosAtivos = anosAtivos;
+    }
+
+    @Scheduled(cron = "${minhasfinancas.particoes.cron:-}")
+    public void manter() {
+        prepararParticoes();
+        if(anosAtivos > 0) {
+            arquivarAnosAntigos();
+        }
+    }
+
+    @Override
+    public void prepararParticoes() {
+        int anoAtual = Year.now().getValue();
+        for(int ano = anoAtual; ano <= anoAtual + 1; ano++) {
+            int anoParticao = ano;
+            if(Boolean.TRUE.equals(transactionTemplate.execute(status -> anoArquivadoRepository.criarParticao(anoParticao)))) {
+                log.info("Partição de lançamentos criada para o ano {}.", anoParticao);
+            }
+        }
+    }
+
+    @Override
+    public boolean arquivar(Integer ano) {
+        if(anosAtivos < 1) {
+            throw new RegraNegocioException("Arquivamento de lançamentos desabilitado!");
+        }
+        if(ano == null || ano >= primeiroAnoAtivo()) {
+            throw new RegraNegocioException("Somente anos anteriores a " + primeiroAnoAtivo() + " podem ser arquivados!");
+        }
+
+        //Eventos pendentes ou projeções divergentes do ano ficariam sem os lançamentos para corrigi-los
+        int aplicados;
+        do {
+            aplicados = projecaoLedgerService.processarPendentes();
+        } while(aplicados > 0);
+        projecaoLedgerService.verificarTodos();
+
+        boolean arquivado = Boolean.TRUE.equals(transactionTemplate.execute(status -> anoArquivadoRepository.arquivar(ano)));
+        if(arquivado) {
+            log.info("Lançamentos do ano {} arquivados em financas_arquivo.lancamento_{}.", ano, ano);
+        }
+        return arquivado;
+    }
+
+    @Override
+    public int arquivarAnosAntigos() {
+        int arquivados = 0;
+        //Lê só as partições anteriores à janela (e a padrão), que é onde os anos a arquivar estão
+        for(Integer ano : lancamentoRepository.obterAnosAnterioresA(primeiroAnoAtivo())) {
+            if(arquivar(ano)) {
+                arquivados++;
+            }
+        }
+        return arquivados;
+    }
+
+    private int primeiroAnoAtivo() {
+        return Year.now().getValue() - anosAtivos + 1;
+    }
+
+}
@@ -0,0 +1,335 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.entity.CheckpointLedger;
+import com.bcipriano.minhasfinancas.model.entity.EventoLedger;
+import com.bcipriano.minhasfinancas.model.entity.FalhaLedger;
+import com.bcipriano.minhasfinancas.model.repository.CheckpointLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.EventoLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.FalhaLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.VersaoLedgerRepository;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedger;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedgerService;
+import com.bcipriano.minhasfinancas.service.VersaoLedgerService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Consumidor do ledger: aplica os eventos gravados pelas escritas às projeções, um usuário por transação.
+ */
+@Slf4j
+@Service
+public class ProjecaoLedgerServiceImpl implements ProjecaoLedgerService {
+
+    private EventoLedgerRepository eventoRepository;
+
+    private CheckpointLedgerRepository checkpointRepository;
+
+    private FalhaLedgerRepository falhaRepository;
+
+    private VersaoLedgerRepository versaoRepository;
+
+    private VersaoLedgerService versaoLedgerService;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private List<ProjecaoLedger> projecoes;
+
+    private ObjectMapper objectMapper;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int tamanhoLote;
+
+    private int usuariosPorLote;
+
+    private Duration espera;
+
+    private Duration esperaMaxima;
+
+    private boolean habilitado;
+
+    private Duration retencao;
+
+    private final AtomicLong atrasoMillis = new AtomicLong();
+
+    private final AtomicLong suspensos = new AtomicLong();
+
+    private Counter eventosAplicados;
+
+    private Counter falhas;
+
+    private Timer duracaoLote;
+
+    public ProjecaoLedgerServiceImpl(EventoLedgerRepository eventoRepository,
+                                     CheckpointLedgerRepository checkpointRepository,
+                                     FalhaLedgerRepository falhaRepository,
+                                     VersaoLedgerRepository versaoRepository,
+                                     VersaoLedgerService versaoLedgerService,
+                                     LancamentoRepository lancamentoRepository,
+                                     List<ProjecaoLedger> projecoes,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${minhasfinancas.ledger.tamanho-lote:500}") int tamanhoLote,
+                                     @Value("${minhasfinancas.ledger.usuarios-por-lote:50}") int usuariosPorLote,
+                                     @Value("${minhasfinancas.ledger.falha.espera:30s}") Duration espera,
+                                     @Value("${minhasfinancas.ledger.falha.espera-maxima:1h}") Duration esperaMaxima,
+                                     @Value("${minhasfinancas.ledger.consumidor.habilitado:true}") boolean habilitado,
+                                     @Value("${minhasfinancas.ledger.retencao:7d}") Duration retencao) {
+        this.eventoRepository = eventoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.falhaRepository = falhaRepository;
+        this.versaoRepository = versaoRepository;
+        this.versaoLedgerService = versaoLedgerService;
+        this.lancamentoRepository = lancamentoRepository;
+        this.projecoes = projecoes;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        this.usuariosPorLote = usuariosPorLote;
+        this.espera = espera;
+        this.esperaMaxima = esperaMaxima;
+        this.habilitado = habilitado;
+        this.retencao = retencao;
+
+        Gauge.builder("minhasfinancas.ledger.pendentes", eventoRepository, EventoLedgerRepository::contarPendentes)
+                .description("Eventos do ledger ainda não aplicados às projeções")
+                .register(meterRegistry);
+        Gauge.builder("minhasfinancas.ledger.atraso", atrasoMillis, atraso -> atraso.get() / 1000.0)
+                .description("Idade do evento pendente mais antigo do ledger")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("minhasfinancas.ledger.usuarios.suspensos", suspensos, AtomicLong::get)
+                .description("Usuários fora dos lotes do ledger após falhas seguidas")
+                .register(meterRegistry);
+        this.eventosAplicados = Counter.builder("minhasfinancas.ledger.eventos.aplicados")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("minhasfinancas.ledger.falhas")
+                .description("Usuários cujos eventos falharam ao serem aplicados")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("minhasfinancas.ledger.lote")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${minhasfinancas.ledger.intervalo-ms:500}")
+    public void processarAgendado() {
+        if(!habilitado) {
+            return;
+        }
+        int aplicados;
+        do {
+            aplicados = processarPendentes();
+        } while(aplicados > 0);
+    }
+
+    @Override
+    public int processarPendentes() {
+        Instant agora = Instant.now();
+        List<EventoLedger> eventos = eventoRepository.obterPendentes(usuariosPorLote, tamanhoLote, agora);
+        suspensos.set(falhaRepository.contarSuspensos(agora));
+        atrasoMillis.set(eventos.stream()
+                .map(EventoLedger::getDataCriacao)
+                .min(Comparator.naturalOrder())
+                .map(maisAntigo -> Duration.between(maisAntigo, Instant.now()).toMillis())
+                .orElse(0L));
+        return duracaoLote.record(() -> aplicarPorUsuario(eventos));
+    }
+
+    @Override
+    public int reprocessar(long offset) {
+        int aplicados = 0;
+        long proximo = offset;
+        List<EventoLedger> eventos;
+        do {
+            eventos = eventoRepository.obterAPartirDe(proximo, tamanhoLote);
+            aplicados += aplicarPorUsuario(eventos);
+            if(!eventos.isEmpty()) {
+                proximo = eventos.get(eventos.size() - 1).getId() + 1;
+            }
+        } while(eventos.size() == tamanhoLote);
+        return aplicados;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long obterVersaoAplicada(Long idUsuario) {
+        return checkpointRepository.obterVersao(idUsuario).orElse(0L);
+    }
+
+    @Override
+    public void reconstruir(Long idUsuario) {
+        transactionTemplate.executeWithoutResult(status -> reconstruirBloqueado(idUsuario));
+    }
+
+    @Override
+    @Scheduled(cron = "${minhasfinancas.ledger.verificacao-cron:${minhasfinancas.saldo.verificacao-cron:-}}")
+    public int verificarTodos() {
+        int corrigidos = 0;
+        for(Long idUsuario : lancamentoRepository.obterIdsUsuariosComLancamentos()) {
+            try {
+                if(Boolean.TRUE.equals(transactionTemplate.execute(status -> corrigir(idUsuario)))) {
+                    log.warn("Projeções divergentes para o usuario {}, reconstruindo.", idUsuario);
+                    corrigidos++;
+                }
+            } catch (RuntimeException e) {
+                registrarFalha(idUsuario, e);
+            }
+        }
+        return corrigidos;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${minhasfinancas.ledger.limpeza-cron:-}")
+    public int removerEventosAplicados() {
+        return eventoRepository.removerAplicadosAntesDe(Instant.now().minus(retencao));
+    }
+
+    private int aplicarPorUsuario(List<EventoLedger> eventos) {
+        Map<Long, List<EventoLedger>> porUsuario = eventos.stream().collect(Collectors.groupingBy(
+                EventoLedger::getIdUsuario, LinkedHashMap::new, Collectors.toList()));
+        if(porUsuario.isEmpty()) {
+            return 0;
+        }
+        Set<Long> comFalha = falhaRepository.findAll().stream()
+                .map(FalhaLedger::getIdUsuario)
+                .collect(Collectors.toSet());
+        int aplicados = 0;
+        for(Map.Entry<Long, List<EventoLedger>> entrada : porUsuario.entrySet()) {
+            Long idUsuario = entrada.getKey();
+            try {
+                aplicados += transactionTemplate.execute(status -> {
+                    int aplicadosDoUsuario = aplicar(idUsuario, entrada.getValue());
+                    if(comFalha.contains(idUsuario)) {
+                        falhaRepository.remover(idUsuario);
+                    }
+                    return aplicadosDoUsuario;
+                });
+            } catch (RuntimeException e) {
+                registrarFalha(idUsuario, e);
+            }
+        }
+        eventosAplicados.increment(aplicados);
+        return aplicados;
+    }
+
+    private void registrarFalha(Long idUsuario, RuntimeException erro) {
+        falhas.increment();
+        FalhaLedger falha = transactionTemplate.execute(status -> {
+            FalhaLedger atual = falhaRepository.findById(idUsuario)
+                    .orElseGet(() -> FalhaLedger.builder().idUsuario(idUsuario).falhas(0).build());
+            atual.setFalhas(atual.getFalhas() + 1);
+            atual.setRetomarEm(Instant.now().plus(esperaApos(atual.getFalhas())));
+            atual.setUltimoErro(resumir(erro));
+            return falhaRepository.save(atual);
+        });
+        log.error("Falha {} ao aplicar o ledger do usuario {}; suspenso até {}.",
+                falha.getFalhas(), idUsuario, falha.getRetomarEm(), erro);
+    }
+
+    private Duration esperaApos(int falhasSeguidas) {
+        Duration proxima = espera.multipliedBy(1L << Math.min(falhasSeguidas - 1, 20));
+        return proxima.compareTo(esperaMaxima) > 0 ? esperaMaxima : proxima;
+    }
+
+    private String resumir(RuntimeException erro) {
+        String mensagem = String.valueOf(erro);
+        return mensagem.length() > 500 ? mensagem.substring(0, 500) : mensagem;
+    }
+
+    private int aplicar(Long idUsuario, List<EventoLedger> eventos) {
+        CheckpointLedger checkpoint = checkpointRepository.obterComBloqueio(idUsuario)
+                .orElseGet(() -> inicializar(idUsuario));
+
+        long proxima = checkpoint.getVersao() + 1;
+        List<LancamentoAlteradoEvent> alteracoes = new ArrayList<>();
+        for(EventoLedger evento : eventos.stream().sorted(Comparator.comparing(EventoLedger::getVersao)).toList()) {
+            if(evento.getVersao() < proxima) {
+                continue;
+            }
+            if(evento.getVersao() > proxima) {
+                break;
+            }
+            alteracoes.add(desserializar(evento));
+            proxima++;
+        }
+        if(alteracoes.isEmpty()) {
+            return 0;
+        }
+
+        LancamentoAlteradoEvent lote = LancamentoAlteradoEvent.juntar(alteracoes);
+        projecoes.forEach(projecao -> projecao.aplicar(lote));
+        checkpoint.setVersao(proxima - 1);
+        checkpointRepository.save(checkpoint);
+        return alteracoes.size();
+    }
+
+    private CheckpointLedger inicializar(Long idUsuario) {
+        long versao = versaoRepository.obterVersaoComBloqueio(idUsuario).orElse(0L);
+        Optional<CheckpointLedger> existente = checkpointRepository.obterComBloqueio(idUsuario);
+        if(existente.isPresent()) {
+            //Outro consumidor inicializou enquanto esperávamos o bloqueio
+            return existente.get();
+        }
+        projecoes.forEach(projecao -> projecao.reconstruir(idUsuario));
+        return checkpointRepository.save(CheckpointLedger.builder().idUsuario(idUsuario).versao(versao).build());
+    }
+
+    //O evento vazio muda a versão: os ETags de saldo já entregues deixam de valer
+    private void reconstruirBloqueado(Long idUsuario) {
+        versaoLedgerService.registrar(idUsuario, LancamentoAlteradoEvent.vazio());
+        long versao = versaoRepository.obterVersao(idUsuario).orElseThrow();
+        projecoes.forEach(projecao -> projecao.reconstruir(idUsuario));
+        CheckpointLedger checkpoint = checkpointRepository.obterComBloqueio(idUsuario)
+                .orElseGet(() -> CheckpointLedger.builder().idUsuario(idUsuario).build());
+        checkpoint.setVersao(versao);
+        checkpointRepository.save(checkpoint);
+    }
+
+    private boolean corrigir(Long idUsuario) {
+        versaoRepository.obterVersaoComBloqueio(idUsuario);
+        List<EventoLedger> pendentesDoUsuario = eventoRepository.obterPendentes(idUsuario);
+        if(!pendentesDoUsuario.isEmpty()) {
+            aplicar(idUsuario, pendentesDoUsuario);
+        }
+        if(projecoes.stream().allMatch(projecao -> projecao.verificar(idUsuario))) {
+            return false;
+        }
+        reconstruirBloqueado(idUsuario);
+        return true;
+    }
+
+    private LancamentoAlteradoEvent desserializar(EventoLedger evento) {
+        try {
+            return objectMapper.readValue(evento.getDados(), LancamentoAlteradoEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento " + evento.getId() + " do ledger ilegível.", e);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.service.ProvedorCotacao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Cotações lidas de um arquivo "moeda;data;valor" (minhasfinancas.cotacao.arquivo) na subida da aplicação.
+ * Substitui uma fonte externa em desenvolvimento e em instalações sem acesso a uma: em cada data vale a
+ * última cotação publicada até ela, como em fins de semana e feriados.
+ */
+@Service
+@ConditionalOnProperty(name = "minhasfinancas.cotacao.provedor", havingValue = "arquivo", matchIfMissing = true)
+public class ProvedorCotacaoArquivo implements ProvedorCotacao {
+
+    private final Map<String, NavigableMap<LocalDate, BigDecimal>> cotacoes = new HashMap<>();
+
+    public ProvedorCotacaoArquivo(@Value("${minhasfinancas.cotacao.arquivo:classpath:cotacoes.csv}") Resource arquivo) {
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            String conteudo;
+            int numero = 0;
+            while((conteudo = leitor.readLine()) != null) {
+                numero++;
+                if(conteudo.isBlank() || conteudo.startsWith("#") || conteudo.startsWith("moeda;")) {
+                    continue;
+                }
+                ler(conteudo, numero, arquivo);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o arquivo de cotações " + arquivo, e);
+        }
+    }
+
+    private void ler(String conteudo, int numero, Resource arquivo) {
+        String[] partes = conteudo.split(";");
+        try {
+            if(partes.length != 3) {
+                throw new IllegalArgumentException("esperado moeda;data;valor");
+            }
+            BigDecimal valor = new BigDecimal(partes[2].trim());
+            if(valor.signum() <= 0) {
+                throw new IllegalArgumentException("valor deve ser positivo");
+            }
+            cotacoes.computeIfAbsent(partes[0].trim(), moeda -> new TreeMap<>())
+                    .put(LocalDate.parse(partes[1].trim()), valor);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalStateException("Cotação inválida na linha " + numero + " de " + arquivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<BigDecimal> obterCotacao(String moeda, LocalDate data) {
+        NavigableMap<LocalDate, BigDecimal> daMoeda = cotacoes.get(moeda);
+        if(daMoeda == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(daMoeda.floorEntry(data)).map(Entry::getValue);
+    }
+
+    @Override
+    public boolean suporta(String moeda) {
+        return cotacoes.containsKey(moeda);
+    }
+
+}
@@ -0,0 +1,320 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.RecorrenciaRepository;
+import com.bcipriano.minhasfinancas.model.repository.ReservaRecorrenciaRepository;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.RecorrenciaService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Gera os lançamentos das recorrências vencidas em lotes, cada lote na sua transação e gravado com JDBC batch.
+ * A fila é dividida em partições por usuário; cada instância reserva uma partição por vez (reserva_recorrencia)
+ * e renova a reserva no início de cada lote, então uma partição nunca é gerada por duas instâncias ao mesmo tempo.
+ * Se a gravação de um lote falha, ele é refeito com uma transação por recorrência: só a que falha fica para trás.
+ */
+@Slf4j
+@Service
+public class RecorrenciaServiceImpl implements RecorrenciaService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private RecorrenciaRepository repository;
+
+    private ReservaRecorrenciaRepository reservaRepository;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private LancamentoService lancamentoService;
+
+    private UsuarioService usuarioService;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private int particoes;
+
+    private int tamanhoLote;
+
+    private Duration reserva;
+
+    private boolean habilitado;
+
+    private final String responsavel = UUID.randomUUID().toString();
+
+    public RecorrenciaServiceImpl(RecorrenciaRepository repository,
+                                  ReservaRecorrenciaRepository reservaRepository,
+                                  LancamentoRepository lancamentoRepository,
+                                  LancamentoService lancamentoService,
+                                  UsuarioService usuarioService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${minhasfinancas.recorrencia.particoes:16}") int particoes,
+                                  @Value("${minhasfinancas.recorrencia.tamanho-lote:500}") int tamanhoLote,
+                                  @Value("${minhasfinancas.recorrencia.reserva:5m}") Duration reserva,
+                                  @Value("${minhasfinancas.recorrencia.habilitado:true}") boolean habilitado) {
+        this.repository = repository;
+        this.reservaRepository = reservaRepository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.lancamentoService = lancamentoService;
+        this.usuarioService = usuarioService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.particoes = particoes;
+        this.tamanhoLote = tamanhoLote;
+        this.reserva = reserva;
+        this.habilitado = habilitado;
+
+        //Thread própria: a geração não ocupa a thread do agendador (consumidor do ledger) nem as das requisições.
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setQueueCapacity(0);
+        this.executor.setThreadNamePrefix("recorrencias-");
+        this.executor.initialize();
+    }
+
+    @Override
+    @Transactional
+    public Recorrencia salvar(Recorrencia recorrencia) {
+        if(recorrencia.getPeriodicidade() == null) {
+            throw new RegraNegocioException("Informe a periodicidade da recorrência!");
+        }
+        if(recorrencia.getDataInicio() == null) {
+            throw new RegraNegocioException("Informe a data de início da recorrência!");
+        }
+        if(recorrencia.getDataFim() != null && recorrencia.getDataFim().isBefore(recorrencia.getDataInicio())) {
+            throw new RegraNegocioException("A data de fim da recorrência não pode ser anterior ao início!");
+        }
+        lancamentoService.validar(criarLancamento(recorrencia,
+                Usuario.builder().id(recorrencia.getIdUsuario()).build(), recorrencia.getDataInicio()));
+        recorrencia.setOcorrencias(0);
+        recorrencia.setProximaOcorrencia(recorrencia.getDataInicio());
+        return repository.save(recorrencia);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Recorrencia> obterPorId(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Recorrencia> obterPorUsuario(Long idUsuario) {
+        return repository.findByIdUsuarioOrderById(idUsuario);
+    }
+
+    @Override
+    @Transactional
+    public void deletar(Recorrencia recorrencia) {
+        repository.delete(recorrencia);
+    }
+
+    @Scheduled(cron = "${minhasfinancas.recorrencia.cron:0 0 * * * *}")
+    public void agendar() {
+        if(!habilitado) {
+            return;
+        }
+        try {
+            executor.execute(() -> gerarOcorrencias(LocalDate.now()));
+        } catch (TaskRejectedException e) {
+            log.info("Geração de recorrências anterior ainda em andamento.");
+        }
+    }
+
+    @Override
+    public int gerarOcorrencias(LocalDate data) {
+        int gerados = 0;
+        //Cada instância começa de uma partição diferente e raramente disputa a mesma reserva
+        int inicio = ThreadLocalRandom.current().nextInt(particoes);
+        for(int i = 0; i < particoes; i++) {
+            int particao = (inicio + i) % particoes;
+            if(!reservar(particao)) {
+                continue;
+            }
+            try {
+                gerados += gerarParticao(particao, data);
+            } catch (DataAccessException | TransactionException e) {
+                //As recorrências do lote continuam vencidas e voltam na próxima execução
+                log.error("Falha ao gerar as recorrências da partição {}.", particao, e);
+            } finally {
+                transactionTemplate.executeWithoutResult(status -> reservaRepository.liberar(particao, responsavel));
+            }
+        }
+        return gerados;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    private boolean reservar(int particao) {
+        Instant agora = Instant.now();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            reservaRepository.inserirSeAusente(particao);
+            return reservaRepository.reservar(particao, responsavel, agora, agora.plus(reserva)) == 1;
+        }));
+    }
+
+    private int gerarParticao(int particao, LocalDate data) {
+        int gerados = 0;
+        long aposId = 0;
+        while(true) {
+            long cursor = aposId;
+            LoteGerado lote;
+            try {
+                lote = transactionTemplate.execute(status -> gerarLote(particao, data, cursor));
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Falha ao gravar um lote de recorrências da partição {}; gerando uma a uma.", particao, e);
+                lote = gerarUmaAUma(particao, data, cursor);
+            }
+            if(lote == null) {
+                log.warn("Reserva da partição {} de recorrências vencida e tomada por outra instância.", particao);
+                return gerados;
+            }
+            gerados += lote.gerados();
+            if(lote.lidas() < tamanhoLote) {
+                return gerados;
+            }
+            aposId = lote.ultimoId();
+        }
+    }
+
+    private LoteGerado gerarLote(int particao, LocalDate data, long aposId) {
+        if(reservaRepository.renovar(particao, responsavel, Instant.now().plus(reserva)) == 0) {
+            return null;
+        }
+        entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+        List<Recorrencia> vencidas = repository.obterVencidas(data, particoes, particao, aposId, tamanhoLote);
+        int gerados = gravar(vencidas, data);
+        long ultimoId = vencidas.isEmpty() ? aposId : vencidas.get(vencidas.size() - 1).getId();
+        return new LoteGerado(vencidas.size(), ultimoId, gerados);
+    }
+
+    //Mesmo lote, cada recorrência na própria transação; as que falham continuam vencidas para a próxima execução
+    private LoteGerado gerarUmaAUma(int particao, LocalDate data, long aposId) {
+        List<Long> ids = transactionTemplate.execute(status ->
+                repository.obterVencidas(data, particoes, particao, aposId, tamanhoLote).stream()
+                        .map(Recorrencia::getId)
+                        .collect(Collectors.toList()));
+        int gerados = 0;
+        for(Long id : ids) {
+            try {
+                Integer geradosRecorrencia = transactionTemplate.execute(status -> {
+                    if(reservaRepository.renovar(particao, responsavel, Instant.now().plus(reserva)) == 0) {
+                        return null;
+                    }
+                    return gravar(repository.findById(id).stream().toList(), data);
+                });
+                if(geradosRecorrencia == null) {
+                    return null;
+                }
+                gerados += geradosRecorrencia;
+            } catch (DataAccessException | TransactionException e) {
+                log.error("Recorrência {} não gerada.", id, e);
+            }
+        }
+        long ultimoId = ids.isEmpty() ? aposId : ids.get(ids.size() - 1);
+        return new LoteGerado(ids.size(), ultimoId, gerados);
+    }
+
+    private int gravar(List<Recorrencia> vencidas, LocalDate data) {
+        List<Lancamento> lancamentos = new ArrayList<>();
+        for(Recorrencia recorrencia : vencidas) {
+            try {
+                lancamentos.addAll(gerar(recorrencia, data));
+            } catch (RegraNegocioException e) {
+                log.warn("Recorrência {} não gerada: {}", recorrencia.getId(), e.getMessage());
+            }
+        }
+        if(!lancamentos.isEmpty()) {
+            List<Lancamento> salvos = lancamentoRepository.saveAll(lancamentos);
+            lancamentoRepository.flush();
+            eventPublisher.publishEvent(LancamentoAlteradoEvent.inclusao(salvos.stream()
+                    .map(LancamentoSnapshot::de)
+                    .collect(Collectors.toList())));
+        }
+        entityManager.clear();
+        return lancamentos.size();
+    }
+
+    //Todas as ocorrências vencidas da recorrência ou nenhuma: a recorrência só avança depois de validar cada uma
+    private List<Lancamento> gerar(Recorrencia recorrencia, LocalDate data) {
+        Usuario usuario = usuarioService.obterReferencia(recorrencia.getIdUsuario());
+        List<Lancamento> lancamentos = new ArrayList<>();
+        int numero = recorrencia.getOcorrencias();
+        LocalDate ocorrencia = recorrencia.getProximaOcorrencia();
+        while(ocorrencia != null && !ocorrencia.isAfter(data)) {
+            Lancamento lancamento = criarLancamento(recorrencia, usuario, ocorrencia);
+            lancamentoService.validar(lancamento);
+            lancamentos.add(lancamento);
+            numero++;
+            ocorrencia = ocorrencia(recorrencia, numero);
+        }
+        recorrencia.setOcorrencias(numero);
+        recorrencia.setProximaOcorrencia(ocorrencia);
+        return lancamentos;
+    }
+
+    private static LocalDate ocorrencia(Recorrencia recorrencia, int numero) {
+        LocalDate data = recorrencia.getPeriodicidade().ocorrencia(recorrencia.getDataInicio(), numero);
+        return recorrencia.getDataFim() != null && data.isAfter(recorrencia.getDataFim()) ? null : data;
+    }
+
+    private static Lancamento criarLancamento(Recorrencia recorrencia, Usuario usuario, LocalDate ocorrencia) {
+        return Lancamento.builder()
+                .descricao(recorrencia.getDescricao())
+                .mes(ocorrencia.getMonthValue())
+                .ano(ocorrencia.getYear())
+                .valor(recorrencia.getValor())
+                .moeda(recorrencia.getMoeda())
+                .tipo(recorrencia.getTipo())
+                .idCategoria(recorrencia.getIdCategoria())
+                .status(StatusLancamento.PENDENTE)
+                .usuario(usuario)
+                .build();
+    }
+
+    private record LoteGerado(int lidas, long ultimoId, int gerados) {
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensal;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedger;
+import com.bcipriano.minhasfinancas.service.ResumoService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class ResumoServiceImpl implements ResumoService, ProjecaoLedger {
+
+    private ResumoMensalRepository repository;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private CotacaoService cotacaoService;
+
+    public ResumoServiceImpl(ResumoMensalRepository repository, LancamentoRepository lancamentoRepository,
+                             CotacaoService cotacaoService) {
+        this.repository = repository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.cotacaoService = cotacaoService;
+    }
+
+    //Na moeda padrão: os totais de cada moeda são convertidos pela cotação do fim do mês (ou do dia, no mês
+    //corrente) e somados por (mes, tipo, status). São no máximo algumas dezenas de linhas por ano
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumoMensal> obterResumosDoAno(Long idUsuario, Integer ano) {
+        Map<Chave, ResumoMensal> convertidos = new LinkedHashMap<>();
+        LocalDate hoje = LocalDate.now();
+        for(ResumoMensal resumo : repository.findByIdUsuarioAndAno(idUsuario, ano)) {
+            LocalDate fimDoMes = YearMonth.of(resumo.getAno(), resumo.getMes()).atEndOfMonth();
+            BigDecimal total = cotacaoService.converter(resumo.getMoeda(), resumo.getTotal(),
+                    fimDoMes.isAfter(hoje) ? hoje : fimDoMes);
+            Chave chave = new Chave(idUsuario, resumo.getAno(), resumo.getMes(), resumo.getTipo(), resumo.getStatus(),
+                    Lancamento.MOEDA_PADRAO);
+            ResumoMensal convertido = convertidos.computeIfAbsent(chave, this::vazio);
+            convertido.setTotal(convertido.getTotal().add(total));
+            convertido.setQuantidade(convertido.getQuantidade() + resumo.getQuantidade());
+        }
+        return new ArrayList<>(convertidos.values());
+    }
+
+    @Override
+    @Transactional
+    public void aplicar(LancamentoAlteradoEvent evento) {
+        Map<Chave, ResumoMensal> variacoes = new LinkedHashMap<>();
+        evento.anteriores().forEach(anterior -> acumular(variacoes, anterior, -1));
+        evento.atuais().forEach(atual -> acumular(variacoes, atual, 1));
+
+        for(ResumoMensal variacao : variacoes.values()) {
+            if(variacao.getTotal().signum() == 0 && variacao.getQuantidade() == 0) {
+                continue;
+            }
+            repository.somar(variacao.getIdUsuario(), variacao.getAno(), variacao.getMes(),
+                    variacao.getTipo().name(), variacao.getStatus().name(),
+                    variacao.getMoeda(), variacao.getTotal(), variacao.getQuantidade());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reconstruir(Long idUsuario) {
+        repository.removerForaDeAnosArquivados(idUsuario);
+        List<ResumoMensal> resumos = lancamentoRepository.obterTotaisMensais(idUsuario).stream()
+                .map(total -> converter(idUsuario, total))
+                .collect(Collectors.toList());
+        repository.saveAll(resumos);
+    }
+
+    //Chaves zeradas (todos os lançamentos saíram delas) equivalem a chaves ausentes
+    @Override
+    @Transactional(readOnly = true)
+    public boolean verificar(Long idUsuario) {
+        Map<Chave, ResumoMensal> esperados = new LinkedHashMap<>();
+        lancamentoRepository.obterTotaisMensais(idUsuario).stream()
+                .map(total -> converter(idUsuario, total))
+                .forEach(resumo -> esperados.put(Chave.de(resumo), resumo));
+        Map<Chave, ResumoMensal> atuais = new LinkedHashMap<>();
+        repository.obterForaDeAnosArquivados(idUsuario).stream()
+                .filter(resumo -> resumo.getQuantidade() != 0 || resumo.getTotal().signum() != 0)
+                .forEach(resumo -> atuais.put(Chave.de(resumo), resumo));
+
+        if(!esperados.keySet().equals(atuais.keySet())) {
+            return false;
+        }
+        return esperados.entrySet().stream().allMatch(esperado -> {
+            ResumoMensal atual = atuais.get(esperado.getKey());
+            return atual.getTotal().compareTo(esperado.getValue().getTotal()) == 0
+                    && atual.getQuantidade().equals(esperado.getValue().getQuantidade());
+        });
+    }
+
+    private void acumular(Map<Chave, ResumoMensal> variacoes, LancamentoSnapshot lancamento, int sinal) {
+        if(lancamento == null || lancamento.idUsuario() == null || lancamento.ano() == null || lancamento.mes() == null
+                || lancamento.tipo() == null || lancamento.status() == null || lancamento.valor() == null) {
+            return;
+        }
+        Chave chave = new Chave(lancamento.idUsuario(), lancamento.ano(), lancamento.mes(),
+                lancamento.tipo(), lancamento.status(), lancamento.moedaOuPadrao());
+        ResumoMensal variacao = variacoes.computeIfAbsent(chave, this::vazio);
+        variacao.setTotal(variacao.getTotal().add(lancamento.valor().multiply(BigDecimal.valueOf(sinal))));
+        variacao.setQuantidade(variacao.getQuantidade() + sinal);
+    }
+
+    private ResumoMensal converter(Long idUsuario, TotalMensal total) {
+        return ResumoMensal.builder()
+                .idUsuario(idUsuario)
+                .ano(total.ano())
+                .mes(total.mes())
+                .tipo(total.tipo())
+                .status(total.status())
+                .moeda(total.moeda())
+                .total(total.total())
+                .quantidade(total.quantidade())
+                .build();
+    }
+
+    private ResumoMensal vazio(Chave chave) {
+        return ResumoMensal.builder()
+                .idUsuario(chave.idUsuario()).ano(chave.ano()).mes(chave.mes()).tipo(chave.tipo())
+                .status(chave.status()).moeda(chave.moeda())
+                .total(BigDecimal.ZERO).quantidade(0l).build();
+    }
+
+    private record Chave(Long idUsuario, Integer ano, Integer mes, TipoLancamento tipo, StatusLancamento status,
+                         String moeda) {
+
+        static Chave de(ResumoMensal resumo) {
+            return new Chave(resumo.getIdUsuario(), resumo.getAno(), resumo.getMes(), resumo.getTipo(),
+                    resumo.getStatus(), resumo.getMoeda());
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.entity.SaldoUsuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalPorTipo;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.bcipriano.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedger;
+import com.bcipriano.minhasfinancas.service.SaldoService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class SaldoServiceImpl implements SaldoService, ProjecaoLedger {
+
+    private SaldoUsuarioRepository repository;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private ResumoMensalRepository resumoMensalRepository;
+
+    private CotacaoService cotacaoService;
+
+    public SaldoServiceImpl(SaldoUsuarioRepository repository, LancamentoRepository lancamentoRepository,
+                            ResumoMensalRepository resumoMensalRepository, CotacaoService cotacaoService) {
+        this.repository = repository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.resumoMensalRepository = resumoMensalRepository;
+        this.cotacaoService = cotacaoService;
+    }
+
+    //Uma linha por moeda, convertida pela cotação do dia para a moeda padrão
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal obterSaldo(Long idUsuario) {
+        Collection<SaldoUsuario> saldos = repository.findByIdUsuario(idUsuario);
+        if(saldos.isEmpty()) {
+            //Usuário ainda sem saldo materializado: calcula a partir dos lançamentos
+            saldos = calcular(idUsuario).values();
+        }
+        return cotacaoService.converter(saldos.stream()
+                .collect(Collectors.toMap(SaldoUsuario::getMoeda, SaldoUsuario::getSaldo)), LocalDate.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> obterCotacoes(Long idUsuario) {
+        Set<String> moedas = repository.findByIdUsuario(idUsuario).stream()
+                .map(SaldoUsuario::getMoeda)
+                .collect(Collectors.toSet());
+        if(moedas.isEmpty()) {
+            moedas = calcular(idUsuario).keySet();
+        }
+        return cotacaoService.obterCotacoes(moedas, LocalDate.now());
+    }
+
+    @Override
+    @Transactional
+    public void aplicar(LancamentoAlteradoEvent evento) {
+        //Agrupa as variações por usuário e moeda para aplicar um único comando em cada saldo
+        Map<SaldoUsuario.Chave, SaldoUsuario> variacoes = new LinkedHashMap<>();
+        evento.anteriores().forEach(anterior -> acumular(variacoes, anterior, BigDecimal.ONE.negate()));
+        evento.atuais().forEach(atual -> acumular(variacoes, atual, BigDecimal.ONE));
+
+        for(SaldoUsuario variacao : variacoes.values()) {
+            if(variacao.getTotalReceitas().signum() == 0 && variacao.getTotalDespesas().signum() == 0) {
+                continue;
+            }
+            repository.somar(variacao.getIdUsuario(), variacao.getMoeda(),
+                    variacao.getTotalReceitas(), variacao.getTotalDespesas());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reconstruir(Long idUsuario) {
+        //Remove também as moedas que o usuário deixou de ter
+        repository.removerPorUsuario(idUsuario);
+        repository.saveAll(calcular(idUsuario).values());
+    }
+
+    //Moedas zeradas (todos os lançamentos saíram delas) equivalem a moedas ausentes
+    @Override
+    @Transactional(readOnly = true)
+    public boolean verificar(Long idUsuario) {
+        Map<String, SaldoUsuario> esperados = calcular(idUsuario);
+        List<SaldoUsuario> atuais = repository.findByIdUsuario(idUsuario);
+        if(atuais.isEmpty()) {
+            return false;
+        }
+        Map<String, SaldoUsuario> atuaisPorMoeda = new LinkedHashMap<>();
+        atuais.forEach(atual -> atuaisPorMoeda.put(atual.getMoeda(), atual));
+        Set<String> moedas = new LinkedHashSet<>(esperados.keySet());
+        moedas.addAll(atuaisPorMoeda.keySet());
+        for(String moeda : moedas) {
+            SaldoUsuario esperado = esperados.getOrDefault(moeda, vazio(idUsuario, moeda));
+            SaldoUsuario atual = atuaisPorMoeda.getOrDefault(moeda, vazio(idUsuario, moeda));
+            if(atual.getTotalReceitas().compareTo(esperado.getTotalReceitas()) != 0
+                    || atual.getTotalDespesas().compareTo(esperado.getTotalDespesas()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Anos arquivados entram pelos resumos mensais, que continuam materializados depois do arquivamento
+    private Map<String, SaldoUsuario> calcular(Long idUsuario) {
+        Map<String, SaldoUsuario> saldos = new LinkedHashMap<>();
+        List<TotalPorTipo> totais = new ArrayList<>(lancamentoRepository.obterTotaisPorTipo(idUsuario));
+        totais.addAll(resumoMensalRepository.obterTotaisArquivadosPorTipo(idUsuario));
+        for(TotalPorTipo total : totais) {
+            SaldoUsuario saldo = saldos.computeIfAbsent(total.moeda(), moeda -> vazio(idUsuario, moeda));
+            if(total.tipo() == TipoLancamento.RECEITA) {
+                saldo.setTotalReceitas(saldo.getTotalReceitas().add(total.total()));
+            } else if(total.tipo() == TipoLancamento.DESPESA) {
+                saldo.setTotalDespesas(saldo.getTotalDespesas().add(total.total()));
+            }
+        }
+        return saldos;
+    }
+
+    private void acumular(Map<SaldoUsuario.Chave, SaldoUsuario> variacoes, LancamentoSnapshot lancamento, BigDecimal sinal) {
+        if(lancamento == null || lancamento.idUsuario() == null
+                || lancamento.valor() == null || lancamento.tipo() == null) {
+            return;
+        }
+        SaldoUsuario.Chave chave = new SaldoUsuario.Chave(lancamento.idUsuario(), lancamento.moedaOuPadrao());
+        SaldoUsuario variacao = variacoes.computeIfAbsent(chave, c -> vazio(c.getIdUsuario(), c.getMoeda()));
+        BigDecimal valor = lancamento.valor().multiply(sinal);
+        if(lancamento.tipo() == TipoLancamento.RECEITA) {
+            variacao.setTotalReceitas(variacao.getTotalReceitas().add(valor));
+        } else {
+            variacao.setTotalDespesas(variacao.getTotalDespesas().add(valor));
+        }
+    }
+
+    private SaldoUsuario vazio(Long idUsuario, String moeda) {
+        return SaldoUsuario.builder()
+                .idUsuario(idUsuario)
+                .moeda(moeda)
+                .totalReceitas(BigDecimal.ZERO)
+                .totalDespesas(BigDecimal.ZERO)
+                .build();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.service.SenhaService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+
+@Service
+public class SenhaServiceImpl implements SenhaService {
+
+    private static final Pattern FORMATO_BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private BCryptPasswordEncoder encoder;
+
+    private ThreadPoolTaskExecutor executor;
+
+    public SenhaServiceImpl(@Value("${minhasfinancas.senha.custo:10}") int custo,
+                            @Value("${minhasfinancas.senha.threads:0}") int threads,
+                            @Value("${minhasfinancas.senha.fila:256}") int fila) {
+        this.encoder = new BCryptPasswordEncoder(custo);
+
+        //Uma thread por núcleo basta: o trabalho é só CPU. A fila limitada recusa o excesso em vez de acumular
+        int tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(tamanho);
+        this.executor.setMaxPoolSize(tamanho);
+        this.executor.setQueueCapacity(fila);
+        this.executor.setThreadNamePrefix("hash-senha-");
+        this.executor.initialize();
+    }
+
+    @Override
+    public String gerarHash(String senha) {
+        return encoder.encode(senha);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verificar(String senha, String senhaArmazenada) {
+        if(senha == null || senhaArmazenada == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> confere(senha, senhaArmazenada), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean precisaAtualizar(String senhaArmazenada) {
+        return !ehHash(senhaArmazenada) || encoder.upgradeEncoding(senhaArmazenada);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    private boolean confere(String senha, String senhaArmazenada) {
+        if(ehHash(senhaArmazenada)) {
+            return encoder.matches(senha, senhaArmazenada);
+        }
+        //Cadastro anterior ao hash: comparação em tempo constante com o texto puro
+        return MessageDigest.isEqual(senha.getBytes(StandardCharsets.UTF_8),
+                senhaArmazenada.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean ehHash(String senhaArmazenada) {
+        return senhaArmazenada != null && FORMATO_BCRYPT.matcher(senhaArmazenada).matches();
+    }
+
+}
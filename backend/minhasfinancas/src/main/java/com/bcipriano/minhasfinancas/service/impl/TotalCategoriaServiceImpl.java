@@ -0,0 +1,161 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensalCategoria;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.TotalCategoriaRepository;
+import com.bcipriano.minhasfinancas.service.CotacaoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedger;
+import com.bcipriano.minhasfinancas.service.TotalCategoriaService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Totais por categoria mantidos a partir do ledger, no mesmo esquema do ResumoServiceImpl: cada evento vira
+ * uma variação por chave, e a leitura só soma as poucas linhas do período, sem percorrer os lançamentos.
+ * Lançamentos sem categoria ficam fora do agregado.
+ */
+@Service
+public class TotalCategoriaServiceImpl implements TotalCategoriaService, ProjecaoLedger {
+
+    private TotalCategoriaRepository repository;
+
+    private LancamentoRepository lancamentoRepository;
+
+    private CotacaoService cotacaoService;
+
+    public TotalCategoriaServiceImpl(TotalCategoriaRepository repository, LancamentoRepository lancamentoRepository,
+                                     CotacaoService cotacaoService) {
+        this.repository = repository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.cotacaoService = cotacaoService;
+    }
+
+    //Cada moeda convertida pela cotação do fim do mês (ou do dia, no mês corrente), como nos resumos mensais
+    @Override
+    @Transactional(readOnly = true)
+    public List<TotalCategoria> obterTotais(Long idUsuario, Integer ano, Integer mes) {
+        Map<Chave, TotalCategoria> convertidos = new LinkedHashMap<>();
+        LocalDate hoje = LocalDate.now();
+        for(TotalCategoria total : repository.obterDoPeriodo(idUsuario, ano, mes)) {
+            LocalDate fimDoMes = YearMonth.of(total.getAno(), total.getMes()).atEndOfMonth();
+            BigDecimal valor = cotacaoService.converter(total.getMoeda(), total.getTotal(),
+                    fimDoMes.isAfter(hoje) ? hoje : fimDoMes);
+            Chave chave = new Chave(idUsuario, total.getAno(), total.getMes(), total.getIdCategoria(), total.getTipo(),
+                    total.getStatus(), Lancamento.MOEDA_PADRAO);
+            TotalCategoria convertido = convertidos.computeIfAbsent(chave, this::vazio);
+            convertido.setTotal(convertido.getTotal().add(valor));
+            convertido.setQuantidade(convertido.getQuantidade() + total.getQuantidade());
+        }
+        return new ArrayList<>(convertidos.values());
+    }
+
+    @Override
+    @Transactional
+    public void aplicar(LancamentoAlteradoEvent evento) {
+        Map<Chave, TotalCategoria> variacoes = new LinkedHashMap<>();
+        evento.anteriores().forEach(anterior -> acumular(variacoes, anterior, -1));
+        evento.atuais().forEach(atual -> acumular(variacoes, atual, 1));
+
+        for(TotalCategoria variacao : variacoes.values()) {
+            if(variacao.getTotal().signum() == 0 && variacao.getQuantidade() == 0) {
+                continue;
+            }
+            repository.somar(variacao.getIdUsuario(), variacao.getAno(), variacao.getMes(),
+                    variacao.getIdCategoria(), variacao.getTipo().name(), variacao.getStatus().name(),
+                    variacao.getMoeda(), variacao.getTotal(), variacao.getQuantidade());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reconstruir(Long idUsuario) {
+        //Os totais de anos arquivados ficam: os lançamentos deles não estão mais na tabela
+        repository.removerForaDeAnosArquivados(idUsuario);
+        List<TotalCategoria> totais = lancamentoRepository.obterTotaisMensaisPorCategoria(idUsuario).stream()
+                .map(total -> converter(idUsuario, total))
+                .collect(Collectors.toList());
+        repository.saveAll(totais);
+    }
+
+    //Chaves zeradas (todos os lançamentos saíram delas) equivalem a chaves ausentes
+    @Override
+    @Transactional(readOnly = true)
+    public boolean verificar(Long idUsuario) {
+        Map<Chave, TotalCategoria> esperados = new LinkedHashMap<>();
+        lancamentoRepository.obterTotaisMensaisPorCategoria(idUsuario).stream()
+                .map(total -> converter(idUsuario, total))
+                .forEach(total -> esperados.put(Chave.de(total), total));
+        Map<Chave, TotalCategoria> atuais = new LinkedHashMap<>();
+        repository.obterForaDeAnosArquivados(idUsuario).stream()
+                .filter(total -> total.getQuantidade() != 0 || total.getTotal().signum() != 0)
+                .forEach(total -> atuais.put(Chave.de(total), total));
+
+        if(!esperados.keySet().equals(atuais.keySet())) {
+            return false;
+        }
+        return esperados.entrySet().stream().allMatch(esperado -> {
+            TotalCategoria atual = atuais.get(esperado.getKey());
+            return atual.getTotal().compareTo(esperado.getValue().getTotal()) == 0
+                    && atual.getQuantidade().equals(esperado.getValue().getQuantidade());
+        });
+    }
+
+    private void acumular(Map<Chave, TotalCategoria> variacoes, LancamentoSnapshot lancamento, int sinal) {
+        if(lancamento == null || lancamento.idCategoria() == null || lancamento.idUsuario() == null
+                || lancamento.ano() == null || lancamento.mes() == null || lancamento.tipo() == null
+                || lancamento.status() == null || lancamento.valor() == null) {
+            return;
+        }
+        Chave chave = new Chave(lancamento.idUsuario(), lancamento.ano(), lancamento.mes(), lancamento.idCategoria(),
+                lancamento.tipo(), lancamento.status(), lancamento.moedaOuPadrao());
+        TotalCategoria variacao = variacoes.computeIfAbsent(chave, this::vazio);
+        variacao.setTotal(variacao.getTotal().add(lancamento.valor().multiply(BigDecimal.valueOf(sinal))));
+        variacao.setQuantidade(variacao.getQuantidade() + sinal);
+    }
+
+    private TotalCategoria converter(Long idUsuario, TotalMensalCategoria total) {
+        return TotalCategoria.builder()
+                .idUsuario(idUsuario)
+                .ano(total.ano())
+                .mes(total.mes())
+                .idCategoria(total.idCategoria())
+                .tipo(total.tipo())
+                .status(total.status())
+                .moeda(total.moeda())
+                .total(total.total())
+                .quantidade(total.quantidade())
+                .build();
+    }
+
+    private TotalCategoria vazio(Chave chave) {
+        return TotalCategoria.builder()
+                .idUsuario(chave.idUsuario()).ano(chave.ano()).mes(chave.mes()).idCategoria(chave.idCategoria())
+                .tipo(chave.tipo()).status(chave.status()).moeda(chave.moeda())
+                .total(BigDecimal.ZERO).quantidade(0l).build();
+    }
+
+    private record Chave(Long idUsuario, Integer ano, Integer mes, Long idCategoria, TipoLancamento tipo,
+                         StatusLancamento status, String moeda) {
+
+        static Chave de(TotalCategoria total) {
+            return new Chave(total.getIdUsuario(), total.getAno(), total.getMes(), total.getIdCategoria(),
+                    total.getTipo(), total.getStatus(), total.getMoeda());
+        }
+    }
+
+}
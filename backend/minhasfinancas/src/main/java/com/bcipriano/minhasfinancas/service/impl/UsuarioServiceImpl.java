@@ -3,49 +3,160 @@ package com.bcipriano.minhasfinancas.service.impl;
 import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
 import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
+import com.bcipriano.minhasfinancas.service.SenhaService;
 import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
 
+    public static final String CACHE_USUARIOS = "usuarios";
+
     private UsuarioRepository repository;
 
+    private SenhaService senhaService;
+
+    //As threads de hash são só para CPU: a regravação da senha vai para o executor da aplicação
+    private Executor executorEscritas;
+
+    //E-mails sem cadastro: tentativas repetidas são recusadas sem ir à base
+    private Cache<String, Boolean> emailsDesconhecidos;
+
+    private CacheManager cacheManager;
+
+    //Usuários inexistentes não são guardados, para que um cadastro novo seja visto imediatamente
     @Override
-    public Optional<Usuario> obterPorId(Long id) {
-        return repository.findById(id);
+    @Cacheable(cacheNames = CACHE_USUARIOS, unless = "#result == null")
+    public Optional<UsuarioListagem> obterPorId(Long id) {
+        return repository.findById(id).map(UsuarioListagem::de);
+    }
+
+    @Override
+    public Usuario obterReferencia(Long id) {
+        return repository.getReferenceById(id);
     }
 
     @Autowired
-    public UsuarioServiceImpl(UsuarioRepository repository){
+    public UsuarioServiceImpl(UsuarioRepository repository, SenhaService senhaService,
+                              @Qualifier("applicationTaskExecutor") Executor executorEscritas,
+                              CacheManager cacheManager,
+                              @Value("${minhasfinancas.autenticacao.desconhecidos.max:10000}") long maximoDesconhecidos,
+                              @Value("${minhasfinancas.autenticacao.desconhecidos.ttl-segundos:60}") long ttlDesconhecidos){
         this.repository = repository;
+        this.senhaService = senhaService;
+        this.executorEscritas = executorEscritas;
+        this.cacheManager = cacheManager;
+        this.emailsDesconhecidos = Caffeine.newBuilder()
+                .maximumSize(maximoDesconhecidos)
+                .expireAfterWrite(Duration.ofSeconds(ttlDesconhecidos))
+                .build();
     }
 
     @Override
     public Usuario autenticar(String email, String senha) {
+        try {
+            return autenticarAsync(email, senha).join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Usuario> autenticarAsync(String email, String senha) {
+        if(email != null && emailsDesconhecidos.getIfPresent(email) != null) {
+            return CompletableFuture.failedFuture(new ErroAutenticacao("Usuário não encontrado!"));
+        }
+
         Optional<Usuario> usuario = repository.findByEmail(email);
 
         if(!usuario.isPresent()) {
-            throw new ErroAutenticacao("Usuário não encontrado!");
+            if(email != null) {
+                emailsDesconhecidos.put(email, Boolean.TRUE);
+            }
+            return CompletableFuture.failedFuture(new ErroAutenticacao("Usuário não encontrado!"));
         }
 
-        if(!usuario.get().getSenha().equals(senha)) {
-            throw new ErroAutenticacao("Senha inválida!");
-        }
+        Usuario usuarioEncontrado = usuario.get();
+        return senhaService.verificar(senha, usuarioEncontrado.getSenha()).thenApply(confere -> {
+            if(!confere) {
+                throw new ErroAutenticacao("Senha inválida!");
+            }
+            if(senhaService.precisaAtualizar(usuarioEncontrado.getSenha())) {
+                atualizarHash(usuarioEncontrado, senhaService.gerarHash(senha));
+            }
+            return usuarioEncontrado;
+        });
+    }
 
-        return usuario.get();
+    //Regrava a senha com o hash atual sem esperar pela base; o login não falha se a regravação falhar
+    private void atualizarHash(Usuario usuario, String hash) {
+        //Cópia: a instância encontrada é devolvida a quem autenticou
+        Usuario atualizado = new Usuario(usuario.getId(), usuario.getNome(), usuario.getEmail(), hash, usuario.getVersao());
+        try {
+            executorEscritas.execute(() -> {
+                try {
+                    repository.save(atualizado);
+                    cacheManager.getCache(CACHE_USUARIOS).evict(usuario.getId());
+                } catch (DataAccessException e) {
+                    log.warn("Falha ao atualizar o hash da senha do usuario {}", usuario.getId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Regravação do hash da senha do usuario {} recusada pelo executor", usuario.getId(), e);
+        }
     }
 
     @Override
     @Transactional //Vai criar na base de dados uma transação, salvar e commitar
     public Usuario salvarUsuario(Usuario usuario) {
         validarEmail(usuario.getEmail());
-        return repository.save(usuario);
+        if(usuario.getSenha() != null) {
+            usuario.setSenha(senhaService.gerarHash(usuario.getSenha()));
+        }
+        Usuario usuarioSalvo = repository.save(usuario);
+        esquecerEmailDesconhecido(usuario.getEmail());
+        return usuarioSalvo;
+    }
+
+    //Remove agora e de novo após o commit, para que um login concorrente não volte a marcar o e-mail
+    private void esquecerEmailDesconhecido(String email) {
+        if(email == null) {
+            return;
+        }
+        emailsDesconhecidos.invalidate(email);
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailsDesconhecidos.invalidate(email);
+                }
+            });
+        }
     }
 
     @Override
@@ -0,0 +1,69 @@
+package com.bcipriano.minhasfinancas.service.impl;
+
+import com.bcipriano.minhasfinancas.model.repository.EventoLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.VersaoLedgerRepository;
+import com.bcipriano.minhasfinancas.service.VersaoLedgerService;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+public class VersaoLedgerServiceImpl implements VersaoLedgerService {
+
+    private VersaoLedgerRepository repository;
+
+    private EventoLedgerRepository eventoRepository;
+
+    private ObjectMapper objectMapper;
+
+    public VersaoLedgerServiceImpl(VersaoLedgerRepository repository, EventoLedgerRepository eventoRepository,
+                                   ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.eventoRepository = eventoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    //Usuário sem nenhuma escrita registrada fica na versão 0
+    @Override
+    @Transactional(readOnly = true)
+    public long obterVersao(Long idUsuario) {
+        return repository.obterVersao(idUsuario).orElse(0L);
+    }
+
+    @Override
+    @Transactional
+    public void incrementar(Long idUsuario) {
+        repository.incrementar(idUsuario);
+    }
+
+    @Override
+    @Transactional
+    public void registrar(Long idUsuario, LancamentoAlteradoEvent alteracoes) {
+        incrementar(idUsuario);
+        eventoRepository.registrar(idUsuario, serializar(alteracoes), Instant.now());
+    }
+
+    //A escrita só grava a versão e o evento de cada usuário: as projeções ficam com o consumidor do ledger
+    @EventListener
+    @Transactional
+    public void aoAlterarLancamento(LancamentoAlteradoEvent evento) {
+        //Em ordem de id, para que escritas em lote não se bloqueiem em ciclo
+        for(Long idUsuario : evento.usuarios()) {
+            registrar(idUsuario, evento.doUsuario(idUsuario));
+        }
+    }
+
+    private String serializar(LancamentoAlteradoEvent alteracoes) {
+        try {
+            return objectMapper.writeValueAsString(alteracoes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível gravar o evento no ledger.", e);
+        }
+    }
+
+}
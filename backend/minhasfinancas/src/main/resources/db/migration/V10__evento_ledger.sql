@@ -0,0 +1,17 @@
+-- Outbox das escritas de lançamentos: um evento por usuário e versão, aplicado às projeções pelo consumidor
+-- do ledger. O id é o offset global
+create table financas.evento_ledger (
+    id bigserial not null primary key,
+    id_usuario bigint not null,
+    versao bigint not null,
+    dados text,
+    data_criacao timestamp(6) with time zone not null,
+    constraint uk_evento_ledger unique (id_usuario, versao)
+);
+
+-- Última versão de cada usuário já aplicada às projeções. Sem linha, o consumidor monta as projeções
+-- do usuário a partir dos lançamentos
+create table financas.checkpoint_ledger (
+    id_usuario bigint not null primary key,
+    versao bigint not null
+);
@@ -0,0 +1,3 @@
+-- Controle otimista (@Version) de lançamentos e usuários; as linhas existentes começam na versão 0
+alter table financas.usuario add column versao bigint not null default 0;
+alter table financas.lancamento add column versao bigint not null default 0;
@@ -0,0 +1,100 @@
+-- Lançamentos particionados por ano: cada ano em uma tabela própria, com os próprios índices, vacuum e
+-- estatísticas. Consultas com "ano = ?" leem só a partição do ano. A chave primária precisa conter a coluna
+-- de partição; o id continua único pela lancamento_seq.
+
+alter table financas.lancamento rename to lancamento_legado;
+drop index financas.idx_lancamento_usuario_ano_mes;
+drop index financas.idx_lancamento_descricao_trgm;
+
+create table financas.lancamento (
+    id bigint not null,
+    descricao varchar(100) not null,
+    mes integer not null,
+    ano integer not null,
+    valor numeric(16, 2) not null,
+    tipo varchar(20) not null check (tipo in ('RECEITA', 'DESPESA')),
+    status varchar(20) not null check (status in ('PENDENTE', 'CANCELADO', 'EFETIVADO')),
+    id_usuario bigint not null,
+    data_cadastro date default current_date,
+    versao bigint not null default 0,
+    constraint pk_lancamento primary key (id, ano),
+    constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+) partition by range (ano);
+
+-- Criados no pai, replicados em cada partição (atual e futuras)
+create index idx_lancamento_usuario_ano_mes on financas.lancamento (id_usuario, ano, mes, id);
+create index idx_lancamento_descricao_trgm on financas.lancamento using gin (descricao public.gin_trgm_ops);
+
+-- Anos sem partição própria; a partição do ano, quando criada, leva as linhas dele
+create table financas.lancamento_padrao partition of financas.lancamento default;
+
+create or replace function financas.criar_particao_lancamento(ano_particao integer) returns boolean
+language plpgsql as $$
+declare
+    particao text := 'lancamento_' || ano_particao;
+begin
+    if to_regclass('financas.' || particao) is not null then
+        return false;
+    end if;
+    -- Sem escritas na partição padrão até o attach conferir que o ano não ficou nela
+    lock table financas.lancamento_padrao in exclusive mode;
+    execute format('create table financas.%I (like financas.lancamento including defaults including constraints)', particao);
+    execute format('insert into financas.%I select * from financas.lancamento_padrao where ano = $1', particao)
+        using ano_particao;
+    delete from financas.lancamento_padrao where ano = ano_particao;
+    execute format('alter table financas.%I add constraint %I check (ano >= %s and ano < %s)',
+        particao, particao || '_ano', ano_particao, ano_particao + 1);
+    execute format('alter table financas.lancamento attach partition financas.%I for values from (%s) to (%s)',
+        particao, ano_particao, ano_particao + 1);
+    return true;
+end $$;
+
+do $$
+declare
+    ano_particao integer;
+begin
+    for ano_particao in
+        select distinct l.ano from financas.lancamento_legado l
+        union select extract(year from current_date)::integer
+        union select extract(year from current_date)::integer + 1
+    loop
+        perform financas.criar_particao_lancamento(ano_particao);
+    end loop;
+end $$;
+
+insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro, versao)
+select id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro, versao
+from financas.lancamento_legado;
+
+drop table financas.lancamento_legado;
+
+analyze financas.lancamento;
+
+-- Anos frios: a partição sai do pai para o esquema financas_arquivo (pode ir para backup e ser removida).
+-- Os resumos mensais do ano ficam como estão e passam a ser a fonte do saldo desse ano
+create schema if not exists financas_arquivo;
+
+create table financas.ano_arquivado (
+    ano integer not null primary key,
+    data_arquivamento timestamp(6) with time zone not null default now()
+);
+
+create or replace function financas.arquivar_ano_lancamento(ano_particao integer) returns boolean
+language plpgsql as $$
+declare
+    particao text := 'lancamento_' || ano_particao;
+begin
+    if exists (select 1 from financas.ano_arquivado a where a.ano = ano_particao) then
+        return false;
+    end if;
+    -- Traz para a partição do ano as linhas que ainda estejam na padrão
+    perform financas.criar_particao_lancamento(ano_particao);
+    execute format('alter table financas.lancamento detach partition financas.%I', particao);
+    execute format('alter table financas.%I set schema financas_arquivo', particao);
+    -- Partição vazia no lugar: escritas no ano arquivado falham em vez de cair na partição padrão
+    execute format('create table financas.%I partition of financas.lancamento for values from (%s) to (%s)',
+        particao, ano_particao, ano_particao + 1);
+    execute format('alter table financas.%I add constraint %I check (false)', particao, particao || '_arquivado');
+    insert into financas.ano_arquivado (ano) values (ano_particao);
+    return true;
+end $$;
@@ -0,0 +1,13 @@
+-- Moeda (ISO 4217) de cada lançamento. Tudo o que já existe estava em BRL, a moeda padrão; com default
+-- constante o PostgreSQL só registra o valor no catálogo, sem reescrever as partições. As partições já
+-- arquivadas em financas_arquivo ficam sem a coluna: os saldos desses anos vêm dos resumos mensais
+alter table financas.lancamento add column moeda varchar(3) not null default 'BRL';
+
+-- Saldo e resumos passam a ser por moeda; a conversão para a moeda padrão acontece na leitura
+alter table financas.saldo_usuario add column moeda varchar(3) not null default 'BRL';
+alter table financas.saldo_usuario drop constraint saldo_usuario_pkey;
+alter table financas.saldo_usuario add constraint saldo_usuario_pkey primary key (id_usuario, moeda);
+
+alter table financas.resumo_mensal add column moeda varchar(3) not null default 'BRL';
+alter table financas.resumo_mensal drop constraint uk_resumo_mensal;
+alter table financas.resumo_mensal add constraint uk_resumo_mensal unique (id_usuario, ano, mes, tipo, status, moeda);
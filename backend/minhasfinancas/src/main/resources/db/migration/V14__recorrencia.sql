@@ -0,0 +1,29 @@
+-- Modelos de lançamentos recorrentes. As ocorrências vencidas viram lançamentos pelo RecorrenciaService;
+-- proxima_ocorrencia nula indica recorrência encerrada (passou da data de fim)
+create table financas.recorrencia (
+    id bigserial not null primary key,
+    id_usuario bigint not null,
+    descricao varchar(100) not null,
+    valor numeric(16, 2) not null,
+    moeda varchar(3) not null default 'BRL',
+    tipo varchar(20) not null check (tipo in ('RECEITA', 'DESPESA')),
+    periodicidade varchar(20) not null check (periodicidade in ('MENSAL', 'ANUAL')),
+    data_inicio date not null,
+    data_fim date,
+    ocorrencias integer not null default 0,
+    proxima_ocorrencia date,
+    constraint fk_recorrencia_usuario foreign key (id_usuario) references financas.usuario (id)
+);
+
+create index idx_recorrencia_usuario on financas.recorrencia (id_usuario);
+-- Só as recorrências ativas entram na fila
+create index idx_recorrencia_proxima_ocorrencia on financas.recorrencia (proxima_ocorrencia, id)
+    where proxima_ocorrencia is not null;
+
+-- Reserva de cada partição da fila (id_usuario módulo minhasfinancas.recorrencia.particoes) por uma instância.
+-- As linhas são criadas pela aplicação, conforme o número de partições configurado
+create table financas.reserva_recorrencia (
+    particao integer not null primary key,
+    responsavel varchar(100),
+    bloqueado_ate timestamp(6) with time zone
+);
@@ -0,0 +1,36 @@
+-- Categorias definidas por cada usuário; um lançamento pertence a no máximo uma
+create table financas.categoria (
+    id bigserial not null primary key,
+    id_usuario bigint not null,
+    nome varchar(50) not null,
+    constraint uk_categoria_usuario_nome unique (id_usuario, nome),
+    constraint fk_categoria_usuario foreign key (id_usuario) references financas.usuario (id)
+);
+
+-- Coluna nula sem default: o PostgreSQL só altera o catálogo, sem reescrever as partições. As partições já
+-- arquivadas em financas_arquivo ficam sem a coluna, como em V13
+alter table financas.lancamento add column id_categoria bigint;
+alter table financas.lancamento add constraint fk_lancamento_categoria
+    foreign key (id_categoria) references financas.categoria (id);
+-- Criado em cada partição; só os lançamentos com categoria entram
+create index idx_lancamento_usuario_categoria on financas.lancamento (id_usuario, id_categoria, ano, mes)
+    where id_categoria is not null;
+
+alter table financas.recorrencia add column id_categoria bigint;
+alter table financas.recorrencia add constraint fk_recorrencia_categoria
+    foreign key (id_categoria) references financas.categoria (id);
+
+-- Totais por categoria mantidos pelo consumidor do ledger. Começa vazio: nenhum lançamento existente tem categoria
+create table financas.total_categoria (
+    id bigserial not null primary key,
+    id_usuario bigint not null,
+    ano integer not null,
+    mes integer not null,
+    id_categoria bigint not null,
+    tipo varchar(20) not null,
+    status varchar(20) not null,
+    moeda varchar(3) not null,
+    total numeric(16, 2) not null default 0,
+    quantidade bigint not null default 0,
+    constraint uk_total_categoria unique (id_usuario, ano, mes, id_categoria, tipo, status, moeda)
+);
@@ -0,0 +1,8 @@
+-- Usuários cujos eventos falharam no consumidor do ledger: ficam fora dos lotes até retomar_em, com espera
+-- crescente a cada falha seguida. A linha some quando o usuário volta a ser aplicado
+create table financas.falha_ledger (
+    id_usuario bigint not null primary key,
+    falhas integer not null,
+    retomar_em timestamp with time zone not null,
+    ultimo_erro varchar(500)
+);
@@ -0,0 +1,13 @@
+-- Busca por descrição com a normalização do índice em memória (IndiceDescricaoMemoria.normalizar): sem acentos,
+-- em minúsculas e com espaços simples. unaccent é STABLE; com o dicionário fixo a função pode ser IMMUTABLE e
+-- entrar no índice
+create extension if not exists unaccent schema public;
+
+create or replace function financas.normalizar_descricao(texto text) returns text
+    language sql immutable strict parallel safe
+as $$ select btrim(regexp_replace(lower(public.unaccent('public.unaccent'::regdictionary, texto)), '\s+', ' ', 'g')) $$;
+
+-- Substitui o índice de V5 e V12 (descrição sem normalizar); criado de novo em cada partição
+drop index if exists financas.idx_lancamento_descricao_trgm;
+create index idx_lancamento_descricao_trgm on financas.lancamento
+    using gin (financas.normalizar_descricao(descricao) public.gin_trgm_ops);
@@ -0,0 +1,4 @@
+-- O serviço recusa nomes que só diferem em maiúsculas; a chave única passa a valer do mesmo jeito, para que
+-- dois cadastros simultâneos não gravem "Mercado" e "mercado"
+alter table financas.categoria drop constraint uk_categoria_usuario_nome;
+create unique index uk_categoria_usuario_nome on financas.categoria (id_usuario, lower(nome));
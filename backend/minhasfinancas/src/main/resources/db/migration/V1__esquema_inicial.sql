@@ -0,0 +1,21 @@
+-- Esquema como estava antes das migrações. Bases já existentes passam pelos "if not exists"
+-- (baseline-on-migrate na versão 0) e seguem pelas migrações seguintes.
+
+create table if not exists financas.usuario (
+    id bigserial not null primary key,
+    nome varchar(150),
+    email varchar(100),
+    senha varchar(255)
+);
+
+create table if not exists financas.lancamento (
+    id bigserial not null primary key,
+    descricao varchar(100) not null,
+    mes integer not null,
+    ano integer not null,
+    valor numeric(16, 2) not null,
+    tipo varchar(20) not null check (tipo in ('RECEITA', 'DESPESA')),
+    status varchar(20) not null check (status in ('PENDENTE', 'CANCELADO', 'EFETIVADO')),
+    id_usuario bigint not null references financas.usuario (id),
+    data_cadastro date default current_date
+);
@@ -0,0 +1,7 @@
+-- Saldo materializado de cada usuário. Começa vazio: a primeira escrita de cada usuário monta a linha
+-- a partir dos lançamentos
+create table financas.saldo_usuario (
+    id_usuario bigint not null primary key,
+    total_receitas numeric(16, 2) not null default 0,
+    total_despesas numeric(16, 2) not null default 0
+);
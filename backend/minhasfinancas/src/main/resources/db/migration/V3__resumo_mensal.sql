@@ -0,0 +1,12 @@
+-- Totais mensais por (usuario, ano, mes, tipo, status). Começa vazio, como o saldo_usuario
+create table financas.resumo_mensal (
+    id bigserial not null primary key,
+    id_usuario bigint not null,
+    ano integer not null,
+    mes integer not null,
+    tipo varchar(20) not null,
+    status varchar(20) not null,
+    total numeric(16, 2) not null default 0,
+    quantidade bigint not null default 0,
+    constraint uk_resumo_mensal unique (id_usuario, ano, mes, tipo, status)
+);
@@ -0,0 +1,2 @@
+-- Filtro por usuário e avanço do cursor da listagem, na mesma ordem (ano, mes, id)
+create index idx_lancamento_usuario_ano_mes on financas.lancamento (id_usuario, ano, mes, id);
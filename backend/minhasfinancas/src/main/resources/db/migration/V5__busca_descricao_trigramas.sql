@@ -0,0 +1,4 @@
+-- Busca por descrição com minhasfinancas.busca.estrategia=postgres (IndiceDescricaoPostgres). No public,
+-- onde a consulta encontra similarity(): o search_path das migrações é o esquema financas
+create extension if not exists pg_trgm schema public;
+create index idx_lancamento_descricao_trgm on financas.lancamento using gin (descricao public.gin_trgm_ops);
@@ -0,0 +1,10 @@
+-- Ids do lançamento alocados pelo Hibernate em blocos de 50 (allocationSize do Lancamento), em vez da
+-- coluna serial: o valor lido é o fim do bloco, então a sequência começa 50 acima do maior id
+create sequence financas.lancamento_seq increment by 50;
+
+select setval('financas.lancamento_seq', max(l.id) + 50)
+from financas.lancamento l
+having max(l.id) is not null;
+
+alter table financas.lancamento alter column id drop default;
+drop sequence if exists financas.lancamento_id_seq;
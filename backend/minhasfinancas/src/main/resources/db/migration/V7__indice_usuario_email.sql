@@ -0,0 +1,2 @@
+-- Consultas por e-mail (login e cache de usuarios)
+create index idx_usuario_email on financas.usuario (email);
@@ -0,0 +1,8 @@
+-- Hash da senha (SenhaService), maior que a senha em texto de bases criadas antes das migrações
+do $$
+begin
+    if (select c.character_maximum_length from information_schema.columns c
+        where c.table_schema = 'financas' and c.table_name = 'usuario' and c.column_name = 'senha') < 255 then
+        alter table financas.usuario alter column senha type varchar(255);
+    end if;
+end $$;
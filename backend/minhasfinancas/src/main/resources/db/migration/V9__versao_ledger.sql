@@ -0,0 +1,5 @@
+-- Versão dos lançamentos de cada usuário (ETag do saldo e da listagem). A linha nasce na primeira escrita
+create table financas.versao_ledger (
+    id_usuario bigint not null primary key,
+    versao bigint not null
+);
@@ -1,9 +1,11 @@
 package com.bcipriano.minhasfinancas;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
+@Tag("postgres")
 class MinhasfinancasApplicationTests {
 
 	@Test
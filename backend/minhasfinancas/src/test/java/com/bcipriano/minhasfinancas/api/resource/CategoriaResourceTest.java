@@ -0,0 +1,104 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.service.CategoriaService;
+import com.bcipriano.minhasfinancas.service.TotalCategoriaService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = CategoriaResource.class)
+@AutoConfigureMockMvc
+public class CategoriaResourceTest {
+
+    static final String API = "/api/categorias";
+    static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CategoriaService categoriaService;
+
+    @MockBean
+    TotalCategoriaService totalCategoriaService;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @Test
+    public void deveCriarUmaCategoria() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(categoriaService.salvar(Mockito.any(Categoria.class))).thenAnswer(invocacao -> {
+            Categoria categoria = invocacao.getArgument(0);
+            categoria.setId(5l);
+            return categoria;
+        });
+
+        mvc.perform(MockMvcRequestBuilders.post(API).accept(JSON).contentType(JSON)
+                        .content("{\"usuario\":1,\"nome\":\"Mercado\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("nome").value("Mercado"));
+    }
+
+    @Test
+    public void deveSomarOsTotaisDeCadaCategoriaFiltrandoPorStatus() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(categoriaService.obterPorUsuario(1l)).thenReturn(Arrays.asList(
+                Categoria.builder().id(2l).idUsuario(1l).nome("Mercado").build(),
+                Categoria.builder().id(3l).idUsuario(1l).nome("Moradia").build()));
+        Mockito.when(totalCategoriaService.obterTotais(1l, 2023, null)).thenReturn(Arrays.asList(
+                criarTotal(1, 2l, StatusLancamento.EFETIVADO, 40),
+                criarTotal(2, 2l, StatusLancamento.EFETIVADO, 25),
+                criarTotal(2, 2l, StatusLancamento.CANCELADO, 100)));
+
+        mvc.perform(MockMvcRequestBuilders.get(API + "/totais").param("usuario", "1").param("ano", "2023")
+                        .param("status", "EFETIVADO").accept(JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].categoria").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].despesas").value(65))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].quantidade").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].categoria").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].despesas").value(0));
+    }
+
+    @Test
+    public void deveRetornarBadRequestParaMesInvalido() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+
+        mvc.perform(MockMvcRequestBuilders.get(API + "/totais").param("usuario", "1").param("ano", "2023")
+                        .param("mes", "13").accept(JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(totalCategoriaService, Mockito.never()).obterTotais(Mockito.anyLong(), Mockito.anyInt(), Mockito.any());
+    }
+
+    private static TotalCategoria criarTotal(int mes, Long idCategoria, StatusLancamento status, long total) {
+        return TotalCategoria.builder().idUsuario(1l).ano(2023).mes(mes).idCategoria(idCategoria)
+                .tipo(TipoLancamento.DESPESA).status(status).moeda("BRL")
+                .total(BigDecimal.valueOf(total)).quantidade(1l).build();
+    }
+
+}
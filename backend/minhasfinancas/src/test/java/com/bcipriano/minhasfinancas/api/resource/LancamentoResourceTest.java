@@ -0,0 +1,232 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.service.ExportacaoService;
+import com.bcipriano.minhasfinancas.service.ImportacaoService;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import com.bcipriano.minhasfinancas.service.VersaoLedgerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LancamentoResource.class)
+@AutoConfigureMockMvc
+public class LancamentoResourceTest {
+
+    static final String API = "/api/lancamentos";
+    static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LancamentoService service;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @MockBean
+    ImportacaoService importacaoService;
+
+    @MockBean
+    ExportacaoService exportacaoService;
+
+    @MockBean
+    VersaoLedgerService versaoLedgerService;
+
+    @Test
+    public void deveDevolverAVersaoComoETagNaConsultaPorId() throws Exception {
+        Mockito.when(service.obterPorIdComUsuario(1l)).thenReturn(Optional.of(criarLancamento(3l)));
+
+        mvc.perform(MockMvcRequestBuilders.get(API.concat("/1")).accept(JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("versao").value(3));
+    }
+
+    @Test
+    public void deveRecusarAtualizacaoComIfMatchDeOutraVersao() throws Exception {
+        Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(criarLancamento(3l)));
+
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(JSON)
+                        .content(new ObjectMapper().writeValueAsString(criarDTO())))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).atualizar(Mockito.any());
+    }
+
+    @Test
+    public void deveResponderConflitoQuandoOutraEscritaPassaNaFrente() throws Exception {
+        Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(criarLancamento(3l)));
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(service.atualizar(Mockito.any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Lancamento.class, 1l));
+
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(JSON)
+                        .content(new ObjectMapper().writeValueAsString(criarDTO())))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void deveAtualizarComAVersaoInformadaEDevolverONovoETag() throws Exception {
+        Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(criarLancamento(3l)));
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        //O resource grava no lançamento a versão nova depois da chamada: confere a versão esperada durante ela
+        Mockito.when(service.atualizar(Mockito.argThat(lancamento -> lancamento.getVersao() == 3l)))
+                .thenReturn(criarLancamento(4l));
+
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1"))
+                        .contentType(JSON)
+                        .content(new ObjectMapper().writeValueAsString(criarDTO())))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    public void deveAplicarMergePatchSomenteComOsCamposEnviados() throws Exception {
+        Mockito.when(service.atualizarParcial(Mockito.eq(1l), Mockito.any(), Mockito.eq(Set.of("valor", "versao"))))
+                .thenReturn(Optional.of(criarLancamento(4l)));
+
+        mvc.perform(MockMvcRequestBuilders.patch(API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(LancamentoResource.APPLICATION_MERGE_PATCH_JSON)
+                        .content("{\"valor\": 25}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("usuario").value(1));
+
+        Mockito.verify(service).atualizarParcial(Mockito.eq(1l),
+                Mockito.argThat(alteracoes -> alteracoes.getVersao() == 3l && alteracoes.getValor().intValue() == 25),
+                Mockito.eq(Set.of("valor", "versao")));
+        Mockito.verify(usuarioService, Mockito.never()).obterPorId(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveResponderPrecondicaoQuandoOIfMatchDoPatchNaoConfere() throws Exception {
+        Mockito.when(service.atualizarParcial(Mockito.eq(1l), Mockito.any(), Mockito.any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Lancamento.class, 1l));
+
+        mvc.perform(MockMvcRequestBuilders.patch(API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(LancamentoResource.APPLICATION_MERGE_PATCH_JSON)
+                        .content("{\"status\": \"EFETIVADO\"}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        mvc.perform(MockMvcRequestBuilders.patch(API.concat("/1"))
+                        .contentType(LancamentoResource.APPLICATION_MERGE_PATCH_JSON)
+                        .content("[1, 2]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void deveResponderConflitoQuandoAsTentativasDaTrocaDeStatusSeEsgotam() throws Exception {
+        Mockito.when(service.atualizarStatus(1l, StatusLancamento.EFETIVADO))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Lancamento.class, 1l));
+
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1/atualiza"))
+                        .contentType(JSON)
+                        .content("{\"status\": \"EFETIVADO\"}"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void deveRecusarTrocaParaStatusInvalidoOuAusente() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1/atualiza"))
+                        .contentType(JSON)
+                        .content("{\"status\": \"PAGO\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mvc.perform(MockMvcRequestBuilders.put(API.concat("/1/atualiza"))
+                        .contentType(JSON)
+                        .content("{}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(service, Mockito.never()).atualizarStatus(Mockito.anyLong(), Mockito.any(StatusLancamento.class));
+    }
+
+    @Test
+    public void deveSalvarComReferenciaAoUsuarioEDevolverApenasOId() throws Exception {
+        Usuario referencia = Usuario.builder().id(1l).build();
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(usuarioService.obterReferencia(1l)).thenReturn(referencia);
+        Mockito.when(service.salvar(Mockito.any())).thenAnswer(invocacao -> invocacao.getArgument(0));
+
+        mvc.perform(MockMvcRequestBuilders.post(API)
+                        .contentType(JSON)
+                        .content(new ObjectMapper().writeValueAsString(criarDTO())))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("usuario").value(1));
+
+        Mockito.verify(service).salvar(Mockito.argThat(lancamento -> lancamento.getUsuario() == referencia));
+    }
+
+    @Test
+    public void deveRecusarLancamentoDeUsuarioInexistente() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.post(API)
+                        .contentType(JSON)
+                        .content(new ObjectMapper().writeValueAsString(criarDTO())))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string("Usuario não encontrado para o Id informado."));
+
+        Mockito.verify(usuarioService, Mockito.never()).obterReferencia(Mockito.anyLong());
+        Mockito.verify(service, Mockito.never()).salvar(Mockito.any());
+    }
+
+    private Lancamento criarLancamento(Long versao) {
+        return Lancamento.builder()
+                .id(1l)
+                .descricao("Lancamento")
+                .mes(1)
+                .ano(2023)
+                .valor(BigDecimal.TEN)
+                .tipo(TipoLancamento.RECEITA)
+                .status(StatusLancamento.PENDENTE)
+                .usuario(Usuario.builder().id(1l).build())
+                .versao(versao)
+                .build();
+    }
+
+    private LancamentoDTO criarDTO() {
+        return LancamentoDTO.builder()
+                .descricao("Lancamento")
+                .mes(1)
+                .ano(2023)
+                .valor(BigDecimal.TEN)
+                .usuario(1l)
+                .tipo("RECEITA")
+                .versao(3l)
+                .build();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LeituraReativaService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LeituraReativaResource.class)
+@AutoConfigureMockMvc
+public class LeituraReativaResourceTest {
+
+    static final String API = "/api/leitura";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LeituraReativaService service;
+
+    @Test
+    public void deveEscreverUmLancamentoPorLinhaEmNdjson() throws Exception {
+        Mockito.when(service.listarLancamentos(1l, 2023, null, 1000)).thenReturn(Flux.just(
+                new LancamentoListagem(1l, 1l, "Aluguel", 1, 2023, BigDecimal.valueOf(1500), "BRL",
+                        TipoLancamento.DESPESA, StatusLancamento.PENDENTE, null, null),
+                new LancamentoListagem(2l, 1l, "Salario", 1, 2023, BigDecimal.valueOf(5000), "BRL",
+                        TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, null, null)));
+
+        MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get(API.concat("/lancamentos?usuario=1&ano=2023"))
+                        .accept(LancamentoResource.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(LancamentoResource.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"id\":1,\"usuario\":1,\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2023,\"valor\":1500,\"moeda\":\"BRL\","
+                                + "\"tipo\":\"DESPESA\",\"status\":\"PENDENTE\",\"dataCadastro\":null,\"categoria\":null}\n"
+                                + "{\"id\":2,\"usuario\":1,\"descricao\":\"Salario\",\"mes\":1,\"ano\":2023,\"valor\":5000,\"moeda\":\"BRL\","
+                                + "\"tipo\":\"RECEITA\",\"status\":\"EFETIVADO\",\"dataCadastro\":null,\"categoria\":null}\n"));
+    }
+
+    @Test
+    public void deveRetornarBadRequestQuandoOFiltroForInvalido() throws Exception {
+        Mockito.when(service.listarLancamentos(1l, null, null, 0))
+                .thenThrow(new RegraNegocioException("Informe um limite válido!"));
+
+        mvc.perform(MockMvcRequestBuilders.get(API.concat("/lancamentos?usuario=1&limite=0"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void deveObterOSaldo() throws Exception {
+        Mockito.when(service.obterSaldo(1l)).thenReturn(Mono.just(BigDecimal.valueOf(60)));
+
+        MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get(API.concat("/usuarios/1/saldo")))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("60"));
+    }
+
+    @Test
+    public void deveRetornarNotFoundParaSaldoDeUsuarioInexistente() throws Exception {
+        Mockito.when(service.obterSaldo(1l)).thenReturn(Mono.empty());
+
+        MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get(API.concat("/usuarios/1/saldo")))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.bcipriano.minhasfinancas.api.resource;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
+import com.bcipriano.minhasfinancas.model.entity.enums.Periodicidade;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.service.RecorrenciaService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.assertj.core.api.Assertions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = RecorrenciaResource.class)
+@AutoConfigureMockMvc
+public class RecorrenciaResourceTest {
+
+    static final String API = "/api/recorrencias";
+    static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    RecorrenciaService recorrenciaService;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @Test
+    public void deveCriarUmaRecorrencia() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(recorrenciaService.salvar(Mockito.any(Recorrencia.class))).thenAnswer(invocacao -> {
+            Recorrencia recorrencia = invocacao.getArgument(0);
+            recorrencia.setId(10l);
+            recorrencia.setProximaOcorrencia(recorrencia.getDataInicio());
+            return recorrencia;
+        });
+
+        mvc.perform(MockMvcRequestBuilders.post(API).accept(JSON).contentType(JSON)
+                        .content("{\"usuario\":1,\"descricao\":\"Aluguel\",\"valor\":1500,\"tipo\":\"DESPESA\","
+                                + "\"periodicidade\":\"MENSAL\",\"dataInicio\":\"2023-01-05\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(10))
+                .andExpect(MockMvcResultMatchers.jsonPath("moeda").value("BRL"))
+                .andExpect(MockMvcResultMatchers.jsonPath("periodicidade").value("MENSAL"));
+
+        ArgumentCaptor<Recorrencia> recorrencia = ArgumentCaptor.forClass(Recorrencia.class);
+        Mockito.verify(recorrenciaService).salvar(recorrencia.capture());
+        Assertions.assertThat(recorrencia.getValue().getPeriodicidade()).isEqualTo(Periodicidade.MENSAL);
+        Assertions.assertThat(recorrencia.getValue().getTipo()).isEqualTo(TipoLancamento.DESPESA);
+        Assertions.assertThat(recorrencia.getValue().getValor()).isEqualByComparingTo(BigDecimal.valueOf(1500));
+        Assertions.assertThat(recorrencia.getValue().getDataInicio()).isEqualTo(LocalDate.of(2023, 1, 5));
+    }
+
+    @Test
+    public void deveRetornarBadRequestParaPeriodicidadeInvalida() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+
+        mvc.perform(MockMvcRequestBuilders.post(API).accept(JSON).contentType(JSON)
+                        .content("{\"usuario\":1,\"descricao\":\"Aluguel\",\"valor\":1500,\"tipo\":\"DESPESA\","
+                                + "\"periodicidade\":\"SEMANAL\",\"dataInicio\":\"2023-01-05\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(recorrenciaService, Mockito.never()).salvar(Mockito.any());
+    }
+
+    @Test
+    public void deveRetornarBadRequestQuandoOServicoRecusarARecorrencia() throws Exception {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(recorrenciaService.salvar(Mockito.any(Recorrencia.class)))
+                .thenThrow(new RegraNegocioException("Informe a data de início da recorrência!"));
+
+        mvc.perform(MockMvcRequestBuilders.post(API).accept(JSON).contentType(JSON)
+                        .content("{\"usuario\":1,\"descricao\":\"Aluguel\",\"valor\":1500,\"tipo\":\"DESPESA\","
+                                + "\"periodicidade\":\"ANUAL\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+}
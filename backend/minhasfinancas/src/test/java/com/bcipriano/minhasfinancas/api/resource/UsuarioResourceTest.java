@@ -3,8 +3,14 @@ package com.bcipriano.minhasfinancas.api.resource;
 import com.bcipriano.minhasfinancas.api.dto.UsuarioDTO;
 import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
 import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.ProjecaoLedgerService;
+import com.bcipriano.minhasfinancas.service.ResumoService;
 import com.bcipriano.minhasfinancas.service.UsuarioService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
@@ -18,10 +24,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = UsuarioResource.class) //Faz com que o contexto rest suba apenas para os testes
@@ -40,13 +54,20 @@ public class UsuarioResourceTest {
     @MockBean
     LancamentoService lancamentoService;
 
+    @MockBean
+    ResumoService resumoService;
+
+    @MockBean
+    ProjecaoLedgerService projecaoLedgerService;
+
     @Test
     public void deveAutenticarUmUsuario() throws Exception{
 
         UsuarioDTO dto = criarInstanciaUsuarioDTOParaTestes();
         Usuario usuario = Usuario.builder().id(1l).email(dto.getEmail()).senha(dto.getSenha()).build();
 
-        Mockito.when(usuarioService.autenticar(dto.getEmail(), dto.getSenha())).thenReturn(usuario);
+        Mockito.when(usuarioService.autenticarAsync(dto.getEmail(), dto.getSenha()))
+                .thenReturn(CompletableFuture.completedFuture(usuario));
 
         String json = new ObjectMapper().writeValueAsString(dto);
 
@@ -56,8 +77,10 @@ public class UsuarioResourceTest {
                 .contentType(JSON)
                 .content(json);
 
+        MvcResult resultado = mvc.perform(request).andReturn();
+
         mvc
-                .perform(request)
+                .perform(MockMvcRequestBuilders.asyncDispatch(resultado))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("id").value(usuario.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome()))
@@ -69,7 +92,8 @@ public class UsuarioResourceTest {
 
         UsuarioDTO dto = criarInstanciaUsuarioDTOParaTestes();
 
-        Mockito.when(usuarioService.autenticar(dto.getEmail(), dto.getSenha())).thenThrow(ErroAutenticacao.class);
+        Mockito.when(usuarioService.autenticarAsync(dto.getEmail(), dto.getSenha()))
+                .thenReturn(CompletableFuture.failedFuture(new ErroAutenticacao("Senha inválida!")));
 
         String json = new ObjectMapper().writeValueAsString(dto);
 
@@ -79,11 +103,36 @@ public class UsuarioResourceTest {
                 .contentType(JSON)
                 .content(json);
 
+        MvcResult resultado = mvc.perform(request).andReturn();
+
         mvc
-                .perform(request)
+                .perform(MockMvcRequestBuilders.asyncDispatch(resultado))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    public void deveRetornarServiceUnavailableQuandoAFilaDeAutenticacaoEstiverCheia() throws Exception{
+
+        UsuarioDTO dto = criarInstanciaUsuarioDTOParaTestes();
+
+        Mockito.when(usuarioService.autenticarAsync(dto.getEmail(), dto.getSenha()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(API.concat("/autenticar"))
+                .accept(JSON)
+                .contentType(JSON)
+                .content(json);
+
+        MvcResult resultado = mvc.perform(request).andReturn();
+
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+    }
+
     @Test
     public void deveCriarUmNovoUsuario() throws Exception{
 
@@ -129,7 +178,100 @@ public class UsuarioResourceTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    public void deveRetornarOSaldoComETagDaVersaoDosLancamentos() throws Exception{
+
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(projecaoLedgerService.obterVersaoAplicada(1l)).thenReturn(7l);
+        Mockito.when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(BigDecimal.valueOf(60));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(API.concat("/1/saldo")).accept(JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-7\""))
+                .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache, private"))
+                .andExpect(MockMvcResultMatchers.content().string("60"));
+    }
+
+    @Test
+    public void deveRetornarNotModifiedSemCalcularOSaldoQuandoAVersaoNaoMudou() throws Exception{
 
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(projecaoLedgerService.obterVersaoAplicada(1l)).thenReturn(7l);
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(API.concat("/1/saldo")).accept(JSON)
+                        .header("If-None-Match", "\"1-7\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-7\""))
+                .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache, private"))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Mockito.verify(lancamentoService, Mockito.never()).obterSaldoPorUsuario(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveRetornarOSaldoDeNovoQuandoACotacaoMudaSemAlterarOsLancamentos() throws Exception{
+
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(projecaoLedgerService.obterVersaoAplicada(1l)).thenReturn(7l);
+        Mockito.when(lancamentoService.obterCotacoesDoSaldo(1l)).thenReturn(Map.of("USD", new BigDecimal("4.90")));
+        Mockito.when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(new BigDecimal("49.00"));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(API.concat("/1/saldo")).accept(JSON)
+                        .header("If-None-Match", "\"1-7\""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-7-USD4.90\""));
+
+        Mockito.when(lancamentoService.obterCotacoesDoSaldo(1l)).thenReturn(Map.of("USD", new BigDecimal("4.80")));
+        Mockito.when(lancamentoService.obterSaldoPorUsuario(1l)).thenReturn(new BigDecimal("48.00"));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(API.concat("/1/saldo")).accept(JSON)
+                        .header("If-None-Match", "\"1-7-USD4.90\""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-7-USD4.80\""))
+                .andExpect(MockMvcResultMatchers.content().string("48.00"));
+    }
+
+    @Test
+    public void deveRetornarResumoAnualDeUmUsuario() throws Exception{
+
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(resumoService.obterResumosDoAno(1l, 2023)).thenReturn(Arrays.asList(
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(3).tipo(TipoLancamento.RECEITA)
+                        .status(StatusLancamento.EFETIVADO).total(BigDecimal.valueOf(100)).quantidade(1l).build(),
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(3).tipo(TipoLancamento.DESPESA)
+                        .status(StatusLancamento.PENDENTE).total(BigDecimal.valueOf(40)).quantidade(2l).build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(API.concat("/1/resumo?ano=2023"))
+                .accept(JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("meses.length()").value(12))
+                .andExpect(MockMvcResultMatchers.jsonPath("meses[2].receitas").value(100))
+                .andExpect(MockMvcResultMatchers.jsonPath("meses[2].despesas").value(40))
+                .andExpect(MockMvcResultMatchers.jsonPath("meses[2].saldo").value(60))
+                .andExpect(MockMvcResultMatchers.jsonPath("saldo").value(60));
+    }
+
+    @Test
+    public void deveRetornarNotFoundAoBuscarResumoDeUsuarioInexistente() throws Exception{
+
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(API.concat("/1/resumo?ano=2023"))
+                .accept(JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
 
     public static UsuarioDTO criarInstanciaUsuarioDTOParaTestes(){
         return UsuarioDTO.builder()
@@ -0,0 +1,23 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Um banco H2 em memória por contexto de teste: o nome é sorteado uma vez por contexto e usado pelas URLs
+ * JDBC e R2DBC do perfil de teste, então contextos em cache não veem o create-drop uns dos outros.
+ */
+public class BancoTesteEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        environment.getPropertySources().addLast(new MapPropertySource("bancoTeste",
+                Map.of("minhasfinancas.teste.banco", "db-" + UUID.randomUUID())));
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.assertj.core.api.Assertions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.stream.Collectors;
+
+/**
+ * Verificações do MockMvc sobre o SQL da requisição, a partir do PerfilSql deixado pelo PerfilSqlFilter.
+ * Ex.: mvc.perform(get("/api/lancamentos")...).andExpect(ComandosSql.noMaximo(3))
+ */
+public class ComandosSql {
+
+    public static ResultMatcher noMaximo(int comandos) {
+        return resultado -> {
+            PerfilSql perfil = perfil(resultado.getRequest().getAttribute(PerfilSql.ATRIBUTO));
+            Assertions.assertThat(perfil.getComandos())
+                    .as("comandos SQL da requisição:%s", listar(perfil))
+                    .isLessThanOrEqualTo(comandos);
+        };
+    }
+
+    public static ResultMatcher linhasNoMaximo(long linhas) {
+        return resultado -> Assertions.assertThat(perfil(resultado.getRequest().getAttribute(PerfilSql.ATRIBUTO))
+                .getLinhas()).as("linhas lidas pela requisição").isLessThanOrEqualTo(linhas);
+    }
+
+    private static PerfilSql perfil(Object atributo) {
+        Assertions.assertThat(atributo).as("PerfilSql da requisição (minhasfinancas.sql.perfil.habilitado)")
+                .isInstanceOf(PerfilSql.class);
+        return (PerfilSql) atributo;
+    }
+
+    private static String listar(PerfilSql perfil) {
+        return perfil.getComandosExecutados().values().stream()
+                .map(comando -> "\n  " + comando.execucoes() + "x " + comando.sql())
+                .collect(Collectors.joining());
+    }
+
+}
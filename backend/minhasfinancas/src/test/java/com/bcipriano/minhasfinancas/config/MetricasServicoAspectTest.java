@@ -0,0 +1,123 @@
+package com.bcipriano.minhasfinancas.config;
+
+import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.UsuarioService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+import static org.hamcrest.Matchers.containsString;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricasServicoAspectTest {
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    public void deveMedirOTempoDosMetodosDosServicos() {
+        long antes = contagem("buscar");
+
+        lancamentoService.buscar(Lancamento.builder().usuario(Usuario.builder().id(1l).build()).build(), null, 5);
+
+        Assertions.assertThat(contagem("buscar")).isEqualTo(antes + 1);
+    }
+
+    @Test
+    public void deveContarARecusaPeloMotivo() {
+        double antes = recusas("Informe uma descrição válida!");
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.salvar(new Lancamento()))
+                .isInstanceOf(RegraNegocioException.class);
+
+        Assertions.assertThat(recusas("Informe uma descrição válida!")).isEqualTo(antes + 1);
+        Assertions.assertThat(meterRegistry.get(MetricasServicoAspect.TEMPO_SERVICO)
+                .tag("method", "salvar").tag("exception", "RegraNegocioException").timer().count()).isPositive();
+    }
+
+    @Test
+    public void deveMedirOsMetodosAssincronosAteAConclusao() {
+        double antes = recusasDeAutenticacao("Usuário não encontrado!");
+
+        Assertions.assertThatThrownBy(() -> usuarioService.autenticarAsync(UUID.randomUUID() + "@email.com", "senha").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ErroAutenticacao.class);
+
+        Assertions.assertThat(recusasDeAutenticacao("Usuário não encontrado!")).isEqualTo(antes + 1);
+        Assertions.assertThat(meterRegistry.get(MetricasServicoAspect.TEMPO_SERVICO)
+                .tag("method", "autenticarAsync").tag("exception", "ErroAutenticacao").timer().count()).isPositive();
+    }
+
+    @Test
+    public void deveManterAsPartesVariaveisDaMensagemForaDoMotivo() {
+        Assertions.assertThat(MetricasServicoAspect.motivo("Valor inválido: abc")).isEqualTo("Valor inválido");
+        Assertions.assertThat(MetricasServicoAspect.motivo("Informe no máximo 500 lançamentos!"))
+                .isEqualTo("Informe no máximo # lançamentos!");
+        Assertions.assertThat(MetricasServicoAspect.motivo(null)).isEqualTo("desconhecido");
+    }
+
+    @Test
+    public void deveExporOsHistogramasNoEndpointDoPrometheus() throws Exception {
+        lancamentoService.obterSaldoPorUsuario(1l);
+
+        mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(containsString(
+                        "minhasfinancas_servico_seconds_bucket{application=\"minhasfinancas\",class=\"LancamentoServiceImpl\","
+                                + "exception=\"none\",method=\"obterSaldoPorUsuario\",le=\"0.1\"")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("hikaricp_connections_active")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("hibernate_")));
+    }
+
+    private long contagem(String metodo) {
+        return Optional.ofNullable(meterRegistry.find(MetricasServicoAspect.TEMPO_SERVICO)
+                .tag("class", "LancamentoServiceImpl").tag("method", metodo).tag("exception", "none").timer())
+                .map(Timer::count).orElse(0l);
+    }
+
+    private double recusasDeAutenticacao(String motivo) {
+        return Optional.ofNullable(meterRegistry.find(MetricasServicoAspect.ERROS)
+                .tag("tipo", "ErroAutenticacao").tag("motivo", motivo).counter())
+                .map(Counter::count).orElse(0d);
+    }
+
+    private double recusas(String motivo) {
+        return Optional.ofNullable(meterRegistry.find(MetricasServicoAspect.ERROS)
+                .tag("tipo", "RegraNegocioException").tag("motivo", motivo).counter())
+                .map(Counter::count).orElse(0d);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.bcipriano.minhasfinancas.config;
+
+import org.assertj.core.api.Assertions;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+public class PerfilSqlDataSourceTest {
+
+    PerfilSqlDataSource dataSource;
+
+    Connection conexao;
+
+    @Before
+    public void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:perfil;DB_CLOSE_DELAY=-1");
+        dataSource = new PerfilSqlDataSource(h2, 100);
+        conexao = dataSource.getConnection();
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("create table if not exists item (id int primary key)");
+            comando.execute("delete from item");
+            comando.execute("insert into item values (1), (2), (3)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        conexao.close();
+    }
+
+    @Test
+    public void deveContarComandosELinhasLidasDoPerfilAberto() throws SQLException {
+        PerfilSql perfil = PerfilSql.iniciar();
+        try (PreparedStatement comando = conexao.prepareStatement("select id from item where id > ?")) {
+            comando.setInt(1, 0);
+            lerTudo(comando.executeQuery());
+            comando.setInt(1, 2);
+            lerTudo(comando.executeQuery());
+        } finally {
+            PerfilSql.encerrar(perfil);
+        }
+
+        Assertions.assertThat(perfil.getComandos()).isEqualTo(2);
+        Assertions.assertThat(perfil.getLinhas()).isEqualTo(4);
+        Assertions.assertThat(perfil.getComandosExecutados()).containsOnlyKeys("select id from item where id > ?");
+        Assertions.assertThat(perfil.getComandosExecutados().get("select id from item where id > ?").execucoes())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void deveRegistrarSoNoPerfilMaisInternoEVoltarAoAnterior() throws SQLException {
+        PerfilSql externo = PerfilSql.iniciar();
+        try {
+            PerfilSql interno = PerfilSql.iniciar();
+            executar("select count(*) from item");
+            PerfilSql.encerrar(interno);
+            executar("select 1");
+
+            Assertions.assertThat(interno.getComandosExecutados()).containsOnlyKeys("select count(*) from item");
+            Assertions.assertThat(externo.getComandosExecutados()).containsOnlyKeys("select 1");
+        } finally {
+            PerfilSql.encerrar(externo);
+        }
+        Assertions.assertThat(PerfilSql.atual()).isNull();
+    }
+
+    @Test
+    public void deveManterOsComandosComoChavesDistintasEmMapas() throws SQLException {
+        try (PreparedStatement primeiro = conexao.prepareStatement("select 1");
+             PreparedStatement segundo = conexao.prepareStatement("select 1")) {
+            Set<Statement> abertos = new HashSet<>();
+            abertos.add(primeiro);
+            abertos.add(segundo);
+            abertos.add(primeiro);
+
+            Assertions.assertThat(abertos).hasSize(2);
+            Assertions.assertThat(primeiro).isEqualTo(primeiro).isNotEqualTo(segundo);
+        }
+    }
+
+    @Test
+    public void deveRepassarOErroDoBanco() {
+        Assertions.assertThatThrownBy(() -> executar("select * from tabela_inexistente"))
+                .isInstanceOf(SQLException.class);
+    }
+
+    private void executar(String sql) throws SQLException {
+        try (Statement comando = conexao.createStatement()) {
+            lerTudo(comando.executeQuery(sql));
+        }
+    }
+
+    private static void lerTudo(ResultSet linhas) throws SQLException {
+        while (linhas.next()) {
+            linhas.getInt(1);
+        }
+    }
+
+}
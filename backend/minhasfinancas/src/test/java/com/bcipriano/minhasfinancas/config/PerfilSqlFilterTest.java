@@ -0,0 +1,78 @@
+package com.bcipriano.minhasfinancas.config;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class PerfilSqlFilterTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        for(int mes = 1; mes <= 12; mes++) {
+            lancamentoService.salvar(Lancamento.builder().descricao("lancamento " + mes).mes(mes).ano(2023)
+                    .valor(BigDecimal.TEN).tipo(TipoLancamento.DESPESA).status(StatusLancamento.PENDENTE)
+                    .usuario(usuario).build());
+        }
+    }
+
+    //Usuario, versão do ledger (ETag) e a página, que lê tamanho + 1 linhas para saber se há continuação
+    @Test
+    public void deveListarOsLancamentosComNoMaximoTresComandos() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos")
+                        .param("usuario", usuario.getId().toString())
+                        .param("tamanho", "5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(ComandosSql.noMaximo(3))
+                .andExpect(ComandosSql.linhasNoMaximo(8));
+    }
+
+    @Test
+    public void deveAgregarPorRotaNoEndpointDeDiagnostico() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos").param("usuario", usuario.getId().toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/actuator/sql"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$['GET /api/lancamentos'].requisicoes",
+                        greaterThanOrEqualTo(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$['GET /api/lancamentos'].maximoComandos",
+                        greaterThanOrEqualTo(1)));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.bcipriano.minhasfinancas.databaseTest;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -13,6 +14,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 
 @SpringBootTest
+@Tag("postgres")
 public class DatabaseTest {
     @Value("${spring.datasource.url}")
     private String url;
@@ -0,0 +1,35 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Contadores do Hibernate para verificar quantos comandos SQL uma operação executa.
+ * Chame zerar() logo antes da operação medida.
+ */
+public class EstatisticasHibernate {
+
+    private final Statistics statistics;
+
+    public EstatisticasHibernate(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public void zerar() {
+        statistics.clear();
+    }
+
+    //Todos os comandos preparados: SELECT, INSERT, UPDATE e DELETE
+    public long comandos() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    //Instâncias da entidade carregadas da base, por consulta própria ou inicialização de proxy
+    public long carregamentos(Class<?> entidade) {
+        return statistics.getEntityStatistics(entidade.getName()).getLoadCount()
+                + statistics.getEntityStatistics(entidade.getName()).getFetchCount();
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.VersaoLedgerService;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Quantidade de comandos SQL por operação, contada pelas estatísticas do Hibernate sobre o H2.
+ * Um número maior que o esperado aqui costuma ser um N+1 ou um carregamento de usuario desnecessário.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class LancamentoConsultasTest {
+
+    @Autowired
+    LancamentoService service;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    VersaoLedgerService versaoLedgerService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    EstatisticasHibernate estatisticas;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        estatisticas = new EstatisticasHibernate(entityManagerFactory);
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        for(int mes = 1; mes <= 12; mes++) {
+            service.salvar(criarLancamento(mes));
+        }
+    }
+
+    @Test
+    public void deveBuscarUmaPaginaComUmUnicoSelect() {
+        estatisticas.zerar();
+        Slice<LancamentoListagem> pagina = service.buscar(filtroDoUsuario(), null, 5);
+
+        Assertions.assertThat(pagina.getContent()).hasSize(5);
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(1);
+        Assertions.assertThat(estatisticas.carregamentos(Usuario.class)).isZero();
+    }
+
+    @Test
+    public void deveContinuarAPaginaDoAnoAPartirDoCursor() {
+        Lancamento filtro = filtroDoUsuario();
+        filtro.setAno(2023);
+        Slice<LancamentoListagem> primeira = service.buscar(filtro, null, 5);
+        LancamentoListagem ultima = primeira.getContent().get(4);
+
+        estatisticas.zerar();
+        Slice<LancamentoListagem> segunda = service.buscar(filtro,
+                new CursorLancamento(ultima.ano(), ultima.mes(), ultima.id()), 5);
+
+        Assertions.assertThat(segunda.getContent()).extracting(LancamentoListagem::mes).containsExactly(6, 7, 8, 9, 10);
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(1);
+        Assertions.assertThat(service.buscar(filtro, new CursorLancamento(2024, 1, 1l), 5).getContent()).isEmpty();
+    }
+
+    @Test
+    public void deveObterPorIdSemCarregarOUsuario() {
+        Long id = service.salvar(criarLancamento(1)).getId();
+
+        estatisticas.zerar();
+        Lancamento lancamento = service.obterPorId(id).get();
+
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(1);
+        Assertions.assertThat(Hibernate.isInitialized(lancamento.getUsuario())).isFalse();
+        Assertions.assertThat(lancamento.getUsuario().getId()).isEqualTo(usuario.getId());
+        Assertions.assertThat(estatisticas.carregamentos(Usuario.class)).isZero();
+    }
+
+    @Test
+    public void deveObterPorIdComUsuarioNoMesmoSelect() {
+        Long id = service.salvar(criarLancamento(1)).getId();
+
+        estatisticas.zerar();
+        Lancamento lancamento = service.obterPorIdComUsuario(id).get();
+
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(1);
+        Assertions.assertThat(Hibernate.isInitialized(lancamento.getUsuario())).isTrue();
+        Assertions.assertThat(lancamento.getUsuario().getEmail()).isEqualTo(usuario.getEmail());
+    }
+
+    @Test
+    public void deveAtualizarSemCarregarOUsuario() {
+        Lancamento lancamento = service.salvar(criarLancamento(1));
+        lancamento.setValor(BigDecimal.valueOf(250));
+
+        estatisticas.zerar();
+        service.atualizar(lancamento);
+
+        //Snapshot anterior, SELECT do merge, UPDATE do lançamento, versão e evento do ledger
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(5);
+        Assertions.assertThat(estatisticas.carregamentos(Usuario.class)).isZero();
+    }
+
+    @Test
+    public void deveAtualizarParcialmenteSemCarregarOUsuario() {
+        Long id = service.salvar(criarLancamento(1)).getId();
+        LancamentoDTO alteracoes = LancamentoDTO.builder().valor(BigDecimal.valueOf(250)).usuario(usuario.getId()).build();
+
+        estatisticas.zerar();
+        Lancamento lancamento = service.atualizarParcial(id, alteracoes, Set.of("valor", "usuario")).get();
+
+        //SELECT do lançamento, UPDATE das colunas alteradas, versão e evento do ledger
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(4);
+        Assertions.assertThat(estatisticas.carregamentos(Usuario.class)).isZero();
+        Assertions.assertThat(lancamento.getVersao()).isEqualTo(1);
+    }
+
+    @Test
+    public void naoDeveGravarAlteracaoParcialQueNaoMudaNada() {
+        Long id = service.salvar(criarLancamento(1)).getId();
+
+        estatisticas.zerar();
+        service.atualizarParcial(id, LancamentoDTO.builder().descricao("Conta 1").build(), Set.of("descricao"));
+
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(1);
+    }
+
+    @Test
+    public void deveIncrementarAVersaoDoLedgerACadaEscrita() {
+        Assertions.assertThat(versaoLedgerService.obterVersao(usuario.getId())).isEqualTo(12);
+
+        Lancamento lancamento = service.salvar(criarLancamento(1));
+        lancamento.setValor(BigDecimal.valueOf(250));
+        lancamento = service.atualizar(lancamento);
+        service.deletar(lancamento);
+
+        Assertions.assertThat(versaoLedgerService.obterVersao(usuario.getId())).isEqualTo(15);
+    }
+
+    @Test
+    public void deveDeletarSemCarregarOUsuario() {
+        Long id = service.salvar(criarLancamento(1)).getId();
+        Lancamento lancamento = service.obterPorId(id).get();
+
+        estatisticas.zerar();
+        service.deletar(lancamento);
+
+        //Snapshot anterior, SELECT do merge, DELETE, versão e evento do ledger
+        Assertions.assertThat(estatisticas.comandos()).isEqualTo(5);
+        Assertions.assertThat(estatisticas.carregamentos(Usuario.class)).isZero();
+    }
+
+    private Lancamento filtroDoUsuario() {
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(Usuario.builder().id(usuario.getId()).build());
+        return filtro;
+    }
+
+    private Lancamento criarLancamento(int mes) {
+        return Lancamento.builder()
+                .descricao("Conta " + mes)
+                .mes(mes)
+                .ano(2023)
+                .valor(BigDecimal.valueOf(100))
+                .tipo(TipoLancamento.DESPESA)
+                .status(StatusLancamento.PENDENTE)
+                .usuario(usuario)
+                .build();
+    }
+
+}
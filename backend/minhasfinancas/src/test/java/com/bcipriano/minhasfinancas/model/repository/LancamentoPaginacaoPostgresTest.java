@@ -0,0 +1,137 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Paginação por chave sobre o PostgreSQL com as migrações aplicadas: o H2 não usa a comparação de linha
+ * como faixa do índice. As linhas lidas vêm de pg_stat_xact_user_tables, somadas nas partições.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"minhasfinancas.ledger.consumidor.habilitado=false",
+        "minhasfinancas.recorrencia.habilitado=false", "minhasfinancas.particoes.habilitado=false"})
+@Transactional
+public class LancamentoPaginacaoPostgresTest {
+
+    static final int TAMANHO_PAGINA = 20;
+
+    static final EmbeddedPostgres postgres = iniciarPostgres();
+
+    @DynamicPropertySource
+    static void configurarBanco(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("minhasfinancas.leitura-reativa.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("minhasfinancas.leitura-reativa.username", () -> "postgres");
+        registry.add("minhasfinancas.leitura-reativa.password", () -> "postgres");
+    }
+
+    @Autowired
+    LancamentoService service;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Usuario usuario;
+
+    int anoAtual = LocalDate.now().getYear();
+
+    @Before
+    public void setUp() {
+        usuario = criarUsuarioComLancamentos();
+        criarUsuarioComLancamentos();
+        jdbcTemplate.execute("analyze financas.lancamento");
+    }
+
+    @Test
+    public void deveLerAsMesmasLinhasEmQualquerPagina() {
+        List<Long> linhasLidas = paginar(filtroDoUsuario(), 40);
+
+        Assertions.assertThat(linhasLidas).hasSize(40)
+                .allSatisfy(linhas -> Assertions.assertThat(linhas).isLessThan(2 * TAMANHO_PAGINA));
+    }
+
+    @Test
+    public void deveLerAsMesmasLinhasEmQualquerPaginaDoAno() {
+        Lancamento filtro = filtroDoUsuario();
+        filtro.setAno(anoAtual);
+
+        List<Long> linhasLidas = paginar(filtro, 15);
+
+        Assertions.assertThat(linhasLidas).hasSize(15)
+                .allSatisfy(linhas -> Assertions.assertThat(linhas).isLessThan(2 * TAMANHO_PAGINA));
+    }
+
+    private List<Long> paginar(Lancamento filtro, int paginas) {
+        List<Long> linhasLidas = new ArrayList<>();
+        CursorLancamento cursor = null;
+        for(int i = 0; i < paginas; i++) {
+            long antes = linhasLidas();
+            Slice<LancamentoListagem> pagina = service.buscar(filtro, cursor, TAMANHO_PAGINA);
+            linhasLidas.add(linhasLidas() - antes);
+
+            Assertions.assertThat(pagina.getContent()).hasSize(TAMANHO_PAGINA);
+            cursor = CursorLancamento.de(pagina.getContent().get(TAMANHO_PAGINA - 1));
+        }
+        return linhasLidas;
+    }
+
+    private long linhasLidas() {
+        return jdbcTemplate.queryForObject("select coalesce(sum(coalesce(seq_tup_read, 0) + coalesce(idx_tup_fetch, 0)), 0)"
+                + " from pg_stat_xact_user_tables where relid in"
+                + " (select inhrelid from pg_inherits where inhparent = 'financas.lancamento'::regclass)", Long.class);
+    }
+
+    //Três anos (um na partição padrão) de 12 meses com 30 lançamentos cada
+    private Usuario criarUsuarioComLancamentos() {
+        Usuario novo = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        jdbcTemplate.update("insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario)"
+                + " select nextval('financas.lancamento_seq'), 'Lançamento ' || n, mes, ano, 10, 'DESPESA', 'PENDENTE', ?"
+                + " from generate_series(?, ?) ano, generate_series(1, 12) mes, generate_series(1, 30) n",
+                novo.getId(), anoAtual - 1, anoAtual + 1);
+        return novo;
+    }
+
+    private Lancamento filtroDoUsuario() {
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(usuario);
+        return filtro;
+    }
+
+    private static EmbeddedPostgres iniciarPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.bcipriano.minhasfinancas.model.repository;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.service.LancamentoService;
+import com.bcipriano.minhasfinancas.service.LeituraReativaService;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Leituras pelo R2DBC (H2 em memória) sobre dados gravados pelo caminho JPA.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class LeituraReativaTest {
+
+    @Autowired
+    LeituraReativaRepository repository;
+
+    @Autowired
+    LeituraReativaService service;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+    }
+
+    @Test
+    public void deveListarOsLancamentosDoFiltroNaOrdemDaPaginacao() {
+        Lancamento marco = lancamentoService.salvar(criarLancamento(3, 2023, TipoLancamento.DESPESA, 30));
+        Lancamento janeiro = lancamentoService.salvar(criarLancamento(1, 2023, TipoLancamento.RECEITA, 10));
+        lancamentoService.salvar(criarLancamento(1, 2022, TipoLancamento.DESPESA, 5));
+
+        StepVerifier.create(repository.listarLancamentos(usuario.getId(), 2023, null))
+                .assertNext(listagem -> {
+                    Assertions.assertThat(listagem.id()).isEqualTo(janeiro.getId());
+                    Assertions.assertThat(listagem.usuario()).isEqualTo(usuario.getId());
+                    Assertions.assertThat(listagem.tipo()).isEqualTo(TipoLancamento.RECEITA);
+                    Assertions.assertThat(listagem.status()).isEqualTo(StatusLancamento.PENDENTE);
+                    Assertions.assertThat(listagem.valor()).isEqualByComparingTo(BigDecimal.TEN);
+                })
+                .assertNext(listagem -> Assertions.assertThat(listagem.id()).isEqualTo(marco.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void deveEmitirApenasOQueOAssinantePedir() {
+        for(int mes = 1; mes <= 5; mes++) {
+            lancamentoService.salvar(criarLancamento(mes, 2023, TipoLancamento.DESPESA, mes));
+        }
+
+        StepVerifier.create(service.listarLancamentos(usuario.getId(), null, null, 1000), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(2)
+                .assertNext(listagem -> Assertions.assertThat(listagem.mes()).isEqualTo(1))
+                .assertNext(listagem -> Assertions.assertThat(listagem.mes()).isEqualTo(2))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void deveLimitarAQuantidadeDeLancamentos() {
+        for(int mes = 1; mes <= 5; mes++) {
+            lancamentoService.salvar(criarLancamento(mes, 2023, TipoLancamento.DESPESA, mes));
+        }
+
+        StepVerifier.create(service.listarLancamentos(usuario.getId(), 2023, null, 3))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void deveObterOSaldoMaterializado() {
+        lancamentoService.salvar(criarLancamento(1, 2023, TipoLancamento.RECEITA, 100));
+        lancamentoService.salvar(criarLancamento(2, 2023, TipoLancamento.DESPESA, 40));
+
+        StepVerifier.create(service.obterSaldo(usuario.getId()))
+                .assertNext(saldo -> Assertions.assertThat(saldo).isEqualByComparingTo(BigDecimal.valueOf(60)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void deveCalcularOSaldoQuandoAindaNaoMaterializado() {
+        jdbcTemplate.update("insert into financas.lancamento (id, descricao, mes, ano, id_usuario, valor, moeda, tipo, status, versao)"
+                        + " values (nextval('financas.lancamento_seq'), 'Antigo', 1, 2020, ?, 25, 'BRL', 'DESPESA', 'EFETIVADO', 0)",
+                usuario.getId());
+
+        StepVerifier.create(service.obterSaldo(usuario.getId()))
+                .assertNext(saldo -> Assertions.assertThat(saldo).isEqualByComparingTo(BigDecimal.valueOf(-25)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void naoDeveObterSaldoDeUsuarioInexistente() {
+        StepVerifier.create(service.obterSaldo(-1l))
+                .verifyComplete();
+    }
+
+    private Lancamento criarLancamento(int mes, int ano, TipoLancamento tipo, int valor) {
+        return Lancamento.builder()
+                .descricao("Conta " + mes)
+                .mes(mes)
+                .ano(ano)
+                .valor(BigDecimal.valueOf(valor))
+                .tipo(tipo)
+                .status(StatusLancamento.PENDENTE)
+                .usuario(usuario)
+                .build();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import com.bcipriano.minhasfinancas.model.repository.CategoriaRepository;
+import com.bcipriano.minhasfinancas.service.impl.CategoriaServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+public class CategoriaServiceTest {
+
+    CategoriaRepository repository;
+
+    CategoriaService service;
+
+    @Before
+    public void setUp() {
+        repository = Mockito.mock(CategoriaRepository.class);
+        service = new CategoriaServiceImpl(repository);
+    }
+
+    @Test
+    public void deveRecusarNomeRepetidoSemDiferenciarMaiusculas() {
+        Mockito.when(repository.existsByIdUsuarioAndNomeIgnoreCase(1l, "mercado")).thenReturn(true);
+
+        Assertions.assertThatThrownBy(() -> service.salvar(Categoria.builder().idUsuario(1l).nome(" mercado ").build()))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Já existe uma categoria com este nome.");
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    public void deveRecusarNomeGravadoAoMesmoTempoPorOutroCadastro() {
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenThrow(violacao(CategoriaServiceImpl.CHAVE_NOME));
+
+        Assertions.assertThatThrownBy(() -> service.salvar(Categoria.builder().idUsuario(1l).nome("Mercado").build()))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Já existe uma categoria com este nome.");
+    }
+
+    @Test
+    public void deveRepassarViolacaoDeOutraRestricao() {
+        Mockito.when(repository.saveAndFlush(Mockito.any())).thenThrow(violacao("fk_categoria_usuario"));
+
+        Assertions.assertThatThrownBy(() -> service.salvar(Categoria.builder().idUsuario(1l).nome("Mercado").build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private DataIntegrityViolationException violacao(String restricao) {
+        return new DataIntegrityViolationException("violação",
+                new ConstraintViolationException("violação", new SQLException("violação", "23505"), restricao));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.service.impl.CotacaoServiceImpl;
+import com.bcipriano.minhasfinancas.service.impl.ProvedorCotacaoArquivo;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CotacaoServiceTest {
+
+    ProvedorCotacao provedor;
+
+    CotacaoService cotacaoService;
+
+    @Before
+    public void setUp() {
+        provedor = Mockito.spy(new ProvedorCotacaoArquivo(new ByteArrayResource((
+                "moeda;data;valor\n" +
+                "# fechamento\n" +
+                "USD;2023-05-01;4.9000\n" +
+                "USD;2023-06-01;4.8000\n").getBytes(StandardCharsets.UTF_8))));
+        cotacaoService = new CotacaoServiceImpl(provedor, 10, Duration.ofHours(1));
+    }
+
+    @Test
+    public void deveConverterPelaUltimaCotacaoPublicadaAteAData() {
+        Assertions.assertThat(cotacaoService.converter("USD", BigDecimal.valueOf(10), LocalDate.of(2023, 5, 31)))
+                .isEqualByComparingTo("49.00");
+        Assertions.assertThat(cotacaoService.converter("USD", BigDecimal.valueOf(10), LocalDate.of(2023, 6, 1)))
+                .isEqualByComparingTo("48.00");
+    }
+
+    @Test
+    public void deveSomarOsTotaisDeCadaMoedaNaMoedaPadrao() {
+        Map<String, BigDecimal> totais = new LinkedHashMap<>();
+        totais.put("BRL", BigDecimal.valueOf(100));
+        totais.put("USD", BigDecimal.valueOf(-2));
+
+        Assertions.assertThat(cotacaoService.converter(totais, LocalDate.of(2023, 5, 10))).isEqualByComparingTo("90.20");
+    }
+
+    @Test
+    public void deveConsultarOProvedorUmaVezPorMoedaEData() {
+        LocalDate data = LocalDate.of(2023, 5, 10);
+        cotacaoService.converter("USD", BigDecimal.ONE, data);
+        cotacaoService.converter("USD", BigDecimal.TEN, data);
+        cotacaoService.converter("BRL", BigDecimal.TEN, data);
+
+        Mockito.verify(provedor, Mockito.times(1)).obterCotacao(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    public void deveObterAsCotacoesDaDataSemAMoedaPadraoNemAsAusentes() {
+        Assertions.assertThat(cotacaoService.obterCotacoes(List.of("BRL", "USD"), LocalDate.of(2023, 5, 10)))
+                .containsExactly(Map.entry("USD", new BigDecimal("4.9000")));
+        Assertions.assertThat(cotacaoService.obterCotacoes(List.of("USD"), LocalDate.of(2023, 4, 30))).isEmpty();
+    }
+
+    @Test
+    public void deveRecusarConversaoSemCotacao() {
+        Assertions.assertThatThrownBy(() -> cotacaoService.converter("USD", BigDecimal.ONE, LocalDate.of(2023, 4, 30)))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Cotação indisponível: USD em 2023-04-30");
+        Assertions.assertThat(cotacaoService.suporta("USD")).isTrue();
+        Assertions.assertThat(cotacaoService.suporta("EUR")).isFalse();
+        Assertions.assertThat(cotacaoService.suporta("BRL")).isTrue();
+    }
+
+    @Test
+    public void deveConferirACotacaoDoFimDoMes() {
+        Assertions.assertThat(cotacaoService.temCotacao("USD", YearMonth.of(2023, 4))).isFalse();
+        Assertions.assertThat(cotacaoService.temCotacao("USD", YearMonth.of(2023, 5))).isTrue();
+        //Mês corrente: a última cotação publicada até hoje
+        Assertions.assertThat(cotacaoService.temCotacao("USD", YearMonth.now())).isTrue();
+        Assertions.assertThat(cotacaoService.temCotacao("BRL", YearMonth.of(1999, 1))).isTrue();
+    }
+
+    @Test
+    public void deveManterEmCacheSoAsCotacoesDeDatasPassadas() {
+        CotacaoService semTtl = new CotacaoServiceImpl(provedor, 10, Duration.ZERO);
+        LocalDate passada = LocalDate.of(2023, 5, 10);
+        semTtl.converter("USD", BigDecimal.ONE, passada);
+        semTtl.converter("USD", BigDecimal.ONE, passada);
+        Mockito.verify(provedor, Mockito.times(1)).obterCotacao("USD", passada);
+
+        //A do dia e as ausentes voltam ao provedor depois do ttl
+        LocalDate hoje = LocalDate.now();
+        semTtl.converter("USD", BigDecimal.ONE, hoje);
+        semTtl.converter("USD", BigDecimal.ONE, hoje);
+        Mockito.verify(provedor, Mockito.times(2)).obterCotacao("USD", hoje);
+        semTtl.temCotacao("USD", YearMonth.of(2023, 4));
+        semTtl.temCotacao("USD", YearMonth.of(2023, 4));
+        Mockito.verify(provedor, Mockito.times(2)).obterCotacao("USD", LocalDate.of(2023, 4, 30));
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.impl.ExportacaoServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+public class ExportacaoServiceTest {
+
+    LancamentoRepository lancamentoRepository;
+
+    ExportacaoServiceImpl exportacaoService;
+
+    @Before
+    public void setUp() {
+        lancamentoRepository = Mockito.mock(LancamentoRepository.class);
+        exportacaoService = new ExportacaoServiceImpl(lancamentoRepository,
+                Mockito.mock(PlatformTransactionManager.class), new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    public void deveExportarCsvComCabecalho() {
+        Mockito.when(lancamentoRepository.streamPorUsuario(1l)).thenReturn(Stream.of(
+                new LancamentoListagem(1l, 1l, "Aluguel", 1, 2023, new BigDecimal("1500.00"), "BRL",
+                        TipoLancamento.DESPESA, StatusLancamento.PENDENTE, LocalDate.of(2023, 1, 5), 3l),
+                new LancamentoListagem(2l, 1l, "Salario", 1, 2023, new BigDecimal("5000.00"), "BRL",
+                        TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, LocalDate.of(2023, 1, 6), null)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportar(1l, FormatoExportacao.CSV, saida);
+
+        Assertions.assertThat(saida.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "id,usuario,descricao,mes,ano,valor,moeda,tipo,status,dataCadastro,categoria",
+                "1,1,Aluguel,1,2023,1500.00,BRL,DESPESA,PENDENTE,2023-01-05,3",
+                "2,1,Salario,1,2023,5000.00,BRL,RECEITA,EFETIVADO,2023-01-06,");
+    }
+
+    @Test
+    public void deveExportarNdjsonUmObjetoPorLinha() {
+        Mockito.when(lancamentoRepository.streamPorUsuario(1l)).thenReturn(Stream.of(
+                new LancamentoListagem(1l, 1l, "Aluguel", 1, 2023, new BigDecimal("1500.00"), "BRL",
+                        TipoLancamento.DESPESA, StatusLancamento.PENDENTE, LocalDate.of(2023, 1, 5), 3l),
+                new LancamentoListagem(2l, 1l, "Salario", 1, 2023, new BigDecimal("5000.00"), "BRL",
+                        TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, null, null)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportar(1l, FormatoExportacao.NDJSON, saida);
+
+        String conteudo = saida.toString(StandardCharsets.UTF_8);
+        Assertions.assertThat(conteudo).endsWith("\n");
+        Assertions.assertThat(conteudo.split("\n")).containsExactly(
+                "{\"id\":1,\"usuario\":1,\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2023,\"valor\":1500.00,"
+                        + "\"moeda\":\"BRL\",\"tipo\":\"DESPESA\",\"status\":\"PENDENTE\",\"dataCadastro\":\"2023-01-05\",\"categoria\":3}",
+                "{\"id\":2,\"usuario\":1,\"descricao\":\"Salario\",\"mes\":1,\"ano\":2023,\"valor\":5000.00,"
+                        + "\"moeda\":\"BRL\",\"tipo\":\"RECEITA\",\"status\":\"EFETIVADO\",\"dataCadastro\":null,\"categoria\":null}");
+    }
+
+    @Test
+    public void naoDeveEscreverLinhasQuandoUsuarioNaoPossuiLancamentos() {
+        Mockito.when(lancamentoRepository.streamPorUsuario(1l)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportar(1l, FormatoExportacao.NDJSON, saida);
+
+        Assertions.assertThat(saida.size()).isZero();
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.ImportacaoServiceImpl;
+import com.bcipriano.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+public class ImportacaoServiceTest {
+
+    LancamentoRepository lancamentoRepository;
+
+    UsuarioService usuarioService;
+
+    ApplicationEventPublisher eventPublisher;
+
+    ImportacaoServiceImpl importacaoService;
+
+    @Before
+    public void setUp() {
+        lancamentoRepository = Mockito.mock(LancamentoRepository.class);
+        usuarioService = Mockito.mock(UsuarioService.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        CotacaoService cotacaoService = Mockito.mock(CotacaoService.class);
+        Mockito.when(cotacaoService.temCotacao(Mockito.any(), Mockito.any())).thenReturn(true);
+        LancamentoService lancamentoService = new LancamentoServiceImpl(lancamentoRepository,
+                Mockito.mock(AnoArquivadoRepository.class), Mockito.mock(SaldoService.class), Mockito.mock(IndiceDescricao.class), eventPublisher,
+                usuarioService, cotacaoService, Mockito.mock(CategoriaService.class),
+                Mockito.mock(PlatformTransactionManager.class), 1, 1000);
+
+        importacaoService = new ImportacaoServiceImpl(lancamentoRepository, lancamentoService, usuarioService,
+                eventPublisher, Mockito.mock(PlatformTransactionManager.class), new ObjectMapper(), 2);
+
+        EntityManager entityManager = Mockito.mock(EntityManager.class);
+        Mockito.when(entityManager.unwrap(Session.class)).thenReturn(Mockito.mock(Session.class));
+        ReflectionTestUtils.setField(importacaoService, "entityManager", entityManager);
+
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(new UsuarioListagem(1l, "usuario", "usuario@email.com", 0l)));
+        Mockito.when(usuarioService.obterReferencia(1l)).thenReturn(Usuario.builder().id(1l).build());
+        Mockito.when(lancamentoRepository.saveAll(Mockito.anyList())).thenAnswer(invocacao -> invocacao.getArgument(0));
+    }
+
+    @Test
+    public void deveImportarNdjsonEmLotesReportandoLinhasInvalidas() {
+        String conteudo = "{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2023,\"valor\":1500,\"tipo\":\"DESPESA\"}\n"
+                + "{\"descricao\":\"Salario\",\"mes\":1,\"ano\":2023,\"valor\":5000,\"tipo\":\"RECEITA\",\"status\":\"EFETIVADO\"}\n"
+                + "\n"
+                + "{\"descricao\":\"Quebrado\",\n"
+                + "{\"descricao\":\"\",\"mes\":1,\"ano\":2023,\"valor\":10,\"tipo\":\"DESPESA\"}\n"
+                + "{\"descricao\":\"Luz\",\"mes\":2,\"ano\":2023,\"valor\":120,\"tipo\":\"OUTRO\"}\n"
+                + "{\"descricao\":\"Agua\",\"mes\":2,\"ano\":2023,\"valor\":80,\"tipo\":\"DESPESA\"}\n";
+
+        ResultadoImportacao resultado = importacaoService.importar(1l, entrada(conteudo), FormatoImportacao.NDJSON);
+
+        Assertions.assertThat(resultado.linhas()).isEqualTo(6);
+        Assertions.assertThat(resultado.importados()).isEqualTo(3);
+        Assertions.assertThat(resultado.erros()).extracting(ResultadoImportacao.ErroImportacao::linha)
+                .containsExactly(4l, 5l, 6l);
+        Assertions.assertThat(resultado.erros().get(1).mensagem()).isEqualTo("Informe uma descrição válida!");
+        Assertions.assertThat(resultado.erros().get(2).mensagem()).isEqualTo("Tipo de lançamento inválido.");
+
+        Mockito.verify(lancamentoRepository, Mockito.times(2)).saveAll(Mockito.anyList());
+        Mockito.verify(usuarioService, Mockito.times(1)).obterPorId(1l);
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(Mockito.any(LancamentoAlteradoEvent.class));
+    }
+
+    @Test
+    public void deveImportarCsvComCabecalho() {
+        String conteudo = "descricao,mes,ano,valor,tipo\n"
+                + "Aluguel,1,2023,1500.00,DESPESA\n"
+                + "Salario,1,2023,abc,RECEITA\n";
+
+        ResultadoImportacao resultado = importacaoService.importar(1l, entrada(conteudo), FormatoImportacao.CSV);
+
+        Assertions.assertThat(resultado.importados()).isEqualTo(1);
+        Assertions.assertThat(resultado.erros()).hasSize(1);
+        Assertions.assertThat(resultado.erros().get(0).linha()).isEqualTo(3l);
+    }
+
+    @Test
+    public void deveImportarArrayJson() {
+        String conteudo = "[{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2023,\"valor\":1500,\"tipo\":\"DESPESA\",\"usuario\":1},"
+                + "{\"descricao\":\"Outro usuario\",\"mes\":1,\"ano\":2023,\"valor\":10,\"tipo\":\"DESPESA\",\"usuario\":2},"
+                + "{\"descricao\":\"Luz\",\"mes\":\"x\",\"ano\":2023,\"valor\":10,\"tipo\":\"DESPESA\"},"
+                + "{\"descricao\":\"Agua\",\"mes\":3,\"ano\":2023,\"valor\":10,\"tipo\":\"DESPESA\"}]";
+
+        ResultadoImportacao resultado = importacaoService.importar(1l, entrada(conteudo), FormatoImportacao.JSON);
+
+        Assertions.assertThat(resultado.linhas()).isEqualTo(4);
+        Assertions.assertThat(resultado.importados()).isEqualTo(2);
+        Assertions.assertThat(resultado.erros()).extracting(ResultadoImportacao.ErroImportacao::linha)
+                .containsExactly(2l, 3l);
+
+        ArgumentCaptor<LancamentoAlteradoEvent> evento = ArgumentCaptor.forClass(LancamentoAlteradoEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(evento.capture());
+        Assertions.assertThat(evento.getValue().atuais()).extracting(LancamentoSnapshot::descricao)
+                .containsExactly("Aluguel", "Agua");
+    }
+
+    @Test
+    public void deveRegravarLinhaALinhaOLoteRecusadoPelaBase() {
+        String conteudo = "{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2023,\"valor\":1500,\"tipo\":\"DESPESA\"}\n"
+                + "{\"descricao\":\"Recusada\",\"mes\":1,\"ano\":2023,\"valor\":10,\"tipo\":\"DESPESA\"}\n"
+                + "{\"descricao\":\"Agua\",\"mes\":2,\"ano\":2023,\"valor\":80,\"tipo\":\"DESPESA\"}\n";
+        Mockito.when(lancamentoRepository.saveAll(Mockito.anyList())).thenAnswer(invocacao -> {
+            List<Lancamento> lote = invocacao.getArgument(0);
+            lote.forEach(lancamento -> lancamento.setId(1l));
+            if(lote.stream().anyMatch(lancamento -> "Recusada".equals(lancamento.getDescricao()))) {
+                throw new DataIntegrityViolationException("recusada");
+            }
+            return lote;
+        });
+        Mockito.when(lancamentoRepository.save(Mockito.any(Lancamento.class))).thenAnswer(invocacao -> {
+            Lancamento lancamento = invocacao.getArgument(0);
+            Assertions.assertThat(lancamento.getId()).isNull();
+            if("Recusada".equals(lancamento.getDescricao())) {
+                throw new DataIntegrityViolationException("recusada");
+            }
+            return lancamento;
+        });
+
+        ResultadoImportacao resultado = importacaoService.importar(1l, entrada(conteudo), FormatoImportacao.NDJSON);
+
+        //O primeiro lote (linhas 1 e 2) é regravado linha a linha; só a linha 2 fica de fora
+        Assertions.assertThat(resultado.importados()).isEqualTo(2);
+        Assertions.assertThat(resultado.erros()).extracting(ResultadoImportacao.ErroImportacao::linha).containsExactly(2l);
+        Assertions.assertThat(resultado.erros().get(0).mensagem()).isEqualTo("Falha ao gravar esta linha.");
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(Mockito.any(LancamentoAlteradoEvent.class));
+    }
+
+    @Test(expected = RegraNegocioException.class)
+    public void naoDeveImportarParaUsuarioInexistente() {
+        Mockito.when(usuarioService.obterPorId(2l)).thenReturn(Optional.empty());
+
+        importacaoService.importar(2l, entrada("[]"), FormatoImportacao.JSON);
+    }
+
+    private static InputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.DescricaoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.IndiceDescricaoMemoria;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public class IndiceDescricaoMemoriaTest {
+
+    LancamentoRepository lancamentoRepository;
+
+    IndiceDescricaoMemoria indice;
+
+    @Before
+    public void setUp() {
+        lancamentoRepository = Mockito.mock(LancamentoRepository.class);
+        indice = new IndiceDescricaoMemoria(lancamentoRepository, 10, Duration.ofMinutes(10));
+
+        Mockito.when(lancamentoRepository.obterDescricoes(1l)).thenReturn(Arrays.asList(
+                new DescricaoLancamento(1l, "Aluguel apartamento"),
+                new DescricaoLancamento(2l, "Conta de luz"),
+                new DescricaoLancamento(3l, "Supermercado - alimentação"),
+                new DescricaoLancamento(4l, "Alimentação")));
+    }
+
+    @Test
+    public void deveBuscarPorPrefixoEInfixoOrdenandoPorRelevancia() {
+        List<Long> resultado = indice.buscar(1l, "ALIMENTACAO", 10);
+
+        Assertions.assertThat(resultado).containsExactly(4l, 3l);
+    }
+
+    @Test
+    public void deveBuscarTermoMenorQueUmTrigrama() {
+        List<Long> resultado = indice.buscar(1l, "lu", 10);
+
+        Assertions.assertThat(resultado).containsExactly(2l, 1l);
+    }
+
+    @Test
+    public void deveRespeitarOLimite() {
+        List<Long> resultado = indice.buscar(1l, "a", 2);
+
+        Assertions.assertThat(resultado).hasSize(2);
+    }
+
+    @Test
+    public void deveAtualizarIndiceCarregadoSemConsultarABase() {
+        indice.buscar(1l, "luz", 10);
+
+        indice.aoAlterarLancamento(LancamentoAlteradoEvent.alteracao(
+                criarSnapshot(2l, "Conta de luz"), criarSnapshot(2l, "Conta de água")));
+        indice.aoAlterarLancamento(LancamentoAlteradoEvent.inclusao(criarSnapshot(5l, "Luz do escritório")));
+
+        Assertions.assertThat(indice.buscar(1l, "luz", 10)).containsExactly(5l);
+        Assertions.assertThat(indice.buscar(1l, "agua", 10)).containsExactly(2l);
+        Mockito.verify(lancamentoRepository, Mockito.times(1)).obterDescricoes(1l);
+    }
+
+    @Test
+    public void naoDeveCarregarIndiceAoReceberAlteracaoDeUsuarioNaoCarregado() {
+        indice.aoAlterarLancamento(LancamentoAlteradoEvent.exclusao(criarSnapshot(1l, "Aluguel apartamento")));
+
+        Mockito.verify(lancamentoRepository, Mockito.never()).obterDescricoes(Mockito.anyLong());
+    }
+
+    @Test
+    public void devePreservarAlteracoesRecebidasDuranteAMontagem() {
+        Mockito.when(lancamentoRepository.obterDescricoes(1l)).thenAnswer(invocation -> {
+            indice.aoAlterarLancamento(LancamentoAlteradoEvent.alteracao(
+                    criarSnapshot(2l, "Conta de luz"), criarSnapshot(2l, "Conta de água")));
+            indice.aoAlterarLancamento(LancamentoAlteradoEvent.exclusao(criarSnapshot(1l, "Aluguel apartamento")));
+            return Arrays.asList(
+                    new DescricaoLancamento(1l, "Aluguel apartamento"),
+                    new DescricaoLancamento(2l, "Conta de luz"));
+        });
+
+        Assertions.assertThat(indice.buscar(1l, "agua", 10)).containsExactly(2l);
+        Assertions.assertThat(indice.buscar(1l, "luz", 10)).isEmpty();
+        Assertions.assertThat(indice.buscar(1l, "aluguel", 10)).isEmpty();
+    }
+
+    @Test
+    public void deveRemontarOIndiceQuandoAMontagemFalha() {
+        Mockito.when(lancamentoRepository.obterDescricoes(1l))
+                .thenThrow(new IllegalStateException("base indisponível"))
+                .thenReturn(Arrays.asList(new DescricaoLancamento(2l, "Conta de luz")));
+
+        Assertions.assertThatThrownBy(() -> indice.buscar(1l, "luz", 10)).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(indice.buscar(1l, "luz", 10)).containsExactly(2l);
+    }
+
+    public static LancamentoSnapshot criarSnapshot(Long id, String descricao) {
+        return new LancamentoSnapshot(id, 1l, descricao, 1, 2023, BigDecimal.TEN, "BRL", TipoLancamento.DESPESA, StatusLancamento.PENDENTE, null);
+    }
+
+}
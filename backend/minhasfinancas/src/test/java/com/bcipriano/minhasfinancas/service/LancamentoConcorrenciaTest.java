@@ -0,0 +1,153 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controle otimista do lançamento sobre o H2, com escritas concorrentes de verdade.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class LancamentoConcorrenciaTest {
+
+    static final StatusLancamento[] STATUS = {StatusLancamento.EFETIVADO, StatusLancamento.CANCELADO, StatusLancamento.PENDENTE};
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    ProjecaoLedgerService projecaoLedgerService;
+
+    @Autowired
+    List<ProjecaoLedger> projecoes;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    Usuario usuario;
+
+    Long id;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        id = lancamentoService.salvar(Lancamento.builder()
+                .descricao("Lancamento")
+                .mes(1)
+                .ano(2023)
+                .valor(BigDecimal.valueOf(100))
+                .tipo(TipoLancamento.RECEITA)
+                .usuario(usuario)
+                .build()).getId();
+    }
+
+    @Test
+    public void deveRecusarAtualizacaoSobreVersaoDesatualizada() {
+        Lancamento primeiraAba = lancamentoService.obterPorId(id).get();
+        Lancamento segundaAba = lancamentoService.obterPorId(id).get();
+
+        primeiraAba.setDescricao("Primeira");
+        lancamentoService.atualizar(primeiraAba);
+
+        segundaAba.setDescricao("Segunda");
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizar(segundaAba))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        Lancamento atual = lancamentoService.obterPorId(id).get();
+        Assertions.assertThat(atual.getDescricao()).isEqualTo("Primeira");
+        Assertions.assertThat(atual.getVersao()).isEqualTo(1);
+    }
+
+    @Test
+    public void deveIncrementarAVersaoNaAtualizacaoDeStatusEmLote() {
+        Lancamento aberto = lancamentoService.obterPorId(id).get();
+
+        lancamentoService.atualizarStatus(List.of(id), StatusLancamento.EFETIVADO);
+
+        aberto.setDescricao("Editado");
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizar(aberto))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        Assertions.assertThat(lancamentoService.obterPorId(id).get().getVersao()).isEqualTo(1);
+    }
+
+    @Test
+    public void deveRefazerATrocaDeStatusSemPerderEdicoesConcorrentes() throws Exception {
+        int threadsStatus = 4;
+        int trocasPorThread = 10;
+        int edicoes = 5;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsStatus + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        try {
+            for (int t = 0; t < threadsStatus; t++) {
+                int deslocamento = t;
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < trocasPorThread; i++) {
+                        Assertions.assertThat(lancamentoService.atualizarStatus(id, STATUS[(deslocamento + i) % STATUS.length])).isPresent();
+                    }
+                    return null;
+                }));
+            }
+            //Edição completa, como a de uma aba: relê e reenvia quando recebe o conflito
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < edicoes; ) {
+                    Lancamento lancamento = lancamentoService.obterPorId(id).get();
+                    lancamento.setValor(lancamento.getValor().add(BigDecimal.TEN));
+                    try {
+                        lancamentoService.atualizar(lancamento);
+                        i++;
+                    } catch (OptimisticLockingFailureException e) {
+                        //Outra escrita passou na frente: a próxima volta relê a versão atual
+                    }
+                }
+                return null;
+            }));
+
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Nenhuma troca de status sobrescreveu o valor, e nenhuma edição se perdeu
+        Lancamento atual = lancamentoService.obterPorId(id).get();
+        Assertions.assertThat(atual.getValor()).isEqualByComparingTo(BigDecimal.valueOf(150));
+        Assertions.assertThat(atual.getVersao()).isGreaterThanOrEqualTo(edicoes);
+
+        //Os eventos encadeados no ledger levam as projeções ao estado final do lançamento
+        projecaoLedgerService.processarPendentes();
+        for (ProjecaoLedger projecao : projecoes) {
+            Assertions.assertThat(projecao.verificar(usuario.getId())).isTrue();
+        }
+    }
+
+}
@@ -1,30 +1,47 @@
 package com.bcipriano.minhasfinancas.service;
 
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
 import com.bcipriano.minhasfinancas.model.entity.Lancamento;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
 import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
 import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.CursorLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.AnoArquivadoRepository;
 import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
 import com.bcipriano.minhasfinancas.model.repository.LancamentoRepositoryTest;
 import com.bcipriano.minhasfinancas.service.impl.LancamentoServiceImpl;
 import org.assertj.core.api.Assertions;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.nio.channels.MembershipKey;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
@@ -36,6 +53,32 @@ public class LancamentoServiceTest {
     @MockBean
     LancamentoRepository lancamentoRepository;
 
+    @MockBean
+    AnoArquivadoRepository anoArquivadoRepository;
+
+    @MockBean
+    SaldoService saldoService;
+
+    @MockBean
+    IndiceDescricao indiceDescricao;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @MockBean
+    CotacaoService cotacaoService;
+
+    @MockBean
+    CategoriaService categoriaService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        Mockito.when(cotacaoService.temCotacao(Mockito.any(), Mockito.any())).thenReturn(true);
+    }
+
     @Test
     public void deveSalvarUmLancamento() {
         Lancamento lancamentoSalvar = criarInstanciaLancamentoParaTeste();
@@ -73,6 +116,7 @@ public class LancamentoServiceTest {
         Lancamento lancamentoSalvo = criarInstanciaLancamentoParaTeste();
         lancamentoSalvo.setId(1l);
         lancamentoSalvo.setStatus(StatusLancamento.PENDENTE);
+        lancamentoSalvo.setVersao(0l);
 
         Mockito.doNothing().when(lancamentoService).validar(lancamentoSalvo);
 
@@ -120,15 +164,87 @@ public class LancamentoServiceTest {
 
         Lancamento lancamento = LancamentoRepositoryTest.criarInstanciaLancamentoParaTeste();
         lancamento.setId(1l);
+        lancamento.setUsuario(Usuario.builder().id(1l).build());
+
+        LancamentoListagem listagem = listagemDe(lancamento);
+        List<LancamentoListagem> lista = Arrays.asList(listagem);
+
+        Mockito.when(lancamentoRepository.buscarPrimeiraPaginaDoAno(Mockito.eq(1l), Mockito.eq(lancamento.getAno()), Mockito.any(),
+                Mockito.any(), Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(lista));
+
+        Slice<LancamentoListagem> resultado = lancamentoService.buscar(lancamento, null, 10);
+
+        Assertions.assertThat(resultado.getContent()).isNotEmpty().hasSize(1).contains(listagem);
+        Assertions.assertThat(resultado.getContent().get(0).usuario()).isEqualTo(1l);
+
+    }
+
+    @Test
+    public void deveBuscarAPartirDoCursorComDescricaoEscapada(){
+
+        Lancamento filtro = new Lancamento();
+        filtro.setUsuario(Usuario.builder().id(1l).build());
+        filtro.setDescricao(" 50%_Off ");
+
+        Mockito.when(lancamentoRepository.buscarPagina(Mockito.anyLong(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(Arrays.asList()));
+
+        lancamentoService.buscar(filtro, new CursorLancamento(2019, 3, 7l), 10000);
+
+        Mockito.verify(lancamentoRepository).buscarPagina(1l, null, "%50\\%\\_off%", 2019, 3, 7l,
+                PageRequest.ofSize(LancamentoServiceImpl.TAMANHO_MAXIMO_PAGINA));
+    }
+
+    @Test
+    public void deveDesistirDaTrocaDeStatusAoEsgotarOTempoDasTentativas() {
+        LancamentoRepository repository = Mockito.mock(LancamentoRepository.class);
+        Mockito.when(repository.obterComUsuario(1l)).thenThrow(new ObjectOptimisticLockingFailureException(Lancamento.class, 1l));
+        LancamentoService service = new LancamentoServiceImpl(repository, anoArquivadoRepository, saldoService,
+                indiceDescricao, Mockito.mock(ApplicationEventPublisher.class), usuarioService, cotacaoService,
+                categoriaService, transactionManager, 1000, 200);
+
+        long inicio = System.nanoTime();
+        Assertions.assertThatThrownBy(() -> service.atualizarStatus(1l, StatusLancamento.EFETIVADO))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        Assertions.assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+        Mockito.verify(repository, Mockito.atLeast(2)).obterComUsuario(1l);
+    }
+
+    @Test
+    public void deveConverterCursorEmTokenEDeVolta(){
+
+        CursorLancamento cursor = new CursorLancamento(2023, 12, 42l);
+
+        Assertions.assertThat(CursorLancamento.deToken(cursor.toToken())).isEqualTo(cursor);
+        Assertions.assertThat(Assertions.catchThrowable(() -> CursorLancamento.deToken("invalido")))
+                .isInstanceOf(RegraNegocioException.class);
+    }
+
+    @Test
+    public void deveBuscarPorDescricaoNaOrdemDoIndice(){
+
+        Lancamento lancamento = criarInstanciaLancamentoParaTeste();
+        lancamento.setId(1l);
+        LancamentoListagem primeiro = listagemDe(lancamento);
+        lancamento.setId(2l);
+        LancamentoListagem segundo = listagemDe(lancamento);
+
+        Mockito.when(indiceDescricao.buscar(1l, "random", 10)).thenReturn(Arrays.asList(2l, 1l));
+        Mockito.when(lancamentoRepository.obterListagens(Arrays.asList(2l, 1l))).thenReturn(Arrays.asList(primeiro, segundo));
 
-        List<Lancamento> lista = Arrays.asList(lancamento);
+        List<LancamentoListagem> resultado = lancamentoService.buscarPorDescricao(1l, "random", 10);
 
-        Mockito.when(lancamentoRepository.findAll(Mockito.any(Example.class))).thenReturn(lista);
+        Assertions.assertThat(resultado).containsExactly(segundo, primeiro);
+    }
 
-        List<Lancamento> resultado = lancamentoService.buscar(lancamento);
+    @Test
+    public void naoDeveBuscarPorDescricaoSemTermo(){
 
-        Assertions.assertThat(resultado).isNotEmpty().hasSize(1).contains(lancamento);
+        Throwable erro = Assertions.catchThrowable(() -> lancamentoService.buscarPorDescricao(1l, " ", 10));
 
+        Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um termo de busca!");
+        Mockito.verify(indiceDescricao, Mockito.never()).buscar(Mockito.anyLong(), Mockito.anyString(), Mockito.anyInt());
     }
 
     @Test
@@ -149,6 +265,129 @@ public class LancamentoServiceTest {
 
     }
 
+    @Test
+    public void deveValidarApenasOsCamposDaAlteracaoParcial(){
+
+        Lancamento lancamento = criarInstanciaLancamentoParaTeste();
+        lancamento.setId(1l);
+        lancamento.setUsuario(Usuario.builder().id(1l).build());
+        lancamento.setDescricao(null);
+        Mockito.when(lancamentoRepository.findById(1l)).thenReturn(Optional.of(lancamento));
+
+        //A descrição inválida já gravada não impede a alteração do valor
+        LancamentoDTO alteracoes = LancamentoDTO.builder().valor(BigDecimal.valueOf(25)).usuario(1l).build();
+        lancamentoService.atualizarParcial(1l, alteracoes, Set.of("valor", "usuario"));
+
+        Assertions.assertThat(lancamento.getValor()).isEqualByComparingTo(BigDecimal.valueOf(25));
+        Mockito.verify(lancamentoService, Mockito.never()).validar(Mockito.any());
+        Mockito.verify(usuarioService, Mockito.never()).obterPorId(Mockito.anyLong());
+        Mockito.verify(lancamentoRepository, Mockito.never()).save(Mockito.any());
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarParcial(1l,
+                        LancamentoDTO.builder().valor(BigDecimal.ZERO).build(), Set.of("valor")))
+                .isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido!");
+    }
+
+    @Test
+    public void deveRecusarAlteracaoParcialSobreOutraVersao(){
+
+        Lancamento lancamento = criarInstanciaLancamentoParaTeste();
+        lancamento.setId(1l);
+        lancamento.setVersao(4l);
+        Mockito.when(lancamentoRepository.findById(1l)).thenReturn(Optional.of(lancamento));
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarParcial(1l,
+                        LancamentoDTO.builder().versao(3l).status("EFETIVADO").build(), Set.of("versao", "status")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        Assertions.assertThat(lancamento.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+    }
+
+    @Test
+    public void deveConferirACategoriaQuandoElaOuODonoMudam(){
+
+        Lancamento lancamento = criarInstanciaLancamentoParaTeste();
+        lancamento.setId(1l);
+        lancamento.setUsuario(Usuario.builder().id(1l).build());
+        Mockito.when(lancamentoRepository.findById(1l)).thenReturn(Optional.of(lancamento));
+        Mockito.doThrow(new RegraNegocioException("Categoria não encontrada para o usuário do lançamento."))
+                .when(categoriaService).validarDoUsuario(9l, 1l);
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarParcial(1l,
+                        LancamentoDTO.builder().categoria(9l).build(), Set.of("categoria")))
+                .isInstanceOf(RegraNegocioException.class);
+
+        lancamentoService.atualizarParcial(1l, LancamentoDTO.builder().categoria(3l).build(), Set.of("categoria"));
+
+        Assertions.assertThat(lancamento.getIdCategoria()).isEqualTo(3l);
+        Mockito.verify(categoriaService).validarDoUsuario(3l, 1l);
+
+        //Sem mudança de categoria nem de dono, a categoria não é consultada de novo
+        lancamentoService.atualizarParcial(1l, LancamentoDTO.builder().valor(BigDecimal.ONE).build(), Set.of("valor"));
+        Mockito.verify(categoriaService, Mockito.times(2)).validarDoUsuario(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    public void deveAtualizarStatusEmLoteComUmUnicoUpdate(){
+
+        List<Long> ids = Arrays.asList(1l, 2l, 3l);
+        List<LancamentoSnapshot> anteriores = Arrays.asList(
+                new LancamentoSnapshot(1l, 1l, "Luz", 1, 2023, BigDecimal.TEN, "BRL", TipoLancamento.DESPESA, StatusLancamento.PENDENTE, null),
+                new LancamentoSnapshot(3l, 1l, "Agua", 1, 2023, BigDecimal.ONE, "BRL", TipoLancamento.DESPESA, StatusLancamento.PENDENTE, null));
+        Mockito.when(lancamentoRepository.obterSnapshotsParaStatus(ids, StatusLancamento.EFETIVADO)).thenReturn(anteriores);
+        Mockito.when(lancamentoRepository.atualizarStatus(Arrays.asList(1l, 3l), StatusLancamento.EFETIVADO)).thenReturn(2);
+
+        int atualizados = lancamentoService.atualizarStatus(ids, StatusLancamento.EFETIVADO);
+
+        Assertions.assertThat(atualizados).isEqualTo(2);
+        Mockito.verify(lancamentoRepository).atualizarStatus(Arrays.asList(1l, 3l), StatusLancamento.EFETIVADO);
+        Mockito.verify(lancamentoRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void naoDeveExecutarUpdateQuandoNenhumLancamentoDoFiltroMudaDeStatus(){
+
+        Lancamento filtro = Lancamento.builder().usuario(Usuario.builder().id(1l).build())
+                .ano(2023).mes(1).tipo(TipoLancamento.DESPESA).build();
+        Mockito.when(lancamentoRepository.obterSnapshotsParaStatusDoAno(
+                Mockito.eq(1l), Mockito.eq(2023), Mockito.eq(1), Mockito.eq(TipoLancamento.DESPESA),
+                Mockito.eq(StatusLancamento.CANCELADO), Mockito.any(Pageable.class)))
+                .thenReturn(List.of());
+
+        int atualizados = lancamentoService.atualizarStatusPorFiltro(filtro, StatusLancamento.CANCELADO);
+
+        Assertions.assertThat(atualizados).isZero();
+        Mockito.verify(lancamentoRepository, Mockito.never()).atualizarStatus(Mockito.anyList(), Mockito.any());
+    }
+
+    @Test
+    public void naoDeveAtualizarStatusPorFiltroSemAnoOuAcimaDoMaximo(){
+
+        Lancamento semAno = Lancamento.builder().usuario(Usuario.builder().id(1l).build()).mes(1).build();
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarStatusPorFiltro(semAno, StatusLancamento.CANCELADO))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Informe o ano dos lançamentos!");
+
+        LancamentoSnapshot snapshot = LancamentoSnapshot.de(criarInstanciaLancamentoParaTeste());
+        Mockito.when(lancamentoRepository.obterSnapshotsParaStatusDoAno(
+                        Mockito.eq(1l), Mockito.eq(2023), Mockito.isNull(), Mockito.isNull(),
+                        Mockito.eq(StatusLancamento.CANCELADO), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.nCopies(LancamentoServiceImpl.MAXIMO_STATUS_POR_FILTRO + 1, snapshot));
+        Lancamento doAno = Lancamento.builder().usuario(Usuario.builder().id(1l).build()).ano(2023).build();
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarStatusPorFiltro(doAno, StatusLancamento.CANCELADO))
+                .isInstanceOf(RegraNegocioException.class);
+
+        Mockito.verify(lancamentoRepository, Mockito.never()).atualizarStatus(Mockito.anyList(), Mockito.any());
+    }
+
+    @Test
+    public void naoDeveAtualizarStatusEmLoteSemLancamentos(){
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarStatus(List.of(), StatusLancamento.EFETIVADO))
+                .isInstanceOf(RegraNegocioException.class);
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarStatusPorFiltro(new Lancamento(), StatusLancamento.EFETIVADO))
+                .isInstanceOf(RegraNegocioException.class);
+    }
+
     @Test
     public void deveObterLancamentoPorId() {
 
@@ -231,6 +470,23 @@ public class LancamentoServiceTest {
         Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido!");
         lancamento.setValor(BigDecimal.valueOf(1));
 
+        //Verificação do atributo moeda: código ISO em maiúsculas e com cotação
+        lancamento.setMoeda("usd");
+        erro = Assertions.catchThrowable(()-> lancamentoService.validar(lancamento));
+        Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe uma moeda válida!");
+        lancamento.setMoeda("XYZ");
+
+        erro = Assertions.catchThrowable(()-> lancamentoService.validar(lancamento));
+        Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Moeda sem cotação disponível: XYZ");
+        Mockito.when(cotacaoService.suporta("USD")).thenReturn(true);
+        lancamento.setMoeda("USD");
+
+        //A cotação do mês do lançamento precisa existir
+        Mockito.when(cotacaoService.temCotacao("USD", YearMonth.of(2023, 1))).thenReturn(false);
+        erro = Assertions.catchThrowable(()-> lancamentoService.validar(lancamento));
+        Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Cotação indisponível: USD em 1/2023");
+        Mockito.when(cotacaoService.temCotacao("USD", YearMonth.of(2023, 1))).thenReturn(true);
+
         //Verificação do atributo TipoLancamento
         erro = Assertions.catchThrowable(()-> lancamentoService.validar(lancamento));
         Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um tipo de lancamento!");
@@ -238,6 +494,26 @@ public class LancamentoServiceTest {
 
     }
 
+    @Test
+    public void naoDeveAceitarLancamentosEmAnoArquivado(){
+
+        Mockito.when(anoArquivadoRepository.obterAnos()).thenReturn(Set.of(2019));
+        Lancamento lancamento = criarInstanciaLancamentoParaTeste();
+        lancamento.setUsuario(Usuario.builder().id(1l).build());
+
+        Assertions.assertThatThrownBy(() -> lancamentoService.validar(lancamento))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Os lançamentos de 2019 estão arquivados e não podem ser alterados!");
+
+        lancamento.setId(1l);
+        lancamento.setAno(2023);
+        Mockito.when(lancamentoRepository.findById(1l)).thenReturn(Optional.of(lancamento));
+        Assertions.assertThatThrownBy(() -> lancamentoService.atualizarParcial(1l,
+                        LancamentoDTO.builder().ano(2019).build(), Set.of("ano")))
+                .isInstanceOf(RegraNegocioException.class);
+        Assertions.assertThat(lancamento.getAno()).isEqualTo(2023);
+    }
+
     public static Lancamento criarInstanciaLancamentoParaTeste() {
         return Lancamento.builder()
                 .ano(2019)
@@ -250,4 +526,12 @@ public class LancamentoServiceTest {
                 .build();
     }
 
+    private static LancamentoListagem listagemDe(Lancamento lancamento) {
+        return new LancamentoListagem(lancamento.getId(),
+                lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null,
+                lancamento.getDescricao(), lancamento.getMes(), lancamento.getAno(), lancamento.getValor(),
+                lancamento.getMoeda(), lancamento.getTipo(), lancamento.getStatus(), lancamento.getDataCadastro(),
+                lancamento.getIdCategoria());
+    }
+
 }
@@ -0,0 +1,78 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.service.impl.ParticaoLancamentoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Year;
+import java.util.Arrays;
+
+public class ParticaoLancamentoServiceTest {
+
+    static final int ANOS_ATIVOS = 2;
+
+    AnoArquivadoRepository anoArquivadoRepository;
+
+    LancamentoRepository lancamentoRepository;
+
+    ProjecaoLedgerService projecaoLedgerService;
+
+    ParticaoLancamentoService service;
+
+    int primeiroAnoAtivo = Year.now().getValue() - ANOS_ATIVOS + 1;
+
+    @Before
+    public void setUp() {
+        anoArquivadoRepository = Mockito.mock(AnoArquivadoRepository.class);
+        lancamentoRepository = Mockito.mock(LancamentoRepository.class);
+        projecaoLedgerService = Mockito.mock(ProjecaoLedgerService.class);
+        service = new ParticaoLancamentoServiceImpl(anoArquivadoRepository, lancamentoRepository,
+                projecaoLedgerService, Mockito.mock(PlatformTransactionManager.class), ANOS_ATIVOS);
+    }
+
+    @Test
+    public void deveCriarAsParticoesDoAnoAtualEDoSeguinte() {
+        service.prepararParticoes();
+
+        Mockito.verify(anoArquivadoRepository).criarParticao(Year.now().getValue());
+        Mockito.verify(anoArquivadoRepository).criarParticao(Year.now().getValue() + 1);
+    }
+
+    @Test
+    public void naoDeveArquivarAnoDaJanelaAtiva() {
+        Assertions.assertThatThrownBy(() -> service.arquivar(primeiroAnoAtivo))
+                .isInstanceOf(RegraNegocioException.class);
+
+        Mockito.verify(anoArquivadoRepository, Mockito.never()).arquivar(Mockito.anyInt());
+    }
+
+    @Test
+    public void deveAplicarOLedgerEConferirAsProjecoesAntesDeArquivar() {
+        Mockito.when(projecaoLedgerService.processarPendentes()).thenReturn(500, 20, 0);
+        Mockito.when(anoArquivadoRepository.arquivar(primeiroAnoAtivo - 1)).thenReturn(true);
+
+        Assertions.assertThat(service.arquivar(primeiroAnoAtivo - 1)).isTrue();
+
+        InOrder ordem = Mockito.inOrder(projecaoLedgerService, anoArquivadoRepository);
+        ordem.verify(projecaoLedgerService, Mockito.times(3)).processarPendentes();
+        ordem.verify(projecaoLedgerService).verificarTodos();
+        ordem.verify(anoArquivadoRepository).arquivar(primeiroAnoAtivo - 1);
+    }
+
+    @Test
+    public void deveArquivarOsAnosAnterioresAJanelaAtiva() {
+        Mockito.when(lancamentoRepository.obterAnosAnterioresA(primeiroAnoAtivo)).thenReturn(Arrays.asList(2015, 2016));
+        Mockito.when(anoArquivadoRepository.arquivar(2015)).thenReturn(false);
+        Mockito.when(anoArquivadoRepository.arquivar(2016)).thenReturn(true);
+
+        Assertions.assertThat(service.arquivarAnosAntigos()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.api.dto.LancamentoDTO;
+import com.bcipriano.minhasfinancas.model.entity.Categoria;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.SaldoUsuario;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.repository.FalhaLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ledger de ponta a ponta sobre o H2: as escritas só gravam eventos e o consumidor, chamado
+ * explicitamente (o agendamento fica desligado no perfil de teste), leva as alterações às projeções.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProjecaoLedgerServiceTest {
+
+    @Autowired
+    ProjecaoLedgerService projecaoLedgerService;
+
+    @Autowired
+    VersaoLedgerService versaoLedgerService;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    SaldoService saldoService;
+
+    @Autowired
+    ResumoService resumoService;
+
+    @Autowired
+    CategoriaService categoriaService;
+
+    @Autowired
+    TotalCategoriaService totalCategoriaService;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    SaldoUsuarioRepository saldoRepository;
+
+    @Autowired
+    List<ProjecaoLedger> projecoes;
+
+    @Autowired
+    FalhaLedgerRepository falhaRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 100));
+        lancamentoService.salvar(criarLancamento(TipoLancamento.DESPESA, 30));
+        projecaoLedgerService.processarPendentes();
+    }
+
+    @Test
+    public void deveInicializarAsProjecoesNoPrimeiroEventoDoUsuario() {
+        Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId()))
+                .isEqualTo(versaoLedgerService.obterVersao(usuario.getId()))
+                .isEqualTo(2);
+        Assertions.assertThat(saldoRepository.findById(new SaldoUsuario.Chave(usuario.getId(), Lancamento.MOEDA_PADRAO)).get().getSaldo())
+                .isEqualByComparingTo(BigDecimal.valueOf(70));
+    }
+
+    @Test
+    public void deveAplicarAsEscritasSomenteNoConsumidor() {
+        Lancamento despesa = lancamentoService.salvar(criarLancamento(TipoLancamento.DESPESA, 20));
+        lancamentoService.atualizarStatus(despesa, StatusLancamento.EFETIVADO);
+
+        //A escrita não toca nas projeções
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(70));
+
+        projecaoLedgerService.processarPendentes();
+
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(50));
+        Assertions.assertThat(resumoService.obterResumosDoAno(usuario.getId(), 2023))
+                .filteredOn(resumo -> resumo.getStatus() == StatusLancamento.EFETIVADO)
+                .singleElement()
+                .satisfies(resumo -> Assertions.assertThat(resumo.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(20)));
+        Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId())).isEqualTo(4);
+    }
+
+    @Test
+    public void deveManterOsTotaisPorCategoriaNoConsumidor() {
+        Categoria mercado = categoriaService.salvar(Categoria.builder().idUsuario(usuario.getId()).nome("Mercado").build());
+        Categoria moradia = categoriaService.salvar(Categoria.builder().idUsuario(usuario.getId()).nome("Moradia").build());
+        Lancamento compra = criarLancamento(TipoLancamento.DESPESA, 40);
+        compra.setIdCategoria(mercado.getId());
+        compra = lancamentoService.salvar(compra);
+        Lancamento aluguel = criarLancamento(TipoLancamento.DESPESA, 15);
+        aluguel.setIdCategoria(mercado.getId());
+        aluguel = lancamentoService.salvar(aluguel);
+        lancamentoService.atualizarParcial(aluguel.getId(), LancamentoDTO.builder().categoria(moradia.getId()).build(),
+                Set.of("categoria"));
+
+        projecaoLedgerService.processarPendentes();
+
+        Assertions.assertThat(totalCategoriaService.obterTotais(usuario.getId(), 2023, 1))
+                .extracting(total -> total.getIdCategoria(), total -> total.getTotal().intValue())
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple(mercado.getId(), 40),
+                        Assertions.tuple(moradia.getId(), 15));
+        //Os lançamentos sem categoria do setUp ficam fora do agregado, e ele confere com os lançamentos
+        Assertions.assertThat(projecoes).allMatch(projecao -> projecao.verificar(usuario.getId()));
+    }
+
+    @Test
+    public void deveIgnorarEventosJaAplicadosAoReprocessar() {
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 5));
+        projecaoLedgerService.processarPendentes();
+
+        projecaoLedgerService.reprocessar(0);
+        projecaoLedgerService.reprocessar(0);
+
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(75));
+        Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId())).isEqualTo(3);
+    }
+
+    @Test
+    public void deveReconstruirProjecoesDivergentesEMudarAVersao() {
+        saldoRepository.save(SaldoUsuario.builder().idUsuario(usuario.getId()).moeda(Lancamento.MOEDA_PADRAO)
+                .totalReceitas(BigDecimal.ONE).totalDespesas(BigDecimal.ZERO).build());
+
+        Assertions.assertThat(projecaoLedgerService.verificarTodos()).isGreaterThanOrEqualTo(1);
+
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(70));
+        //Versão nova para invalidar os ETags do saldo incorreto
+        Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId())).isEqualTo(3);
+        Assertions.assertThat(projecaoLedgerService.verificarTodos()).isZero();
+    }
+
+    @Test
+    public void deveMedirTodosOsEventosPendentesForaDoLote() {
+        while(projecaoLedgerService.processarPendentes() > 0);
+        Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.pendentes").gauge().value()).isZero();
+
+        //Sem nenhum lote em andamento, a medida já conta as escritas ainda não aplicadas
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 5));
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 6));
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 7));
+        double aplicadosAntes = meterRegistry.get("minhasfinancas.ledger.eventos.aplicados").counter().count();
+
+        Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.pendentes").gauge().value()).isEqualTo(3);
+
+        projecaoLedgerService.processarPendentes();
+
+        Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.eventos.aplicados").counter().count())
+                .isEqualTo(aplicadosAntes + 3);
+        Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.pendentes").gauge().value()).isZero();
+
+        //O atraso é medido no início de cada lote
+        projecaoLedgerService.processarPendentes();
+
+        Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.atraso").gauge().value()).isZero();
+    }
+
+    @Test
+    public void deveSuspenderUsuarioComFalhaSemAtrasarOsDemais() {
+        Usuario outro = usuarioRepository.save(Usuario.builder().nome("outro")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        //O evento do usuário fica antes do evento do outro no ledger
+        lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, 5));
+        Lancamento doOutro = criarLancamento(TipoLancamento.RECEITA, 8);
+        doOutro.setUsuario(outro);
+        lancamentoService.salvar(doOutro);
+        String sql = "update financas.evento_ledger set dados = ? where id_usuario = ? and versao = ?";
+        String dados = jdbcTemplate.queryForObject("select dados from financas.evento_ledger where id_usuario = ? and versao = 3",
+                String.class, usuario.getId());
+        jdbcTemplate.update(sql, "{ilegivel", usuario.getId(), 3);
+        double falhasAntes = meterRegistry.get("minhasfinancas.ledger.falhas").counter().count();
+
+        try {
+            projecaoLedgerService.processarPendentes();
+            projecaoLedgerService.processarPendentes();
+
+            Assertions.assertThat(saldoService.obterSaldo(outro.getId())).isEqualByComparingTo(BigDecimal.valueOf(8));
+            Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId())).isEqualTo(2);
+            //Suspenso depois da primeira falha: o segundo lote nem tenta o usuário
+            Assertions.assertThat(falhaRepository.findById(usuario.getId()))
+                    .hasValueSatisfying(falha -> Assertions.assertThat(falha.getFalhas()).isEqualTo(1));
+            Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.falhas").counter().count())
+                    .isEqualTo(falhasAntes + 1);
+            Assertions.assertThat(meterRegistry.get("minhasfinancas.ledger.usuarios.suspensos").gauge().value())
+                    .isGreaterThanOrEqualTo(1);
+        } finally {
+            jdbcTemplate.update(sql, dados, usuario.getId(), 3);
+            falhaRepository.deleteAll();
+        }
+
+        projecaoLedgerService.processarPendentes();
+
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(75));
+        Assertions.assertThat(falhaRepository.findById(usuario.getId())).isEmpty();
+    }
+
+    @Test
+    public void naoDeveRemoverEventosDentroDaRetencao() {
+        long versao = versaoLedgerService.obterVersao(usuario.getId());
+
+        Assertions.assertThat(projecaoLedgerService.removerEventosAplicados()).isZero();
+        Assertions.assertThat(projecaoLedgerService.obterVersaoAplicada(usuario.getId())).isEqualTo(versao);
+    }
+
+    private Lancamento criarLancamento(TipoLancamento tipo, long valor) {
+        return Lancamento.builder()
+                .descricao("Lancamento")
+                .mes(1)
+                .ano(2023)
+                .valor(BigDecimal.valueOf(valor))
+                .tipo(tipo)
+                .usuario(usuario)
+                .build();
+    }
+
+}
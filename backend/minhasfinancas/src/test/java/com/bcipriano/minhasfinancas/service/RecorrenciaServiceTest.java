@@ -0,0 +1,194 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
+import com.bcipriano.minhasfinancas.model.entity.Lancamento;
+import com.bcipriano.minhasfinancas.model.entity.Recorrencia;
+import com.bcipriano.minhasfinancas.model.entity.ReservaRecorrencia;
+import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.Periodicidade;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoListagem;
+import com.bcipriano.minhasfinancas.model.repository.RecorrenciaRepository;
+import com.bcipriano.minhasfinancas.model.repository.ReservaRecorrenciaRepository;
+import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Geração das recorrências sobre o H2, chamada explicitamente (o agendamento fica desligado no perfil de teste).
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class RecorrenciaServiceTest {
+
+    @Autowired
+    RecorrenciaService recorrenciaService;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    ProjecaoLedgerService projecaoLedgerService;
+
+    @Autowired
+    SaldoService saldoService;
+
+    @Autowired
+    RecorrenciaRepository recorrenciaRepository;
+
+    @Autowired
+    ReservaRecorrenciaRepository reservaRepository;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${minhasfinancas.recorrencia.particoes:16}")
+    int particoes;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        recorrenciaRepository.deleteAll();
+        usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+                .email(UUID.randomUUID() + "@email.com").senha("senha").build());
+    }
+
+    @Test
+    public void deveGerarAsOcorrenciasVencidasAteAData() {
+        Recorrencia aluguel = recorrenciaService.salvar(criarRecorrencia(Periodicidade.MENSAL,
+                LocalDate.of(2023, 1, 31), LocalDate.of(2023, 4, 30)));
+
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 3, 15))).isEqualTo(2);
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 3, 15))).isZero();
+        //Março e abril; maio passa da data de fim e encerra a recorrência
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 12, 31))).isEqualTo(2);
+
+        Recorrencia encerrada = recorrenciaRepository.findById(aluguel.getId()).get();
+        Assertions.assertThat(encerrada.getOcorrencias()).isEqualTo(4);
+        Assertions.assertThat(encerrada.getProximaOcorrencia()).isNull();
+        Assertions.assertThat(lancamentosDoUsuario()).extracting(LancamentoListagem::mes)
+                .containsExactlyInAnyOrder(1, 2, 3, 4);
+
+        projecaoLedgerService.processarPendentes();
+        Assertions.assertThat(saldoService.obterSaldo(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(-4000));
+    }
+
+    @Test
+    public void deveContarAsOcorrenciasAnuaisAPartirDoInicio() {
+        Recorrencia anuidade = recorrenciaService.salvar(criarRecorrencia(Periodicidade.ANUAL,
+                LocalDate.of(2020, 2, 29), null));
+
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 6, 1))).isEqualTo(4);
+
+        Assertions.assertThat(recorrenciaRepository.findById(anuidade.getId()).get().getProximaOcorrencia())
+                .isEqualTo(LocalDate.of(2024, 2, 29));
+        Assertions.assertThat(lancamentosDoUsuario()).extracting(LancamentoListagem::ano)
+                .containsExactlyInAnyOrder(2020, 2021, 2022, 2023);
+    }
+
+    @Test
+    public void naoDeveGerarParticoesReservadasPorOutraInstancia() {
+        recorrenciaService.salvar(criarRecorrencia(Periodicidade.MENSAL, LocalDate.of(2023, 1, 10), null));
+        Instant agora = Instant.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for(int particao = 0; particao < particoes; particao++) {
+                reservaRepository.inserirSeAusente(particao);
+                reservaRepository.reservar(particao, "outra-instancia", agora, agora.plus(1, ChronoUnit.HOURS));
+            }
+        });
+
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 1, 31))).isZero();
+
+        //Reservas vencidas (a outra instância parou): as partições são tomadas
+        List<ReservaRecorrencia> reservas = reservaRepository.findAll();
+        reservas.forEach(reserva -> reserva.setBloqueadoAte(agora.minus(1, ChronoUnit.MINUTES)));
+        reservaRepository.saveAll(reservas);
+
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 1, 31))).isEqualTo(1);
+        Assertions.assertThat(reservaRepository.findAll()).extracting(ReservaRecorrencia::getResponsavel).containsOnlyNulls();
+    }
+
+    @Test
+    public void deveGerarAsDemaisRecorrenciasQuandoUmaFalhaAoGravar() {
+        Recorrencia aluguel = recorrenciaService.salvar(criarRecorrencia(Periodicidade.MENSAL, LocalDate.of(2023, 1, 10), null));
+        Recorrencia comFalha = criarRecorrencia(Periodicidade.MENSAL, LocalDate.of(2023, 1, 10), null);
+        comFalha.setDescricao("Recusada pela base");
+        comFalha = recorrenciaService.salvar(comFalha);
+        //Aceita pela validação, recusada só no banco
+        jdbcTemplate.execute("alter table financas.lancamento add constraint ck_recorrencia_teste"
+                + " check (descricao <> 'Recusada pela base')");
+        try {
+            Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 2, 15))).isEqualTo(2);
+        } finally {
+            jdbcTemplate.execute("alter table financas.lancamento drop constraint ck_recorrencia_teste");
+        }
+
+        Assertions.assertThat(recorrenciaRepository.findById(aluguel.getId()).get().getOcorrencias()).isEqualTo(2);
+        Assertions.assertThat(recorrenciaRepository.findById(comFalha.getId()).get().getOcorrencias()).isZero();
+
+        //Sem o problema, a recorrência que ficou para trás é gerada na execução seguinte
+        Assertions.assertThat(recorrenciaService.gerarOcorrencias(LocalDate.of(2023, 2, 15))).isEqualTo(2);
+        Assertions.assertThat(lancamentosDoUsuario()).hasSize(4);
+    }
+
+    @Test
+    public void deveValidarARecorrenciaComoUmLancamento() {
+        Recorrencia semPeriodicidade = criarRecorrencia(null, LocalDate.of(2023, 1, 10), null);
+        Assertions.assertThatThrownBy(() -> recorrenciaService.salvar(semPeriodicidade))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Informe a periodicidade da recorrência!");
+
+        Recorrencia fimAntesDoInicio = criarRecorrencia(Periodicidade.MENSAL, LocalDate.of(2023, 1, 10), LocalDate.of(2022, 1, 10));
+        Assertions.assertThatThrownBy(() -> recorrenciaService.salvar(fimAntesDoInicio))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("A data de fim da recorrência não pode ser anterior ao início!");
+
+        Recorrencia semDescricao = criarRecorrencia(Periodicidade.MENSAL, LocalDate.of(2023, 1, 10), null);
+        semDescricao.setDescricao(" ");
+        Assertions.assertThatThrownBy(() -> recorrenciaService.salvar(semDescricao))
+                .isInstanceOf(RegraNegocioException.class)
+                .hasMessage("Informe uma descrição válida!");
+    }
+
+    private List<LancamentoListagem> lancamentosDoUsuario() {
+        return lancamentoService.buscar(Lancamento.builder().usuario(usuario).build(), null, 100).getContent();
+    }
+
+    private Recorrencia criarRecorrencia(Periodicidade periodicidade, LocalDate inicio, LocalDate fim) {
+        return Recorrencia.builder()
+                .idUsuario(usuario.getId())
+                .descricao("Aluguel")
+                .valor(BigDecimal.valueOf(1000))
+                .tipo(TipoLancamento.DESPESA)
+                .periodicidade(periodicidade)
+                .dataInicio(inicio)
+                .dataFim(fim)
+                .build();
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.ResumoMensal;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensal;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.ResumoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ResumoServiceTest {
+
+    @SpyBean
+    ResumoServiceImpl resumoService;
+
+    @MockBean
+    ResumoMensalRepository resumoRepository;
+
+    @MockBean
+    LancamentoRepository lancamentoRepository;
+
+    @MockBean
+    CotacaoService cotacaoService;
+
+    @Test
+    public void deveMoverValorEntreStatusAoAtualizarStatus() {
+        Mockito.when(resumoRepository.somar(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.anyLong())).thenReturn(1);
+
+        LancamentoSnapshot anterior = criarSnapshot(StatusLancamento.PENDENTE);
+        LancamentoSnapshot atual = criarSnapshot(StatusLancamento.EFETIVADO);
+
+        resumoService.aplicar(LancamentoAlteradoEvent.alteracao(anterior, atual));
+
+        Mockito.verify(resumoRepository).somar(1l, 2023, 5, "DESPESA", "PENDENTE", "BRL", BigDecimal.valueOf(-10), -1l);
+        Mockito.verify(resumoRepository).somar(1l, 2023, 5, "DESPESA", "EFETIVADO", "BRL", BigDecimal.valueOf(10), 1l);
+    }
+
+    @Test
+    public void naoDeveAlterarResumoQuandoAChaveEOValorNaoMudarem() {
+        LancamentoSnapshot anterior = criarSnapshot(StatusLancamento.PENDENTE);
+
+        resumoService.aplicar(LancamentoAlteradoEvent.alteracao(anterior, anterior));
+
+        Mockito.verify(resumoRepository, Mockito.never()).somar(Mockito.anyLong(), Mockito.anyInt(),
+                Mockito.anyInt(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void deveIgnorarChavesZeradasAoVerificarOResumo() {
+        Mockito.when(lancamentoRepository.obterTotaisMensais(1l)).thenReturn(Arrays.asList(
+                new TotalMensal(2023, 5, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "BRL", BigDecimal.valueOf(10), 1l)));
+        Mockito.when(resumoRepository.obterForaDeAnosArquivados(1l)).thenReturn(Arrays.asList(
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(5).tipo(TipoLancamento.DESPESA)
+                        .status(StatusLancamento.PENDENTE).moeda("BRL").total(BigDecimal.valueOf(10)).quantidade(1l).build(),
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(4).tipo(TipoLancamento.RECEITA)
+                        .status(StatusLancamento.PENDENTE).moeda("BRL").total(BigDecimal.ZERO).quantidade(0l).build()));
+
+        Assertions.assertThat(resumoService.verificar(1l)).isTrue();
+    }
+
+    @Test
+    public void deveIdentificarResumoDivergenteDosLancamentos() {
+        Mockito.when(lancamentoRepository.obterTotaisMensais(1l)).thenReturn(Arrays.asList(
+                new TotalMensal(2023, 5, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "BRL", BigDecimal.valueOf(10), 1l)));
+        Mockito.when(resumoRepository.obterForaDeAnosArquivados(1l)).thenReturn(Arrays.asList(
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(5).tipo(TipoLancamento.DESPESA)
+                        .status(StatusLancamento.PENDENTE).moeda("BRL").total(BigDecimal.valueOf(20)).quantidade(2l).build()));
+
+        Assertions.assertThat(resumoService.verificar(1l)).isFalse();
+    }
+
+    @Test
+    public void deveManterOsResumosDosAnosArquivadosAoReconstruir() {
+        Mockito.when(lancamentoRepository.obterTotaisMensais(1l)).thenReturn(Arrays.asList(
+                new TotalMensal(2023, 5, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "BRL", BigDecimal.valueOf(10), 1l)));
+
+        resumoService.reconstruir(1l);
+
+        Mockito.verify(resumoRepository).removerForaDeAnosArquivados(1l);
+        Mockito.verify(resumoRepository).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    public void deveSomarNaMoedaPadraoOsResumosConvertidosDoMesmoMes() {
+        Mockito.when(resumoRepository.findByIdUsuarioAndAno(1l, 2023)).thenReturn(Arrays.asList(
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(5).tipo(TipoLancamento.DESPESA)
+                        .status(StatusLancamento.PENDENTE).moeda("BRL").total(BigDecimal.valueOf(10)).quantidade(1l).build(),
+                ResumoMensal.builder().idUsuario(1l).ano(2023).mes(5).tipo(TipoLancamento.DESPESA)
+                        .status(StatusLancamento.PENDENTE).moeda("USD").total(BigDecimal.valueOf(2)).quantidade(1l).build()));
+        Mockito.when(cotacaoService.converter("BRL", BigDecimal.valueOf(10), LocalDate.of(2023, 5, 31)))
+                .thenReturn(BigDecimal.valueOf(10));
+        Mockito.when(cotacaoService.converter("USD", BigDecimal.valueOf(2), LocalDate.of(2023, 5, 31)))
+                .thenReturn(BigDecimal.valueOf(9.8));
+
+        List<ResumoMensal> resumos = resumoService.obterResumosDoAno(1l, 2023);
+
+        Assertions.assertThat(resumos).hasSize(1);
+        Assertions.assertThat(resumos.get(0).getMoeda()).isEqualTo("BRL");
+        Assertions.assertThat(resumos.get(0).getTotal()).isEqualByComparingTo(BigDecimal.valueOf(19.8));
+        Assertions.assertThat(resumos.get(0).getQuantidade()).isEqualTo(2l);
+    }
+
+    public static LancamentoSnapshot criarSnapshot(StatusLancamento status) {
+        return new LancamentoSnapshot(1l, 1l, "Random", 5, 2023, BigDecimal.valueOf(10), "BRL", TipoLancamento.DESPESA, status, null);
+    }
+
+}
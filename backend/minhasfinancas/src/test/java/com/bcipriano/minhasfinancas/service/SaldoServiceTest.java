@@ -0,0 +1,196 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.SaldoUsuario;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalPorTipo;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.bcipriano.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.SaldoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class SaldoServiceTest {
+
+    @SpyBean
+    SaldoServiceImpl saldoService;
+
+    @MockBean
+    SaldoUsuarioRepository saldoRepository;
+
+    @MockBean
+    LancamentoRepository lancamentoRepository;
+
+    @MockBean
+    ResumoMensalRepository resumoRepository;
+
+    @MockBean
+    CotacaoService cotacaoService;
+
+    @Before
+    public void setUp() {
+        //Cotação 1 para todas as moedas: os testes conferem o que chega à conversão
+        Mockito.when(cotacaoService.converter(Mockito.anyMap(), Mockito.any())).thenAnswer(invocacao ->
+                invocacao.<Map<String, BigDecimal>>getArgument(0).values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    @Test
+    public void deveObterSaldoMaterializado() {
+        SaldoUsuario saldo = SaldoUsuario.builder().idUsuario(1l).moeda("BRL")
+                .totalReceitas(BigDecimal.valueOf(100)).totalDespesas(BigDecimal.valueOf(30)).build();
+        Mockito.when(saldoRepository.findByIdUsuario(1l)).thenReturn(List.of(saldo));
+
+        BigDecimal resultado = saldoService.obterSaldo(1l);
+
+        Assertions.assertThat(resultado).isEqualByComparingTo(BigDecimal.valueOf(70));
+        Mockito.verify(lancamentoRepository, Mockito.never()).obterTotaisPorTipo(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveConverterOSaldoDeCadaMoedaUmaUnicaVez() {
+        Mockito.when(saldoRepository.findByIdUsuario(1l)).thenReturn(List.of(
+                SaldoUsuario.builder().idUsuario(1l).moeda("BRL")
+                        .totalReceitas(BigDecimal.valueOf(100)).totalDespesas(BigDecimal.valueOf(30)).build(),
+                SaldoUsuario.builder().idUsuario(1l).moeda("USD")
+                        .totalReceitas(BigDecimal.valueOf(20)).totalDespesas(BigDecimal.valueOf(5)).build()));
+
+        saldoService.obterSaldo(1l);
+
+        ArgumentCaptor<Map<String, BigDecimal>> totais = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(cotacaoService).converter(totais.capture(), Mockito.eq(LocalDate.now()));
+        Assertions.assertThat(totais.getValue()).containsOnlyKeys("BRL", "USD");
+        Assertions.assertThat(totais.getValue().get("USD")).isEqualByComparingTo(BigDecimal.valueOf(15));
+    }
+
+    @Test
+    public void deveObterAsCotacoesDoDiaDasMoedasDoSaldo() {
+        Mockito.when(saldoRepository.findByIdUsuario(1l)).thenReturn(List.of(
+                SaldoUsuario.builder().idUsuario(1l).moeda("BRL").build(),
+                SaldoUsuario.builder().idUsuario(1l).moeda("USD").build()));
+        Mockito.when(cotacaoService.obterCotacoes(Set.of("BRL", "USD"), LocalDate.now()))
+                .thenReturn(Map.of("USD", new BigDecimal("4.90")));
+
+        Assertions.assertThat(saldoService.obterCotacoes(1l)).containsExactly(Map.entry("USD", new BigDecimal("4.90")));
+    }
+
+    @Test
+    public void deveCalcularSaldoQuandoNaoHouverSaldoMaterializado() {
+        Mockito.when(saldoRepository.findByIdUsuario(1l)).thenReturn(List.of());
+        Mockito.when(lancamentoRepository.obterTotaisPorTipo(1l)).thenReturn(Arrays.asList(
+                new TotalPorTipo(TipoLancamento.RECEITA, "BRL", BigDecimal.valueOf(50)),
+                new TotalPorTipo(TipoLancamento.DESPESA, "BRL", BigDecimal.valueOf(80))));
+
+        BigDecimal resultado = saldoService.obterSaldo(1l);
+
+        Assertions.assertThat(resultado).isEqualByComparingTo(BigDecimal.valueOf(-30));
+    }
+
+    @Test
+    public void deveSomarOsResumosDosAnosArquivadosAoReconstruirOSaldo() {
+        Mockito.when(lancamentoRepository.obterTotaisPorTipo(1l)).thenReturn(Arrays.asList(
+                new TotalPorTipo(TipoLancamento.RECEITA, "BRL", BigDecimal.valueOf(50)),
+                new TotalPorTipo(TipoLancamento.DESPESA, "USD", BigDecimal.valueOf(3))));
+        Mockito.when(resumoRepository.obterTotaisArquivadosPorTipo(1l)).thenReturn(Arrays.asList(
+                new TotalPorTipo(TipoLancamento.RECEITA, "BRL", BigDecimal.valueOf(20)),
+                new TotalPorTipo(TipoLancamento.DESPESA, "BRL", BigDecimal.valueOf(15))));
+
+        saldoService.reconstruir(1l);
+
+        ArgumentCaptor<Collection<SaldoUsuario>> saldos = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(saldoRepository).removerPorUsuario(1l);
+        Mockito.verify(saldoRepository).saveAll(saldos.capture());
+        Assertions.assertThat(saldos.getValue()).extracting(SaldoUsuario::getMoeda).containsExactly("BRL", "USD");
+        SaldoUsuario emReais = saldos.getValue().iterator().next();
+        Assertions.assertThat(emReais.getTotalReceitas()).isEqualByComparingTo(BigDecimal.valueOf(70));
+        Assertions.assertThat(emReais.getTotalDespesas()).isEqualByComparingTo(BigDecimal.valueOf(15));
+    }
+
+    @Test
+    public void deveSomarAVariacaoAoSaldoAoIncluirLancamento() {
+        Mockito.when(saldoRepository.somar(Mockito.anyLong(), Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(1);
+
+        saldoService.aplicar(LancamentoAlteradoEvent.inclusao(criarSnapshot(TipoLancamento.RECEITA, 10)));
+
+        Mockito.verify(saldoRepository).somar(1l, "BRL", BigDecimal.valueOf(10), BigDecimal.ZERO);
+        Mockito.verify(saldoRepository, Mockito.never()).save(Mockito.any(SaldoUsuario.class));
+    }
+
+    @Test
+    public void deveAplicarApenasADiferencaAoAtualizarLancamento() {
+        Mockito.when(saldoRepository.somar(Mockito.anyLong(), Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(1);
+
+        saldoService.aplicar(LancamentoAlteradoEvent.alteracao(
+                criarSnapshot(TipoLancamento.RECEITA, 10), criarSnapshot(TipoLancamento.DESPESA, 4)));
+
+        ArgumentCaptor<BigDecimal> receitas = ArgumentCaptor.forClass(BigDecimal.class);
+        ArgumentCaptor<BigDecimal> despesas = ArgumentCaptor.forClass(BigDecimal.class);
+        Mockito.verify(saldoRepository).somar(Mockito.eq(1l), Mockito.eq("BRL"), receitas.capture(), despesas.capture());
+        Assertions.assertThat(receitas.getValue()).isEqualByComparingTo(BigDecimal.valueOf(-10));
+        Assertions.assertThat(despesas.getValue()).isEqualByComparingTo(BigDecimal.valueOf(4));
+    }
+
+    @Test
+    public void naoDeveAlterarSaldoQuandoApenasOStatusMudar() {
+        LancamentoSnapshot anterior = criarSnapshot(TipoLancamento.DESPESA, 10);
+        LancamentoSnapshot atual = new LancamentoSnapshot(anterior.id(), anterior.idUsuario(), anterior.descricao(),
+                anterior.mes(), anterior.ano(), anterior.valor(), anterior.moeda(), anterior.tipo(), StatusLancamento.EFETIVADO,
+                anterior.idCategoria());
+
+        saldoService.aplicar(LancamentoAlteradoEvent.alteracao(anterior, atual));
+
+        Mockito.verify(saldoRepository, Mockito.never()).somar(Mockito.anyLong(), Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void deveIdentificarSaldoDivergenteDosLancamentos() {
+        Mockito.when(lancamentoRepository.obterTotaisPorTipo(Mockito.anyLong())).thenReturn(Collections.singletonList(
+                new TotalPorTipo(TipoLancamento.RECEITA, "BRL", BigDecimal.TEN)));
+        Mockito.when(saldoRepository.findByIdUsuario(1l)).thenReturn(List.of(SaldoUsuario.builder().idUsuario(1l)
+                .moeda("BRL").totalReceitas(BigDecimal.TEN).totalDespesas(BigDecimal.ZERO).build()));
+        Mockito.when(saldoRepository.findByIdUsuario(2l)).thenReturn(List.of(SaldoUsuario.builder().idUsuario(2l)
+                .moeda("BRL").totalReceitas(BigDecimal.ONE).totalDespesas(BigDecimal.ZERO).build()));
+        Mockito.when(saldoRepository.findByIdUsuario(3l)).thenReturn(List.of(
+                SaldoUsuario.builder().idUsuario(3l).moeda("BRL")
+                        .totalReceitas(BigDecimal.TEN).totalDespesas(BigDecimal.ZERO).build(),
+                SaldoUsuario.builder().idUsuario(3l).moeda("USD")
+                        .totalReceitas(BigDecimal.ZERO).totalDespesas(BigDecimal.ZERO).build()));
+        Mockito.when(saldoRepository.findByIdUsuario(4l)).thenReturn(List.of(
+                SaldoUsuario.builder().idUsuario(4l).moeda("BRL")
+                        .totalReceitas(BigDecimal.TEN).totalDespesas(BigDecimal.ZERO).build(),
+                SaldoUsuario.builder().idUsuario(4l).moeda("USD")
+                        .totalReceitas(BigDecimal.ONE).totalDespesas(BigDecimal.ZERO).build()));
+
+        Assertions.assertThat(saldoService.verificar(1l)).isTrue();
+        Assertions.assertThat(saldoService.verificar(2l)).isFalse();
+        //Moeda zerada equivale a ausente; com valor, diverge
+        Assertions.assertThat(saldoService.verificar(3l)).isTrue();
+        Assertions.assertThat(saldoService.verificar(4l)).isFalse();
+    }
+
+    public static LancamentoSnapshot criarSnapshot(TipoLancamento tipo, long valor) {
+        return new LancamentoSnapshot(1l, 1l, "Random", 1, 2019, BigDecimal.valueOf(valor), "BRL", tipo, StatusLancamento.PENDENTE, null);
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.TotalCategoria;
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.projection.TotalMensalCategoria;
+import com.bcipriano.minhasfinancas.model.repository.LancamentoRepository;
+import com.bcipriano.minhasfinancas.model.repository.TotalCategoriaRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.TotalCategoriaServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class TotalCategoriaServiceTest {
+
+    @SpyBean
+    TotalCategoriaServiceImpl totalCategoriaService;
+
+    @MockBean
+    TotalCategoriaRepository totalCategoriaRepository;
+
+    @MockBean
+    LancamentoRepository lancamentoRepository;
+
+    @MockBean
+    CotacaoService cotacaoService;
+
+    @Test
+    public void deveMoverValorEntreCategoriasAoTrocarACategoria() {
+        Mockito.when(totalCategoriaRepository.somar(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.any(),
+                Mockito.anyLong())).thenReturn(1);
+
+        totalCategoriaService.aplicar(LancamentoAlteradoEvent.alteracao(criarSnapshot(2l), criarSnapshot(3l)));
+
+        Mockito.verify(totalCategoriaRepository).somar(1l, 2023, 5, 2l, "DESPESA", "PENDENTE", "BRL",
+                BigDecimal.valueOf(-10), -1l);
+        Mockito.verify(totalCategoriaRepository).somar(1l, 2023, 5, 3l, "DESPESA", "PENDENTE", "BRL",
+                BigDecimal.valueOf(10), 1l);
+    }
+
+    @Test
+    public void naoDeveContarLancamentosSemCategoria() {
+        totalCategoriaService.aplicar(LancamentoAlteradoEvent.alteracao(criarSnapshot(null), criarSnapshot(2l)));
+
+        //Só a entrada na categoria 2: a saída de "sem categoria" não tem chave no agregado
+        Mockito.verify(totalCategoriaRepository).somar(1l, 2023, 5, 2l, "DESPESA", "PENDENTE", "BRL",
+                BigDecimal.valueOf(10), 1l);
+        Mockito.verify(totalCategoriaRepository, Mockito.times(1)).somar(Mockito.anyLong(), Mockito.anyInt(),
+                Mockito.anyInt(), Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void deveIdentificarTotaisDivergentesDosLancamentos() {
+        Mockito.when(lancamentoRepository.obterTotaisMensaisPorCategoria(1l)).thenReturn(Arrays.asList(
+                new TotalMensalCategoria(2023, 5, 2l, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "BRL",
+                        BigDecimal.valueOf(10), 1l)));
+        Mockito.when(totalCategoriaRepository.obterForaDeAnosArquivados(1l)).thenReturn(Arrays.asList(
+                criarTotal(2l, "BRL", 10, 1l),
+                criarTotal(3l, "BRL", 0, 0l)));
+
+        Assertions.assertThat(totalCategoriaService.verificar(1l)).isTrue();
+
+        Mockito.when(totalCategoriaRepository.obterForaDeAnosArquivados(1l)).thenReturn(Arrays.asList(
+                criarTotal(2l, "BRL", 20, 2l)));
+
+        Assertions.assertThat(totalCategoriaService.verificar(1l)).isFalse();
+    }
+
+    @Test
+    public void deveSomarNaMoedaPadraoOsTotaisConvertidosDaMesmaCategoria() {
+        Mockito.when(totalCategoriaRepository.obterDoPeriodo(1l, 2023, 5)).thenReturn(Arrays.asList(
+                criarTotal(2l, "BRL", 10, 1l),
+                criarTotal(2l, "USD", 2, 1l),
+                criarTotal(3l, "BRL", 7, 1l)));
+        Mockito.when(cotacaoService.converter("BRL", BigDecimal.valueOf(10), LocalDate.of(2023, 5, 31)))
+                .thenReturn(BigDecimal.valueOf(10));
+        Mockito.when(cotacaoService.converter("USD", BigDecimal.valueOf(2), LocalDate.of(2023, 5, 31)))
+                .thenReturn(BigDecimal.valueOf(9.8));
+        Mockito.when(cotacaoService.converter("BRL", BigDecimal.valueOf(7), LocalDate.of(2023, 5, 31)))
+                .thenReturn(BigDecimal.valueOf(7));
+
+        List<TotalCategoria> totais = totalCategoriaService.obterTotais(1l, 2023, 5);
+
+        Assertions.assertThat(totais).hasSize(2);
+        Assertions.assertThat(totais.get(0).getIdCategoria()).isEqualTo(2l);
+        Assertions.assertThat(totais.get(0).getMoeda()).isEqualTo("BRL");
+        Assertions.assertThat(totais.get(0).getTotal()).isEqualByComparingTo(BigDecimal.valueOf(19.8));
+        Assertions.assertThat(totais.get(0).getQuantidade()).isEqualTo(2l);
+        Assertions.assertThat(totais.get(1).getTotal()).isEqualByComparingTo(BigDecimal.valueOf(7));
+    }
+
+    private static TotalCategoria criarTotal(Long idCategoria, String moeda, long total, long quantidade) {
+        return TotalCategoria.builder().idUsuario(1l).ano(2023).mes(5).idCategoria(idCategoria)
+                .tipo(TipoLancamento.DESPESA).status(StatusLancamento.PENDENTE).moeda(moeda)
+                .total(BigDecimal.valueOf(total)).quantidade(quantidade).build();
+    }
+
+    private static LancamentoSnapshot criarSnapshot(Long idCategoria) {
+        return new LancamentoSnapshot(1l, 1l, "Random", 5, 2023, BigDecimal.valueOf(10), "BRL",
+                TipoLancamento.DESPESA, StatusLancamento.PENDENTE, idCategoria);
+    }
+
+}
@@ -3,31 +3,68 @@ package com.bcipriano.minhasfinancas.service;
 import com.bcipriano.minhasfinancas.exception.ErroAutenticacao;
 import com.bcipriano.minhasfinancas.exception.RegraNegocioException;
 import com.bcipriano.minhasfinancas.model.entity.Usuario;
+import com.bcipriano.minhasfinancas.model.projection.UsuarioListagem;
 import com.bcipriano.minhasfinancas.model.repository.UsuarioRepository;
 
+import com.bcipriano.minhasfinancas.service.impl.SenhaServiceImpl;
 import com.bcipriano.minhasfinancas.service.impl.UsuarioServiceImpl;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 //@SpringBootTest
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) //O cache de e-mails desconhecidos não pode vazar entre os testes
 public class UsuarioServiceTest {
 
+    @Configuration
+    @EnableCaching(proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(UsuarioServiceImpl.CACHE_USUARIOS);
+        }
+
+        @Bean(name = "applicationTaskExecutor")
+        public ThreadPoolTaskExecutor applicationTaskExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("escrita-");
+            return executor;
+        }
+    }
+
     @SpyBean
     UsuarioServiceImpl service;
 
     @MockBean
     UsuarioRepository repository;
 
+    @SpyBean
+    SenhaServiceImpl senhaService;
+
+    @Autowired
+    ThreadPoolTaskExecutor executorEscritas;
+
 
     @Test(expected = Test.None.class)
     public void deveSalvarUmUsuario(){
@@ -113,4 +150,112 @@ public class UsuarioServiceTest {
 
     }
 
+    @Test
+    public void deveObterReferenciaSemConsultarOUsuario(){
+        //Cenário
+        Usuario referencia = Usuario.builder().id(1l).build();
+        Mockito.when(repository.getReferenceById(1l)).thenReturn(referencia);
+
+        //Ação
+        Usuario usuario = service.obterReferencia(1l);
+
+        //Verificação
+        Assertions.assertThat(usuario).isSameAs(referencia);
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveGuardarNoCacheUmaCopiaDoUsuarioSemASenha(){
+        Usuario usuario = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("senha").versao(0l).build();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(usuario));
+
+        UsuarioListagem primeira = service.obterPorId(1l).get();
+        usuario.setNome("alterado");
+        UsuarioListagem segunda = service.obterPorId(1l).get();
+
+        Assertions.assertThat(segunda).isEqualTo(new UsuarioListagem(1l, "nome", "email@email.com", 0l));
+        Assertions.assertThat(segunda).isSameAs(primeira);
+        Mockito.verify(repository, Mockito.times(1)).findById(1l);
+    }
+
+    @Test
+    public void naoDeveGuardarNoCacheUsuarioInexistente(){
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.empty());
+
+        service.obterPorId(1l);
+        service.obterPorId(1l);
+
+        Mockito.verify(repository, Mockito.times(2)).findById(1l);
+    }
+
+    @Test
+    public void deveSalvarUsuarioComHashDaSenha(){
+        Mockito.when(repository.save(Mockito.any(Usuario.class))).thenAnswer(invocacao -> invocacao.getArgument(0));
+
+        Usuario usuarioSalvo = service.salvarUsuario(Usuario.builder().email("email@email.com").senha("senha").build());
+
+        Assertions.assertThat(usuarioSalvo.getSenha()).isNotEqualTo("senha").startsWith("$2");
+        Assertions.assertThat(senhaService.verificar("senha", usuarioSalvo.getSenha()).join()).isTrue();
+    }
+
+    @Test
+    public void deveAutenticarUsuarioComSenhaComHashSemRegravar(){
+        Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha(senhaService.gerarHash("senha")).build();
+        Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+
+        Usuario result = service.autenticar("email@email.com", "senha");
+
+        Assertions.assertThat(result).isSameAs(usuario);
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Usuario.class));
+    }
+
+    @Test
+    public void deveRegravarSenhaEmTextoPuroComHashAoAutenticar() throws Exception {
+        Usuario usuario = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("senha").build();
+        Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+
+        CompletableFuture<String> threadDaGravacao = new CompletableFuture<>();
+        Mockito.when(repository.save(Mockito.any(Usuario.class))).thenAnswer(invocation -> {
+            threadDaGravacao.complete(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+
+        service.autenticar("email@email.com", "senha");
+
+        ArgumentCaptor<Usuario> captor = ArgumentCaptor.forClass(Usuario.class);
+        Assertions.assertThat(threadDaGravacao.get(5, TimeUnit.SECONDS)).startsWith("escrita-");
+        Mockito.verify(repository).save(captor.capture());
+        Assertions.assertThat(captor.getValue().getId()).isEqualTo(1l);
+        Assertions.assertThat(captor.getValue().getSenha()).startsWith("$2");
+        Assertions.assertThat(usuario.getSenha()).isEqualTo("senha");
+    }
+
+    @Test
+    public void deveTirarDoCacheOUsuarioComOHashRegravado() throws Exception {
+        Usuario usuario = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("senha").versao(0l).build();
+        Usuario regravado = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("$2").versao(1l).build();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(usuario), Optional.of(regravado));
+        Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+        Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(regravado);
+        service.obterPorId(1l);
+
+        service.autenticar("email@email.com", "senha");
+        executorEscritas.getThreadPoolExecutor().shutdown();
+        Assertions.assertThat(executorEscritas.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        Assertions.assertThat(service.obterPorId(1l).get().versao()).isEqualTo(1l);
+        Mockito.verify(repository, Mockito.times(2)).findById(1l);
+    }
+
+    @Test
+    public void naoDeveConsultarABaseNovamenteParaEmailDesconhecido(){
+        Mockito.when(repository.findByEmail("desconhecido@email.com")).thenReturn(Optional.empty());
+
+        Assertions.catchThrowable(() -> service.autenticar("desconhecido@email.com", "senha"));
+        Throwable exception = Assertions.catchThrowable(() -> service.autenticar("desconhecido@email.com", "senha"));
+
+        Assertions.assertThat(exception).isInstanceOf(ErroAutenticacao.class).hasMessage("Usuário não encontrado!");
+        Mockito.verify(repository, Mockito.times(1)).findByEmail("desconhecido@email.com");
+    }
+
 }
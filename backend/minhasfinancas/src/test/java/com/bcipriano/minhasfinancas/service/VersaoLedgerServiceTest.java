@@ -0,0 +1,89 @@
+package com.bcipriano.minhasfinancas.service;
+
+import com.bcipriano.minhasfinancas.model.entity.enums.StatusLancamento;
+import com.bcipriano.minhasfinancas.model.entity.enums.TipoLancamento;
+import com.bcipriano.minhasfinancas.model.projection.LancamentoSnapshot;
+import com.bcipriano.minhasfinancas.model.repository.EventoLedgerRepository;
+import com.bcipriano.minhasfinancas.model.repository.VersaoLedgerRepository;
+import com.bcipriano.minhasfinancas.service.event.LancamentoAlteradoEvent;
+import com.bcipriano.minhasfinancas.service.impl.VersaoLedgerServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class VersaoLedgerServiceTest {
+
+    @SpyBean
+    VersaoLedgerServiceImpl versaoLedgerService;
+
+    @MockBean
+    VersaoLedgerRepository repository;
+
+    @MockBean
+    EventoLedgerRepository eventoRepository;
+
+    @SpyBean
+    ObjectMapper objectMapper;
+
+    @Test
+    public void deveObterVersaoZeroParaUsuarioSemEscritas() {
+        Mockito.when(repository.obterVersao(1l)).thenReturn(Optional.empty());
+
+        Assertions.assertThat(versaoLedgerService.obterVersao(1l)).isZero();
+    }
+
+    @Test
+    public void deveGravarNoLedgerApenasAsAlteracoesDeCadaUsuario() throws Exception {
+        Mockito.when(repository.incrementar(Mockito.anyLong())).thenReturn(1);
+
+        versaoLedgerService.aoAlterarLancamento(LancamentoAlteradoEvent.alteracao(
+                Arrays.asList(criarSnapshot(1l, 2l), criarSnapshot(2l, 1l)),
+                Arrays.asList(criarSnapshot(1l, 2l), criarSnapshot(2l, 1l))));
+
+        ArgumentCaptor<String> dados = ArgumentCaptor.forClass(String.class);
+        InOrder ordem = Mockito.inOrder(repository, eventoRepository);
+        ordem.verify(repository).incrementar(1l);
+        ordem.verify(eventoRepository).registrar(Mockito.eq(1l), dados.capture(), Mockito.any(Instant.class));
+        ordem.verify(repository).incrementar(2l);
+        ordem.verify(eventoRepository).registrar(Mockito.eq(2l), dados.capture(), Mockito.any(Instant.class));
+
+        LancamentoAlteradoEvent doUsuario1 = objectMapper.readValue(dados.getAllValues().get(0), LancamentoAlteradoEvent.class);
+        Assertions.assertThat(doUsuario1.anteriores()).containsExactly(criarSnapshot(2l, 1l));
+        Assertions.assertThat(doUsuario1.atuais()).containsExactly(criarSnapshot(2l, 1l));
+    }
+
+    @Test
+    public void deveIncrementarUmaVezPorUsuarioAfetado() {
+        Mockito.when(repository.incrementar(Mockito.anyLong())).thenReturn(1);
+
+        versaoLedgerService.aoAlterarLancamento(LancamentoAlteradoEvent.alteracao(
+                Arrays.asList(criarSnapshot(1l, 3l), criarSnapshot(2l, 1l), criarSnapshot(3l, 3l)),
+                Arrays.asList(criarSnapshot(1l, 3l), criarSnapshot(2l, 1l), criarSnapshot(3l, 3l))));
+
+        InOrder ordem = Mockito.inOrder(repository);
+        ordem.verify(repository).incrementar(1l);
+        ordem.verify(repository).incrementar(3l);
+        Mockito.verify(repository, Mockito.times(2)).incrementar(Mockito.anyLong());
+    }
+
+    private LancamentoSnapshot criarSnapshot(Long id, Long idUsuario) {
+        return new LancamentoSnapshot(id, idUsuario, "Random", 1, 2019, BigDecimal.TEN, "BRL",
+                TipoLancamento.RECEITA, StatusLancamento.PENDENTE, null);
+    }
+
+}
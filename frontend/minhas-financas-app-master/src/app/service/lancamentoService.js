@@ -79,7 +79,7 @@ export default class LancamentoService extends ApiService {
         return this.put(`/${lancamento.id}`, lancamento);
     }
 
-    consultar(lancamentoFiltro){
+    consultar(lancamentoFiltro, cursor){
         let params = `?ano=${lancamentoFiltro.ano}`
 
         if(lancamentoFiltro.mes){
@@ -102,9 +102,18 @@ export default class LancamentoService extends ApiService {
             params = `${params}&descricao=${lancamentoFiltro.descricao}`
         }
 
+        if(cursor){
+            params = `${params}&cursor=${encodeURIComponent(cursor)}`
+        }
+
         return this.get(params);
     }
 
+    //A API devolve uma página por vez; o cursor da próxima vem no header X-Proximo-Cursor
+    obterProximoCursor(resposta){
+        return resposta.headers['x-proximo-cursor'] || null
+    }
+
     deletar(id){
         return this.delete(`/${id}`)
     }
@@ -69,9 +69,10 @@ class CadastroLancamentos extends React.Component {
     }
 
     atualizar = () => {
-        const { descricao, valor, mes, ano, tipo, status, usuario, id } = this.state;
+        const { descricao, valor, mes, ano, tipo, status, usuario, id, versao } = this.state;
 
-        const lancamento = { descricao, valor, mes, ano, tipo, usuario, status, id };
+        // versao: a atualização é recusada (409) se o lançamento mudou depois de carregado
+        const lancamento = { descricao, valor, mes, ano, tipo, usuario, status, id, versao };
         
         this.service
             .atualizar(lancamento)
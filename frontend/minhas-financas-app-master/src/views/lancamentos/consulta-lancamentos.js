@@ -24,7 +24,9 @@ class ConsultaLancamentos extends React.Component {
         descricao: '',
         showConfirmDialog: false,
         lancamentoDeletar: {},
-        lancamentos : []
+        lancamentos : [],
+        lancamentoFiltro: null,
+        proximoCursor: null
     }
 
     constructor(){
@@ -56,7 +58,19 @@ class ConsultaLancamentos extends React.Component {
                 if(lista.length < 1){
                     messages.mensagemAlert("Nenhum resultado encontrado.");
                 }
-                this.setState({ lancamentos: lista })
+                this.setState({ lancamentos: lista, lancamentoFiltro,
+                                proximoCursor: this.service.obterProximoCursor(resposta) })
+            }).catch( error => {
+                console.log(error)
+            })
+    }
+
+    carregarMais = () => {
+        this.service
+            .consultar(this.state.lancamentoFiltro, this.state.proximoCursor)
+            .then( resposta => {
+                this.setState({ lancamentos: [...this.state.lancamentos, ...resposta.data],
+                                proximoCursor: this.service.obterProximoCursor(resposta) })
             }).catch( error => {
                 console.log(error)
             })
@@ -181,6 +195,13 @@ class ConsultaLancamentos extends React.Component {
                                               deleteAction={this.abrirConfirmacao}
                                               editAction={this.editar}
                                               alterarStatus={this.alterarStatus} />
+                            { this.state.proximoCursor &&
+                                <button onClick={this.carregarMais} 
+                                        type="button" 
+                                        className="btn btn-primary">
+                                        <i className="pi pi-chevron-down"></i> Carregar mais
+                                </button>
+                            }
                         </div>
                     </div>  
                 </div> 